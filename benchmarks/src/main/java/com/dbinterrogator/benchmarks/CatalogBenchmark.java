@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.benchmarks;
+
+import com.dbinterrogator.mysql.MySQLInterrogator;
+import com.dbinterrogator.service.CatalogSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk catalog loading, where every call reads each information_schema
+ * view in full.  Runs far longer than a lookup, so it is timed per call
+ * with fewer iterations and a heap large enough for a million tables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class CatalogBenchmark {
+
+    @Param({ "10000", "100000", "1000000" })
+    private int tables;
+
+    @Param({ "100" })
+    private int schemata;
+
+    @Param({ "8" })
+    private int columns;
+
+    /**
+     * Connection pool size, 1 loads on a single connection
+     */
+    @Param({ "1", "4" })
+    private int poolSize;
+
+    private MySQLInterrogator interrogator;
+    private String schema;
+
+    @Setup(Level.Trial)
+    public void connect() throws SQLException {
+        SyntheticCatalog catalog = new SyntheticCatalog(schemata, tables, columns);
+        StandInDriver.install(catalog);
+        Properties options = new Properties();
+        options.setProperty("pool.maxSize", String.valueOf(poolSize));
+        interrogator = new MySQLInterrogator();
+        interrogator.Connect("stand-in", "benchmark", "benchmark", options);
+        schema = catalog.getSchemaName(catalog.getSchemaCount() / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void disconnect() {
+        interrogator.Disconnect();
+    }
+
+    @Benchmark
+    public CatalogSnapshot getCatalogSnapshot() {
+        return interrogator.getCatalogSnapshot();
+    }
+
+    @Benchmark
+    public CatalogSnapshot getSchemaCatalogSnapshot() {
+        return interrogator.getCatalogSnapshot(schema);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.benchmarks;
+
+import com.dbinterrogator.mysql.MySQLInterrogator;
+import com.dbinterrogator.service.ColumnReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of the lookups issued once per schema or table.
+ * getSchemata is a thin wrapper over singleColumn, so it measures the shared
+ * statement cache and result collection path, and getTables adds the keyset
+ * paged reader on top.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class InterrogatorBenchmark {
+
+    @Param({ "10000", "100000", "1000000" })
+    private int tables;
+
+    @Param({ "100" })
+    private int schemata;
+
+    @Param({ "8" })
+    private int columns;
+
+    private MySQLInterrogator interrogator;
+    private String schema;
+    private String table;
+    private ArrayList<String> schemaTables;
+    private List<ColumnReference> keyColumns;
+
+    @Setup(Level.Trial)
+    public void connect() throws SQLException {
+        SyntheticCatalog catalog = new SyntheticCatalog(schemata, tables, columns);
+        StandInDriver.install(catalog);
+        interrogator = new MySQLInterrogator();
+        interrogator.Connect("stand-in", "benchmark", "benchmark");
+        int middle = catalog.getTableCount() / 2;
+        schema = catalog.getSchemaName(catalog.getSchemaOf(middle));
+        table = catalog.getTableName(middle);
+        schemaTables = interrogator.getTables(schema);
+        keyColumns = new ArrayList<ColumnReference>();
+        for (String name : schemaTables) {
+            keyColumns.add(new ColumnReference(schema, name, "id"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void disconnect() {
+        interrogator.Disconnect();
+    }
+
+    @Benchmark
+    public ArrayList<String> getSchemata() {
+        return interrogator.getSchemata();
+    }
+
+    @Benchmark
+    public ArrayList<String> getTables() {
+        return interrogator.getTables(schema);
+    }
+
+    @Benchmark
+    public ArrayList<String> getIdentityColumns() {
+        return interrogator.getIdentityColumns(schema, table);
+    }
+
+    /**
+     * Tables of one schema looked up together.  Below the interrogator's scan
+     * threshold of 32 tables they fan out across the pool a query per table,
+     * at or above it they take one keyset paged scan of the schema, so each
+     * lookupTables value measures one of the two paths.
+     */
+    @State(Scope.Benchmark)
+    public static class IdentityLookup {
+
+        @Param({ "16", "100" })
+        private int lookupTables;
+
+        private List<String> tables;
+
+        @Setup(Level.Trial)
+        public void pick(InterrogatorBenchmark benchmark) {
+            tables = new ArrayList<String>(benchmark.schemaTables.subList(0, Math.min(lookupTables, benchmark.schemaTables.size())));
+        }
+    }
+
+    /**
+     * Many tables of one schema, fanned out across the pool or read in one
+     * paged scan depending on lookupTables
+     */
+    @Benchmark
+    public Map<String, ArrayList<String>> getIdentityColumnsConcurrent(IdentityLookup lookup) {
+        return interrogator.getIdentityColumns(schema, lookup.tables);
+    }
+
+    @Benchmark
+    public String getMaxValue() {
+        return interrogator.getMaxValue("id", schema, table);
+    }
+
+    /**
+     * Every table of one schema, batched into UNION ALL statements
+     */
+    @Benchmark
+    public Map<ColumnReference, String> getMaxValues() {
+        return interrogator.getMaxValues(keyColumns);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.benchmarks;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Forward-only cursor over generated rows
+ */
+abstract class Rows {
+
+    /**
+     * Value of a column in a generated row
+     */
+    interface Cell {
+        Object get(int row, int column);
+    }
+
+    private final String[] labels;
+
+    Rows(String[] labels) {
+        this.labels = labels;
+    }
+
+    /**
+     * Advance to the next row
+     *
+     * @return false once exhausted
+     */
+    abstract boolean next();
+
+    /**
+     * @param column 1 based column index
+     *
+     * @return value in the current row, null for SQL NULL
+     */
+    abstract Object get(int column);
+
+    /**
+     * @param label Column label
+     *
+     * @return 1 based column index, 0 if unknown
+     */
+    int indexOf(String label) {
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i].equalsIgnoreCase(label)) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    static Rows single(String label, Object value) {
+        return indexed(new String[] { label }, 0, 1, (row, column) -> value);
+    }
+
+    /**
+     * Rows numbered from first (inclusive) to last (exclusive)
+     */
+    static Rows indexed(String[] labels, int first, int last, Cell cell) {
+        return sparse(labels, first, last, row -> true, cell);
+    }
+
+    /**
+     * Rows numbered from first (inclusive) to last (exclusive), skipping
+     * numbers that do not exist
+     */
+    static Rows sparse(String[] labels, int first, int last, IntPredicate exists, Cell cell) {
+        return new Rows(labels) {
+            private int row = first - 1;
+
+            @Override
+            boolean next() {
+                do {
+                    row++;
+                } while (row < last && !exists.test(row));
+                return row < last;
+            }
+
+            @Override
+            Object get(int column) {
+                return cell.get(row, column);
+            }
+        };
+    }
+}
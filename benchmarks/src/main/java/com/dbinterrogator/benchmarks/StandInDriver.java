@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * In-process JDBC driver answering jdbc:mysql: URLs from a
+ * {@link SyntheticCatalog}, so MySQLInterrogator runs unmodified without a
+ * server or network.  Connector/J must not be on the classpath.
+ *
+ * Only the parts of JDBC the interrogator uses are simulated; anything else
+ * fails with SQLFeatureNotSupportedException rather than returning a
+ * plausible looking default.
+ */
+public final class StandInDriver implements Driver {
+
+    private static final StandInDriver INSTANCE = new StandInDriver();
+    private static volatile SyntheticCatalog catalog;
+    private static boolean registered;
+
+    private StandInDriver() {
+    }
+
+    /**
+     * Serve every new connection from a catalog
+     *
+     * @param synthetic SyntheticCatalog
+     */
+    public static synchronized void install(SyntheticCatalog synthetic) throws SQLException {
+        catalog = synthetic;
+        if (!registered) {
+            DriverManager.registerDriver(INSTANCE);
+            registered = true;
+        }
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        SyntheticCatalog synthetic = catalog;
+        if (synthetic == null) {
+            throw new SQLException("No synthetic catalog installed");
+        }
+        return proxy(Connection.class, new ConnectionHandler(synthetic));
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith("jdbc:mysql:");
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 5;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 1;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(StandInDriver.class.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    /**
+     * Identity based Object methods, with everything else left to the subclass
+     */
+    private abstract static class Handler implements InvocationHandler {
+        boolean closed;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                default:
+                    if (closed) {
+                        throw new SQLException("Closed");
+                    }
+                    return handle(method, args);
+            }
+        }
+
+        abstract Object handle(Method method, Object[] args) throws Exception;
+
+        static SQLFeatureNotSupportedException unsupported(Method method) {
+            return new SQLFeatureNotSupportedException("Not simulated: " + method.getName());
+        }
+    }
+
+    private static final class ConnectionHandler extends Handler {
+        private final SyntheticCatalog catalog;
+
+        ConnectionHandler(SyntheticCatalog catalog) {
+            this.catalog = catalog;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Exception {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return proxy(PreparedStatement.class, new StatementHandler(catalog, (String) args[0]));
+                case "createStatement":
+                    return proxy(Statement.class, new StatementHandler(catalog, null));
+                case "getMetaData":
+                    return proxy(DatabaseMetaData.class, new MetaDataHandler());
+                case "isValid":
+                    return true;
+                case "getAutoCommit":
+                    return true;
+                case "setAutoCommit":
+                case "setReadOnly":
+                case "clearWarnings":
+                    return null;
+                case "getWarnings":
+                    return null;
+                default:
+                    throw unsupported(method);
+            }
+        }
+    }
+
+    /**
+     * Reports a MySQL 5.7 server, which has no statistics cache to turn off
+     */
+    private static final class MetaDataHandler extends Handler {
+        @Override
+        Object handle(Method method, Object[] args) throws Exception {
+            switch (method.getName()) {
+                case "getDatabaseMajorVersion":
+                    return 5;
+                case "getDatabaseMinorVersion":
+                    return 7;
+                default:
+                    throw unsupported(method);
+            }
+        }
+    }
+
+    private static final class StatementHandler extends Handler {
+        private final SyntheticCatalog catalog;
+        private final String sql;
+        private Object[] parameters = new Object[8];
+        private int fetchSize;
+
+        StatementHandler(SyntheticCatalog catalog, String sql) {
+            this.catalog = catalog;
+            this.sql = sql;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Exception {
+            switch (method.getName()) {
+                case "setString":
+                case "setLong":
+                case "setInt":
+                case "setObject":
+                    bind((Integer) args[0], args[1]);
+                    return null;
+                case "setNull":
+                    bind((Integer) args[0], null);
+                    return null;
+                case "clearParameters":
+                    parameters = new Object[parameters.length];
+                    return null;
+                case "setFetchSize":
+                    fetchSize = (Integer) args[0];
+                    return null;
+                case "getFetchSize":
+                    return fetchSize;
+                case "executeQuery":
+                    String text = args == null ? sql : (String) args[0];
+                    return proxy(ResultSet.class, new ResultSetHandler(catalog.query(text, parameters)));
+                case "clearWarnings":
+                case "setQueryTimeout":
+                    return null;
+                case "getWarnings":
+                    return null;
+                default:
+                    throw unsupported(method);
+            }
+        }
+
+        private void bind(int index, Object value) {
+            if (index >= parameters.length) {
+                Object[] grown = new Object[index * 2];
+                System.arraycopy(parameters, 0, grown, 0, parameters.length);
+                parameters = grown;
+            }
+            parameters[index] = value;
+        }
+    }
+
+    private static final class ResultSetHandler extends Handler {
+        private final Rows rows;
+        private boolean wasNull;
+
+        ResultSetHandler(Rows rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Exception {
+            switch (method.getName()) {
+                case "next":
+                    return rows.next();
+                case "wasNull":
+                    return wasNull;
+                case "getString":
+                    Object text = value(args[0]);
+                    return text == null ? null : text.toString();
+                case "getInt":
+                    Object integer = value(args[0]);
+                    return integer == null ? 0 : integer instanceof Number ? ((Number) integer).intValue() : Integer.parseInt(integer.toString());
+                case "getLong":
+                    Object number = value(args[0]);
+                    return number == null ? 0L : number instanceof Number ? ((Number) number).longValue() : Long.parseLong(number.toString());
+                case "getTimestamp":
+                    return (Timestamp) value(args[0]);
+                case "getObject":
+                    return value(args[0]);
+                case "findColumn":
+                    return column(args[0]);
+                default:
+                    throw unsupported(method);
+            }
+        }
+
+        private Object value(Object column) throws SQLException {
+            Object value = rows.get(column(column));
+            wasNull = value == null;
+            return value;
+        }
+
+        private int column(Object column) throws SQLException {
+            int index = column instanceof Integer ? (Integer) column : rows.indexOf((String) column);
+            if (index < 1) {
+                throw new SQLException("Unknown column " + column);
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.benchmarks;
+
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Deterministic catalog of generated schemata, tables and columns that
+ * answers the information_schema queries issued by MySQLInterrogator.
+ *
+ * Names are generated once up front and handed out as shared instances, so
+ * the allocation measured by a benchmark is the interrogator's own rather
+ * than the stand-in's.  Rows are produced on demand as a result set is read,
+ * so even a million table catalog costs little more than its names.
+ */
+public final class SyntheticCatalog {
+
+    private static final Pattern BATCH_BRANCH = Pattern.compile("SELECT (\\d+) AS IDX.*?FROM `[^`]+`\\.`table_(\\d+)`", Pattern.DOTALL);
+    private static final Pattern SINGLE_TABLE = Pattern.compile("FROM `[^`]+`\\.`table_(\\d+)`");
+    private static final Timestamp CREATED = new Timestamp(1514764800000L);
+    private static final String[] DATA_TYPES = { "int", "varchar", "datetime", "decimal" };
+    private static final String[] COLUMN_TYPES = { "int(11)", "varchar(255)", "datetime", "decimal(10,2)" };
+
+    private final int tableCount;
+    private final int tablesPerSchema;
+    private final String[] schemaNames;
+    private final String[] tableNames;
+    private final String[] columnNames;
+    private final Map<String, Integer> schemaIndex = new HashMap<String, Integer>();
+
+    /**
+     * @param schemaCount Number of schemata
+     * @param tableCount Number of tables, spread evenly over the schemata
+     * @param columnCount Columns per table, including the integer primary key
+     */
+    public SyntheticCatalog(int schemaCount, int tableCount, int columnCount) {
+        if (schemaCount < 1 || tableCount < schemaCount || columnCount < 2) {
+            throw new IllegalArgumentException("Need at least one table per schema and two columns per table");
+        }
+        this.tableCount = tableCount;
+        this.tablesPerSchema = (tableCount + schemaCount - 1) / schemaCount;
+        this.schemaNames = new String[(tableCount + tablesPerSchema - 1) / tablesPerSchema];
+        for (int i = 0; i < schemaNames.length; i++) {
+            schemaNames[i] = "schema_" + pad(i, 4);
+            schemaIndex.put(schemaNames[i], i);
+        }
+        this.tableNames = new String[tableCount];
+        for (int i = 0; i < tableCount; i++) {
+            tableNames[i] = "table_" + pad(i, 7);
+        }
+        this.columnNames = new String[columnCount];
+        columnNames[0] = "id";
+        for (int i = 1; i < columnCount; i++) {
+            columnNames[i] = "c" + i;
+        }
+    }
+
+    public int getSchemaCount() {
+        return schemaNames.length;
+    }
+
+    public int getTableCount() {
+        return tableCount;
+    }
+
+    public String getSchemaName(int schema) {
+        return schemaNames[schema];
+    }
+
+    public String getTableName(int table) {
+        return tableNames[table];
+    }
+
+    /**
+     * @return schema holding a table
+     */
+    public int getSchemaOf(int table) {
+        return table / tablesPerSchema;
+    }
+
+    /**
+     * Answer a query
+     *
+     * @param sql Statement text
+     * @param parameters Bound parameters, 1 based
+     *
+     * @return Rows
+     */
+    Rows query(String sql, Object[] parameters) throws SQLException {
+        if (sql.contains("AS FINGERPRINT")) {
+            int[] range = tableRange(parameters[1]);
+            return Rows.single("FINGERPRINT", schemaNames.length + ":" + (range[1] - range[0]) + ":0:" + CREATED + ":");
+        }
+        if (sql.contains("AS IDX")) {
+            return batchValues(sql);
+        }
+        if (sql.startsWith("SELECT MAX(") || sql.startsWith("SELECT MIN(")) {
+            Matcher table = SINGLE_TABLE.matcher(sql);
+            if (!table.find()) {
+                throw new SQLException("Unknown table: " + sql);
+            }
+            return Rows.single("VALUE", keyValue(Integer.parseInt(table.group(1)), sql.startsWith("SELECT MAX(")));
+        }
+        if (sql.contains("DEFAULT_CHARACTER_SET_NAME")) {
+            return catalogSchemata((String) parameters[1]);
+        }
+        if (sql.contains("FROM INFORMATION_SCHEMA.SCHEMATA")) {
+            return Rows.indexed(new String[] { "SCHEMA_NAME" }, 0, schemaNames.length, (row, column) -> schemaNames[row]);
+        }
+        if (sql.contains("TABLE_TYPE, ENGINE")) {
+            return catalogTables((String) parameters[1]);
+        }
+        if (sql.contains("ORDINAL_POSITION, DATA_TYPE")) {
+            return catalogColumns((String) parameters[1]);
+        }
+        if (sql.contains("FROM INFORMATION_SCHEMA.KEY_COLUMN_USAGE")) {
+            return catalogKeys((String) parameters[1]);
+        }
+        if (sql.contains("SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES")) {
+            int[] range = page(tableRange(parameters[1]), (String) parameters[2], ((Number) parameters[3]).intValue());
+            return Rows.indexed(new String[] { "TABLE_NAME" }, range[0], range[1], (row, column) -> tableNames[row]);
+        }
+        if (sql.contains("(TABLE_NAME, ORDINAL_POSITION) >")) {
+            //Every table has a single key column, so a table is one row and the position never splits one
+            int[] range = page(tableRange(parameters[1]), (String) parameters[2], ((Number) parameters[4]).intValue());
+            return Rows.indexed(new String[] { "TABLE_NAME", "ORDINAL_POSITION", "COLUMN_NAME" }, range[0], range[1],
+                    (row, column) -> column == 1 ? tableNames[row] : column == 2 ? (Object) 1 : columnNames[0]);
+        }
+        if (sql.contains("FROM INFORMATION_SCHEMA.COLUMNS")) {
+            int table = tableIndex((String) parameters[1], (String) parameters[2]);
+            int columns = table < 0 ? 0 : sql.contains("COLUMN_KEY = 'PRI'") ? 1 : columnNames.length;
+            return Rows.indexed(new String[] { "COLUMN_NAME" }, 0, columns, (row, column) -> columnNames[row]);
+        }
+        throw new SQLFeatureNotSupportedException("Not simulated: " + sql);
+    }
+
+    private Rows batchValues(String sql) {
+        Matcher branch = BATCH_BRANCH.matcher(sql);
+        boolean max = sql.contains("CAST(MAX(");
+        List<int[]> values = new ArrayList<int[]>();
+        while (branch.find()) {
+            values.add(new int[] { Integer.parseInt(branch.group(1)), Integer.parseInt(branch.group(2)) });
+        }
+        return Rows.indexed(new String[] { "IDX", "VALUE" }, 0, values.size(),
+                (row, column) -> column == 1 ? (Object) values.get(row)[0] : keyValue(values.get(row)[1], max));
+    }
+
+    private Rows catalogSchemata(String schema) {
+        int[] range = schemaRange(schema);
+        return Rows.indexed(new String[] { "SCHEMA_NAME", "DEFAULT_CHARACTER_SET_NAME", "DEFAULT_COLLATION_NAME" },
+                range[0], range[1], (row, column) -> column == 1 ? schemaNames[row] : column == 2 ? "utf8mb4" : "utf8mb4_general_ci");
+    }
+
+    private Rows catalogTables(String schema) {
+        int[] range = tableRange(schema);
+        return Rows.indexed(new String[] { "TABLE_SCHEMA", "TABLE_NAME", "TABLE_TYPE", "ENGINE", "TABLE_ROWS", "AUTO_INCREMENT", "CREATE_TIME", "UPDATE_TIME" },
+                range[0], range[1], (row, column) -> {
+                    switch (column) {
+                        case 1: return schemaNames[getSchemaOf(row)];
+                        case 2: return tableNames[row];
+                        case 3: return "BASE TABLE";
+                        case 4: return "InnoDB";
+                        case 5: return (long) rowCount(row);
+                        case 6: return (long) rowCount(row) + 1;
+                        case 7: return CREATED;
+                        default: return null;
+                    }
+                });
+    }
+
+    private Rows catalogColumns(String schema) {
+        int[] range = tableRange(schema);
+        final int columns = columnNames.length;
+        return Rows.indexed(new String[] { "TABLE_SCHEMA", "TABLE_NAME", "COLUMN_NAME", "ORDINAL_POSITION", "DATA_TYPE", "COLUMN_TYPE", "IS_NULLABLE", "COLUMN_KEY", "EXTRA" },
+                range[0] * columns, range[1] * columns, (row, column) -> {
+                    int table = row / columns;
+                    int ordinal = row % columns;
+                    switch (column) {
+                        case 1: return schemaNames[getSchemaOf(table)];
+                        case 2: return tableNames[table];
+                        case 3: return columnNames[ordinal];
+                        case 4: return ordinal + 1;
+                        case 5: return ordinal == 0 ? "int" : DATA_TYPES[ordinal % DATA_TYPES.length];
+                        case 6: return ordinal == 0 ? "int(10) unsigned" : COLUMN_TYPES[ordinal % COLUMN_TYPES.length];
+                        case 7: return ordinal == 0 ? "NO" : "YES";
+                        case 8: return ordinal == 0 ? "PRI" : ordinal == 1 && hasParent(table) ? "MUL" : "";
+                        default: return ordinal == 0 ? "auto_increment" : "";
+                    }
+                });
+    }
+
+    /**
+     * A primary key on id for every table and, for every tenth table, a
+     * foreign key from c1 to the id of the table before it
+     */
+    private Rows catalogKeys(String schema) {
+        int[] range = tableRange(schema);
+        return Rows.sparse(new String[] { "TABLE_SCHEMA", "TABLE_NAME", "CONSTRAINT_NAME", "COLUMN_NAME", "REFERENCED_TABLE_SCHEMA", "REFERENCED_TABLE_NAME", "REFERENCED_COLUMN_NAME" },
+                range[0] * 2, range[1] * 2, row -> row % 2 == 0 || hasParent(row / 2), (row, column) -> {
+                    int table = row / 2;
+                    boolean primary = row % 2 == 0;
+                    switch (column) {
+                        case 1: return schemaNames[getSchemaOf(table)];
+                        case 2: return tableNames[table];
+                        case 3: return primary ? "PRIMARY" : "fk_parent";
+                        case 4: return primary ? "id" : "c1";
+                        case 5: return primary ? null : schemaNames[getSchemaOf(table)];
+                        case 6: return primary ? null : tableNames[table - 1];
+                        default: return primary ? null : "id";
+                    }
+                });
+    }
+
+    private boolean hasParent(int table) {
+        return table % 10 == 9 && getSchemaOf(table - 1) == getSchemaOf(table);
+    }
+
+    private static int rowCount(int table) {
+        return (table % 1000) * 100;
+    }
+
+    private static String keyValue(int table, boolean max) {
+        int rows = rowCount(table);
+        return rows == 0 ? null : String.valueOf(max ? rows : 1);
+    }
+
+    private int[] schemaRange(Object schema) {
+        if (schema == null) {
+            return new int[] { 0, schemaNames.length };
+        }
+        Integer index = schemaIndex.get(schema);
+        return index == null ? new int[] { 0, 0 } : new int[] { index, index + 1 };
+    }
+
+    private int[] tableRange(Object schema) {
+        int[] schemata = schemaRange(schema);
+        return new int[] { Math.min(schemata[0] * tablesPerSchema, tableCount), Math.min(schemata[1] * tablesPerSchema, tableCount) };
+    }
+
+    /**
+     * Narrow a range of tables to a keyset page, names sorting in index order
+     *
+     * @param range Tables of the schema
+     * @param after Last name of the previous page, or '' for the first page
+     * @param limit Page size
+     */
+    private int[] page(int[] range, String after, int limit) {
+        int first = range[0];
+        if (!after.isEmpty()) {
+            int index = Arrays.binarySearch(tableNames, range[0], range[1], after);
+            first = index >= 0 ? index + 1 : -index - 1;
+        }
+        return new int[] { first, Math.min(range[1], first + limit) };
+    }
+
+    private int tableIndex(String schema, String table) {
+        if (table == null || !table.startsWith("table_")) {
+            return -1;
+        }
+        int index;
+        try {
+            index = Integer.parseInt(table.substring(6));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+        int[] range = tableRange(schema);
+        return index >= range[0] && index < range[1] ? index : -1;
+    }
+
+    private static String pad(int value, int width) {
+        StringBuilder padded = new StringBuilder(width).append(value);
+        while (padded.length() < width) {
+            padded.insert(0, '0');
+        }
+        return padded.toString();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.cli;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Length prefixed binary frames, all integers big endian:
+ *
+ *   stream  = "DBI" version(1 byte, 1) frame*
+ *   frame   = type(1 byte, 'H' header or 'R' row) length(int32) payload
+ *   payload = count(int32) field*
+ *   field   = length(int32, -1 for null) UTF-8 bytes
+ *
+ * A header's fields are the record kind followed by the field names; a
+ * row's are its values, numbers in decimal.  The frame length lets a
+ * reader skip records it does not want without decoding them.
+ */
+final class BinaryWriter implements RecordWriter {
+
+    static final byte VERSION = 1;
+
+    private final ChannelOutput output;
+    private boolean started = false;
+
+    BinaryWriter(ChannelOutput output) {
+        this.output = output;
+    }
+
+    @Override
+    public void header(String record, String... fields) throws IOException {
+        Object[] values = new Object[fields.length + 1];
+        values[0] = record;
+        System.arraycopy(fields, 0, values, 1, fields.length);
+        frame('H', values);
+    }
+
+    @Override
+    public void row(Object... values) throws IOException {
+        frame('R', values);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        start();
+        output.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    private void frame(char type, Object[] values) throws IOException {
+        start();
+        byte[][] fields = new byte[values.length][];
+        int length = Integer.BYTES;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                fields[i] = values[i].toString().getBytes(StandardCharsets.UTF_8);
+                length += fields[i].length;
+            }
+            length += Integer.BYTES;
+        }
+        output.writeByte(type);
+        output.writeInt(length);
+        output.writeInt(values.length);
+        for (byte[] field : fields) {
+            if (field == null) {
+                output.writeInt(-1);
+            } else {
+                output.writeInt(field.length);
+                output.write(field);
+            }
+        }
+    }
+
+    private void start() throws IOException {
+        if (!started) {
+            started = true;
+            output.write("DBI");
+            output.writeByte(VERSION);
+        }
+    }
+}
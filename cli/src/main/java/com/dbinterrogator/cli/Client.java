@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Thin client for the daemon.  It needs nothing beyond java.base, so starts
+ * in a fraction of the time of a full interrogation:
+ *
+ *   Client [--port N] [--schema S] instance command...
+ *
+ * It exits 1 when a command fails, including one that fails part way through
+ * its output, after printing the daemon's error to standard error.
+ */
+public class Client {
+
+    public static void main(String[] args) throws IOException {
+        int port = Daemon.DEFAULT_PORT;
+        String schema = null;
+        int next = 0;
+        while (next < args.length && args[next].startsWith("--")) {
+            if (args[next].equals("--port") && next + 1 < args.length) {
+                port = Integer.parseInt(args[next + 1]);
+            } else if (args[next].equals("--schema") && next + 1 < args.length) {
+                schema = args[next + 1];
+            } else {
+                usage();
+            }
+            next += 2;
+        }
+        if (args.length - next < 2) {
+            usage();
+        }
+        String instance = args[next++];
+        for (; next < args.length; next++) {
+            String path = "/" + URLEncoder.encode(instance, StandardCharsets.UTF_8) + "/" + URLEncoder.encode(args[next], StandardCharsets.UTF_8)
+                    + (schema == null ? "" : "?schema=" + URLEncoder.encode(schema, StandardCharsets.UTF_8));
+            HttpURLConnection connection = (HttpURLConnection) new URL("http", "127.0.0.1", port, path).openConnection();
+            int status = connection.getResponseCode();
+            //Connections are kept alive between commands once each body is read to the end
+            try (InputStream body = status == HttpURLConnection.HTTP_OK ? connection.getInputStream() : connection.getErrorStream()) {
+                if (status == HttpURLConnection.HTTP_OK) {
+                    if (!copy(body)) {
+                        System.exit(1);
+                    }
+                } else if (body != null) {
+                    body.transferTo(System.err);
+                }
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                System.err.println();
+                System.exit(1);
+            }
+        }
+        System.out.flush();
+    }
+
+    /**
+     * Copy a response to standard out a line at a time, holding each line
+     * back until the next arrives so an error trailer can be told apart
+     *
+     * @return false if the command failed part way through
+     */
+    private static boolean copy(InputStream body) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        PrintStream out = new PrintStream(System.out, false, StandardCharsets.UTF_8);
+        String previous = reader.readLine();
+        String line;
+        while (previous != null) {
+            line = reader.readLine();
+            if (line == null && previous.startsWith(Daemon.ERROR_PREFIX)) {
+                out.flush();
+                System.err.println(previous.substring(Daemon.ERROR_PREFIX.length()));
+                return false;
+            }
+            out.println(previous);
+            previous = line;
+        }
+        out.flush();
+        return true;
+    }
+
+    private static void usage() {
+        System.err.println("Usage: Client [--port N] [--schema S] instance command...");
+        System.exit(2);
+    }
+}
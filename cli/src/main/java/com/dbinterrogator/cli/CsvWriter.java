@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.cli;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * RFC 4180 CSV.  A header line is written whenever the kind of record
+ * changes, so run one command at a time for a single table of rows.
+ */
+final class CsvWriter implements RecordWriter {
+
+    private final ChannelOutput output;
+    private String[] fields;
+
+    CsvWriter(ChannelOutput output) {
+        this.output = output;
+    }
+
+    @Override
+    public void header(String record, String... fields) throws IOException {
+        if (!Arrays.equals(this.fields, fields)) {
+            this.fields = fields;
+            row((Object[]) fields);
+        }
+    }
+
+    @Override
+    public void row(Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                output.write(',');
+            }
+            if (values[i] != null) {
+                field(values[i].toString());
+            }
+        }
+        output.write("\r\n");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        output.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.flush();
+    }
+
+    private void field(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (quote) {
+            output.write('"');
+            output.write(value.replace("\"", "\"\""));
+            output.write('"');
+        } else {
+            output.write(value);
+        }
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.cli;
+
+import com.dbinterrogator.service.InterrogatorService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Long running process keeping interrogators, and their connections, warm
+ * between requests.
+ *
+ * Commands are served over HTTP on the loopback interface only:
+ *
+ *   GET /[instance]/[command]?schema=[name]   command output, a line at a time
+ *   GET /[instance]/[command]?format=ndjson   records as ndjson, csv or binary
+ *   GET /metrics                              latency summary
+ *
+ * Output is streamed, so the 200 status is sent before the command runs.  A
+ * command failing part way through ends its output with an error trailer
+ * instead: a line starting with ERROR_PREFIX in text, or an "error" record
+ * with a message field in the structured formats.
+ *
+ * Instances are connected on their first request unless warmed at start up,
+ * and stay connected until the daemon stops.  A keep alive checks every warm
+ * interrogator periodically; one that has lost its server is dropped and
+ * reconnected by the next request for it.
+ */
+class Daemon {
+    //Logger
+    private static final Logger logger = LoggerFactory.getLogger(Daemon.class.getName());
+
+    static final int DEFAULT_PORT = 7878;
+    static final long DEFAULT_KEEP_ALIVE = 60;
+    //Starts the last line of a text response whose command failed
+    static final String ERROR_PREFIX = "#error: ";
+
+    private final Predicate<String> configured;
+    private final Function<String, InterrogatorService> connector;
+    private final Supplier<String> metrics;
+    private final Map<String, CompletableFuture<InterrogatorService>> interrogators = new ConcurrentHashMap<String, CompletableFuture<InterrogatorService>>();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private HttpServer server;
+    private ExecutorService workers;
+    private ScheduledExecutorService keepAlive;
+
+    /**
+     * @param configured Whether an instance name is present in the config
+     * @param connector Connects an instance, throwing when it cannot
+     * @param metrics Latency summary served on /metrics
+     */
+    Daemon(Predicate<String> configured, Function<String, InterrogatorService> connector, Supplier<String> metrics) {
+        this.configured = configured;
+        this.connector = connector;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Start serving requests
+     *
+     * @param port Loopback port to listen on
+     * @param parallelism Requests served at once
+     * @param keepAliveSeconds Seconds between connection checks
+     */
+    void start(int port, int parallelism, long keepAliveSeconds) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        workers = Executors.newFixedThreadPool(parallelism);
+        server.setExecutor(workers);
+        server.createContext("/", this::handle);
+        keepAlive = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "daemon-keepalive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        keepAlive.scheduleWithFixedDelay(this::checkConnections, keepAliveSeconds, keepAliveSeconds, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "daemon-shutdown"));
+        server.start();
+        logger.info("Listening on " + server.getAddress());
+    }
+
+    /**
+     * Connect an instance ahead of its first request
+     *
+     * @param instance Instance name
+     */
+    void warm(String instance) {
+        try {
+            interrogator(instance);
+            logger.info("Connected to " + instance);
+        } catch (RuntimeException e) {
+            logger.error(instance + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Block until the daemon is stopped
+     */
+    void await() throws InterruptedException {
+        stopped.await();
+    }
+
+    void stop() {
+        if (stopped.getCount() == 0) {
+            return;
+        }
+        server.stop(0);
+        keepAlive.shutdownNow();
+        workers.shutdownNow();
+        for (CompletableFuture<InterrogatorService> interrogator : interrogators.values()) {
+            interrogator.thenAccept(InterrogatorService::Disconnect);
+        }
+        interrogators.clear();
+        stopped.countDown();
+    }
+
+    /**
+     * Warm interrogator of an instance, connecting it first if need be.  The
+     * connection is made outside the map, so a slow server only holds up
+     * requests for its own instance, which wait on the same attempt.
+     */
+    private InterrogatorService interrogator(String instance) {
+        CompletableFuture<InterrogatorService> connecting = new CompletableFuture<InterrogatorService>();
+        CompletableFuture<InterrogatorService> interrogator = interrogators.putIfAbsent(instance, connecting);
+        if (interrogator == null) {
+            interrogator = connecting;
+            try {
+                connecting.complete(connector.apply(instance));
+            } catch (RuntimeException | Error e) {
+                //Forgotten so the next request tries again
+                interrogators.remove(instance, connecting);
+                connecting.completeExceptionally(e);
+            }
+        }
+        try {
+            return interrogator.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private void checkConnections() {
+        for (Map.Entry<String, CompletableFuture<InterrogatorService>> entry : interrogators.entrySet()) {
+            //Still connecting, or failed and about to be forgotten
+            InterrogatorService interrogator = entry.getValue().getNow(null);
+            if (interrogator == null) {
+                continue;
+            }
+            try {
+                //Every server lists at least information_schema, so no schemata means a lost connection
+                if (interrogator.getSchemata().isEmpty() && interrogators.remove(entry.getKey(), entry.getValue())) {
+                    logger.warn("Lost connection to " + entry.getKey());
+                    interrogator.Disconnect();
+                }
+            } catch (RuntimeException e) {
+                //An exception would cancel every later check
+                logger.error(entry.getKey() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        String[] path = exchange.getRequestURI().getPath().substring(1).split("/");
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                respond(exchange, 405, "Only GET is supported");
+            } else if (path.length == 1 && path[0].equals("metrics")) {
+                respond(exchange, 200, metrics.get());
+            } else if (path.length != 2) {
+                respond(exchange, 404, "Expected /[instance]/[command]");
+            } else if (!configured.test(path[0])) {
+                respond(exchange, 404, "No such instance " + path[0]);
+            } else if (!QueryCommands.isSupported(path[1])) {
+                respond(exchange, 400, path[1] + " is not supported by the daemon");
+            } else if (!isFormat(parameter(exchange, "format"))) {
+                respond(exchange, 400, "Unknown format " + parameter(exchange, "format"));
+            } else {
+                InterrogatorService interrogator;
+                try {
+                    interrogator = interrogator(path[0]);
+                } catch (RuntimeException e) {
+                    respond(exchange, 503, e.getMessage());
+                    return;
+                }
+                //Output is streamed as it is produced, so the status is committed up front
+                OutputFormat format = OutputFormat.parse(parameter(exchange, "format"));
+                exchange.getResponseHeaders().set("Content-Type", format == null ? "text/plain; charset=utf-8" : format.getContentType());
+                exchange.sendResponseHeaders(200, 0);
+                if (format != null) {
+                    try (RecordWriter out = format.open(Channels.newChannel(exchange.getResponseBody()))) {
+                        try {
+                            QueryCommands.write(interrogator, path[1], parameter(exchange, "schema"), out);
+                        } catch (UncheckedIOException e) {
+                            throw e;
+                        } catch (RuntimeException e) {
+                            logger.error(exchange.getRequestURI() + " failed", e);
+                            out.header("error", "message");
+                            out.row(message(e));
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return;
+                }
+                try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+                    try {
+                        QueryCommands.run(interrogator, path[1], parameter(exchange, "schema"), line -> {
+                            try {
+                                out.write(line);
+                                out.write('\n');
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                    } catch (UncheckedIOException e) {
+                        throw e;
+                    } catch (RuntimeException e) {
+                        logger.error(exchange.getRequestURI() + " failed", e);
+                        out.write(ERROR_PREFIX + message(e).replace('\n', ' ') + "\n");
+                    }
+                }
+            }
+        } catch (UncheckedIOException e) {
+            logger.warn(exchange.getRequestURI() + " client went away: " + e.getCause().getMessage());
+        } catch (RuntimeException e) {
+            logger.error(exchange.getRequestURI() + " failed", e);
+            //Only possible before the status went out, every later failure is reported in the body
+            if (exchange.getResponseCode() == -1) {
+                respond(exchange, 500, message(e));
+            }
+        } finally {
+            exchange.close();
+            logger.info(exchange.getRequestURI() + " " + exchange.getResponseCode() + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            exchange.getResponseBody().write(bytes);
+        }
+    }
+
+    private static String message(RuntimeException e) {
+        return e.getMessage() == null ? e.toString() : e.getMessage();
+    }
+
+    private static boolean isFormat(String name) {
+        try {
+            OutputFormat.parse(name);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static String parameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int equals = pair.indexOf('=');
+                if (equals > 0 && pair.substring(0, equals).equals(name)) {
+                    return URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -22,9 +22,28 @@
 
 package com.dbinterrogator.cli;
 
+import com.dbinterrogator.service.CatalogChange;
+import com.dbinterrogator.service.CatalogDiff;
+import com.dbinterrogator.service.CatalogSnapshotWriter;
+import com.dbinterrogator.service.ChecksumDifference;
+import com.dbinterrogator.service.DumpCompression;
+import com.dbinterrogator.service.DumpOptions;
+import com.dbinterrogator.service.DumpResult;
+import com.dbinterrogator.service.FleetResult;
+import com.dbinterrogator.service.FleetScanner;
+import com.dbinterrogator.service.FlightRecorderRegistry;
+import com.dbinterrogator.service.HistogramRegistry;
+import com.dbinterrogator.service.InstrumentedInterrogator;
 import com.dbinterrogator.service.InterrogatorService;
+import com.dbinterrogator.service.MappedCatalogSnapshot;
+import com.dbinterrogator.service.MetricsRegistry;
+import com.dbinterrogator.service.TableComparator;
+import com.dbinterrogator.service.TableMarker;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.ConsoleAppender;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
@@ -32,14 +51,21 @@ import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 import picocli.CommandLine.Unmatched;
 import java.io.*;
+import java.nio.file.FileSystems;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 public class Main implements Callable<Void> {
     //Logger
     private static final Logger logger = LoggerFactory.getLogger(Main.class.getName());
 
+    //Schemata the server keeps for itself, left out of dump and compareTables unless named by --schema
+    private static final Set<String> SYSTEM_SCHEMATA = new HashSet<String>(Arrays.asList("information_schema", "performance_schema", "mysql", "sys"));
+
     //Application properties
     private final Properties properties = new Properties();
 
@@ -52,9 +78,39 @@ public class Main implements Callable<Void> {
     @Option(names = { "-d", "--database" }, required = true, description = "Database Type")
     private String database;
 
-    @Option(names = { "-i", "--instance" }, required = true, description = "Database Instance")
+    @Option(names = { "-i", "--instance" }, required = true, description = "Database Instance, or a comma separated list of instances and globs to scan as a fleet")
     private String instance;
 
+    @Option(names = { "-p", "--parallelism" }, description = "Instances interrogated, or daemon requests served, at once (default 16)")
+    private int parallelism = FleetScanner.DEFAULT_PARALLELISM;
+
+    @Option(names = { "--timeout" }, description = "Seconds allowed per fleet instance (default 300)")
+    private long timeout = TimeUnit.NANOSECONDS.toSeconds(FleetScanner.DEFAULT_TIMEOUT);
+
+    @Option(names = { "--port" }, description = "Loopback port the daemon listens on (default 7878)")
+    private int port = Daemon.DEFAULT_PORT;
+
+    @Option(names = { "-s", "--snapshot" }, description = "Catalog snapshot file for saveSnapshot, readSnapshot and diffSnapshot")
+    private Path snapshot;
+
+    @Option(names = { "-o", "--output" }, description = "Output directory for dump")
+    private Path output;
+
+    @Option(names = { "-t", "--target" }, description = "Second instance of the same database type for compareTables")
+    private String target;
+
+    @Option(names = { "--schema" }, description = "Restrict dump and compareTables to a single schema, otherwise every schema but the system ones")
+    private String schema;
+
+    @Option(names = { "--interval" }, description = "Seconds between polls for watch (default 60)")
+    private long interval = 60;
+
+    @Option(names = { "-f", "--format" }, description = "Output format for query commands: text (default), ndjson, csv or binary")
+    private String format;
+
+    @Option(names = { "-m", "--metrics" }, description = "Print per-method and per-query latency metrics at the end of the run")
+    private boolean metrics = false;
+
     @Option(names = { "-h", "--help" }, usageHelp = true, description = "Displays this help message and quits.")
     private boolean helpRequested = false;
 
@@ -67,27 +123,107 @@ public class Main implements Callable<Void> {
 
     @Override
     public Void call() throws Exception {
+        OutputFormat outputFormat = outputFormat();
         if (config.toFile().canRead()) {
-            System.out.println(config.toAbsolutePath());
+            logger.info(config.toAbsolutePath().toString());
             properties.load(new FileInputStream(config.toFile()));
         } else {
             logger.error("Unable to read config file: " + config.toAbsolutePath());
             System.exit(1);
         }
         //MySQL
-        if (database.equals("mysql")) {
+        if (database.equals("mysql") && Arrays.stream(commands).anyMatch("daemon"::equalsIgnoreCase)) {
+            daemon("mysql", instanceNames("mysql", instance));
+        } else if (database.equals("mysql") && isFleet(instance)) {
+            fleet("mysql", instanceNames("mysql", instance));
+        } else if (database.equals("mysql")) {
             logger.info("Connecting to MySQL on " + properties.getProperty("mysql." + instance + ".hostname"));
-            InterrogatorService interrogator = InterrogatorService.newInstance("com.dbinterrogator.mysql.MySQLInterrogator");
-            interrogator.Connect(properties.getProperty("mysql." + instance + ".hostname"), properties.getProperty("mysql." + instance + ".username"), properties.getProperty("mysql." + instance + ".password"));
+            InterrogatorService interrogator = InterrogatorService.newInstance(database);
+            HistogramRegistry histograms = new HistogramRegistry();
+            if (metrics) {
+                //Flight Recorder events are only emitted when the JVM was started with a recording
+                MetricsRegistry registry = FlightRecorderRegistry.isAvailable() ? MetricsRegistry.of(histograms, new FlightRecorderRegistry()) : histograms;
+                interrogator = new InstrumentedInterrogator(interrogator, registry);
+            }
+            interrogator.Connect(properties.getProperty("mysql." + instance + ".hostname"), properties.getProperty("mysql." + instance + ".username"), properties.getProperty("mysql." + instance + ".password"), instanceOptions("mysql." + instance + "."));
+            RecordWriter out = outputFormat == null ? null : outputFormat.open(new FileOutputStream(FileDescriptor.out).getChannel());
             for (String command: commands) {
-                if (command.toLowerCase().equals("getschemata")) {
-                    logger.info("getSchemata");
-                    logger.info(interrogator.getSchemata().toString());
+                if (command.toLowerCase().equals("watch")) {
+                    watch(interrogator, out);
+                    continue;
+                }
+                try {
+                    if (QueryCommands.isSupported(command)) {
+                        if (out != null) {
+                            QueryCommands.write(interrogator, command, schema, out);
+                        } else {
+                            logger.info(command);
+                            QueryCommands.run(interrogator, command, schema, logger::info);
+                        }
+                        continue;
+                    }
+                } catch (IllegalStateException e) {
+                    logger.error(command + ": " + e.getMessage());
+                    System.exit(1);
+                }
+                if (command.toLowerCase().equals("savesnapshot")) {
+                    logger.info("saveSnapshot " + snapshotPath());
+                    CatalogSnapshotWriter.write(interrogator.getCatalogSnapshot(), snapshotPath());
+                }
+                if (command.toLowerCase().equals("readsnapshot")) {
+                    MappedCatalogSnapshot catalog = MappedCatalogSnapshot.open(snapshotPath());
+                    logger.info("readSnapshot " + snapshotPath() + " captured " + catalog.getCapturedAt());
+                    for (String schema : catalog.getSchemaNames()) {
+                        logger.info(schema + " " + catalog.getTableNames(schema));
+                    }
+                }
+                if (command.toLowerCase().equals("diffsnapshot")) {
+                    logger.info("diffSnapshot " + snapshotPath());
+                    CatalogDiff diff = CatalogDiff.compare(MappedCatalogSnapshot.open(snapshotPath()), interrogator.getCatalogSnapshot());
+                    for (CatalogChange change : diff.getChanges()) {
+                        logger.info(change.toString());
+                    }
+                }
+                if (command.toLowerCase().equals("dump")) {
+                    if (output == null) {
+                        logger.error("dump requires --output");
+                        System.exit(1);
+                    }
+                    DumpOptions options = dumpOptions("mysql." + instance + ".dump.");
+                    for (String name : userSchemata(interrogator)) {
+                        logger.info("dump " + name + " to " + output);
+                        DumpResult result = interrogator.dumpTables(name, interrogator.getTables(name), output, options);
+                        if (result != null) {
+                            logger.info(result.toString());
+                        }
+                    }
+                }
+                if (command.toLowerCase().equals("comparetables")) {
+                    if (target == null) {
+                        logger.error("compareTables requires --target");
+                        System.exit(1);
+                    }
+                    InterrogatorService targetInterrogator = InterrogatorService.newInstance(database);
+                    targetInterrogator.Connect(properties.getProperty("mysql." + target + ".hostname"), properties.getProperty("mysql." + target + ".username"), properties.getProperty("mysql." + target + ".password"), instanceOptions("mysql." + target + "."));
+                    TableComparator comparator = new TableComparator(interrogator, targetInterrogator);
+                    for (String name : userSchemata(interrogator)) {
+                        logger.info("compareTables " + name + " with " + target);
+                        ArrayList<String> tables = interrogator.getTables(name);
+                        tables.retainAll(targetInterrogator.getTables(name));
+                        for (ChecksumDifference difference : comparator.compare(name, tables)) {
+                            logger.info(difference.toString());
+                        }
+                        logger.info(comparator.getRangesCompared() + " ranges compared");
+                    }
+                    targetInterrogator.Disconnect();
                 }
             }
-            System.out.println(interrogator.getTables("sakila").toString());
-            System.out.println(interrogator.getIdentityColumns("sakila", "actor").toString());
-            System.out.println(interrogator.getMaxValue("actor_id", "sakila", "actor"));
+            if (out != null) {
+                out.close();
+            }
+            if (metrics) {
+                (out == null ? System.out : System.err).print(histograms.getSummary());
+            }
         }
         return null;
     }
@@ -99,6 +235,288 @@ public class Main implements Callable<Void> {
         CommandLine.call(new Main(), System.out, args);
     }
 
+    /**
+     * Report tables as they change, polling every --interval seconds until
+     * the process is stopped
+     *
+     * @param interrogator Connected interrogator
+     * @param out Record writer, or null to log the events
+     */
+    private void watch(InterrogatorService interrogator, RecordWriter out) throws IOException, InterruptedException {
+        logger.info("watch " + (schema == null ? "all schemata" : schema) + " every " + interval + "s");
+        if (out != null) {
+            out.header("event", "type", "schema", "table", "createTime", "updateTime", "autoIncrement");
+        }
+        try {
+            interrogator.watch(schema).watch(interval, TimeUnit.SECONDS, event -> {
+                if (out == null) {
+                    logger.info(event.toString());
+                    return;
+                }
+                TableMarker marker = event.getCurrent() == null ? event.getPrevious() : event.getCurrent();
+                try {
+                    out.row(event.getType(), event.getSchema(), event.getTable(), marker.getCreateTime(), marker.getUpdateTime(), marker.getAutoIncrement());
+                    //Events are rare and wanted straight away
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Resolve --format, moving the log to standard error so that structured
+     * output is the only thing on standard out
+     *
+     * @return Format, or null for text
+     */
+    private OutputFormat outputFormat() {
+        OutputFormat outputFormat = null;
+        try {
+            outputFormat = OutputFormat.parse(format);
+        } catch (IllegalArgumentException e) {
+            logger.error("Unknown format " + format);
+            System.exit(1);
+        }
+        if (outputFormat != null && isFleet(instance)) {
+            logger.error("--format applies to a single instance");
+            System.exit(1);
+        }
+        if (outputFormat != null) {
+            for (String command : commands) {
+                if (!QueryCommands.isSupported(command) && !command.toLowerCase().equals("watch")) {
+                    logger.error(command + " has no " + format + " output, --format applies to " + QueryCommands.names() + " and watch");
+                    System.exit(1);
+                }
+            }
+            LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+            Iterator<Appender<ILoggingEvent>> appenders = context.getLogger(Logger.ROOT_LOGGER_NAME).iteratorForAppenders();
+            while (appenders.hasNext()) {
+                Appender<ILoggingEvent> appender = appenders.next();
+                if (appender instanceof ConsoleAppender) {
+                    appender.stop();
+                    ((ConsoleAppender<ILoggingEvent>) appender).setTarget("System.err");
+                    appender.start();
+                }
+            }
+        }
+        return outputFormat;
+    }
+
+    /**
+     * @return the --schema schema, or every schema but the system ones
+     */
+    private List<String> userSchemata(InterrogatorService interrogator) {
+        if (schema != null) {
+            return Collections.singletonList(schema);
+        }
+        List<String> schemata = new ArrayList<String>();
+        for (String name : interrogator.getSchemata()) {
+            if (!SYSTEM_SCHEMATA.contains(name.toLowerCase())) {
+                schemata.add(name);
+            }
+        }
+        return schemata;
+    }
+
+    private Path snapshotPath() {
+        if (snapshot == null) {
+            logger.error("Snapshot commands require --snapshot");
+            System.exit(1);
+        }
+        return snapshot;
+    }
+
+    private static boolean isFleet(String selection) {
+        return selection.matches(".*[,*?\\[{].*");
+    }
+
+    /**
+     * Names of the configured instances matching a comma separated list of
+     * names and globs, in order of first match
+     *
+     * @param type Database type, e.g. mysql
+     * @param selection Instance selection
+     *
+     * @return Instance names
+     */
+    private List<String> instanceNames(String type, String selection) {
+        Set<String> configured = new TreeSet<String>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(type + ".") && name.endsWith(".hostname")) {
+                configured.add(name.substring(type.length() + 1, name.length() - ".hostname".length()));
+            }
+        }
+        Set<String> selected = new LinkedHashSet<String>();
+        for (String pattern : selection.split(",")) {
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern.trim());
+            for (String name : configured) {
+                if (matcher.matches(Paths.get(name))) {
+                    selected.add(name);
+                }
+            }
+        }
+        return new ArrayList<String>(selected);
+    }
+
+    /**
+     * Run the commands against every instance concurrently, printing each
+     * instance's output as soon as it finishes
+     *
+     * @param type Database type
+     * @param instances Instance names
+     */
+    private void fleet(String type, List<String> instances) throws InterruptedException {
+        if (instances.isEmpty()) {
+            logger.error("No configured instances match " + instance);
+            System.exit(1);
+        }
+        for (String command : commands) {
+            if (!QueryCommands.isSupported(command)) {
+                logger.error(command + " is not supported across a fleet");
+                System.exit(1);
+            }
+        }
+        HistogramRegistry histograms = new HistogramRegistry();
+        Map<FleetResult.Status, Integer> totals = new EnumMap<FleetResult.Status, Integer>(FleetResult.Status.class);
+        long start = System.nanoTime();
+        logger.info("Scanning " + instances.size() + " instances, " + parallelism + " at a time");
+        new FleetScanner(parallelism, timeout, TimeUnit.SECONDS).scan(instances,
+                name -> connect(type, name, histograms, timeouts()),
+                interrogator -> {
+                    List<String> lines = new ArrayList<String>();
+                    for (String command : commands) {
+                        QueryCommands.run(interrogator, command, schema, lines::add);
+                    }
+                    return lines;
+                },
+                result -> {
+                    totals.merge(result.getStatus(), 1, Integer::sum);
+                    logger.info(result.toString());
+                    if (result.getValue() != null) {
+                        for (String line : result.getValue()) {
+                            logger.info(result.getInstance() + " " + line);
+                        }
+                    }
+                });
+        logger.info("Scanned " + instances.size() + " instances in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms " + totals);
+        if (metrics) {
+            System.out.print(histograms.getSummary());
+        }
+    }
+
+    /**
+     * Connect to an instance, failing rather than returning an interrogator
+     * that cannot reach its server
+     *
+     * @param type Database type
+     * @param name Instance name
+     * @param histograms Registry shared by every instance when --metrics is given
+     * @param defaults Options used where the config section has none
+     *
+     * @return Connected interrogator
+     */
+    private InterrogatorService connect(String type, String name, HistogramRegistry histograms, Properties defaults) {
+        String prefix = type + "." + name + ".";
+        Properties options = instanceOptions(prefix);
+        for (String option : defaults.stringPropertyNames()) {
+            if (options.getProperty(option) == null) {
+                options.setProperty(option, defaults.getProperty(option));
+            }
+        }
+        InterrogatorService interrogator = InterrogatorService.newInstance(type);
+        if (metrics) {
+            interrogator = new InstrumentedInterrogator(interrogator, histograms);
+        }
+        interrogator.Connect(properties.getProperty(prefix + "hostname"), properties.getProperty(prefix + "username"), properties.getProperty(prefix + "password"), options);
+        //Every server lists at least information_schema, so no schemata means no connection
+        if (interrogator.getSchemata().isEmpty()) {
+            interrogator.Disconnect();
+            throw new IllegalStateException("Unable to connect to " + properties.getProperty(prefix + "hostname"));
+        }
+        return interrogator;
+    }
+
+    /**
+     * Serve query commands from warm connections until the process is stopped
+     *
+     * @param type Database type
+     * @param instances Instances to connect before the first request
+     */
+    private void daemon(String type, List<String> instances) throws IOException, InterruptedException {
+        HistogramRegistry histograms = new HistogramRegistry();
+        Properties defaults = timeouts();
+        //Keep a pooled connection open between requests
+        defaults.setProperty("pool.minSize", "1");
+        Daemon daemon = new Daemon(name -> properties.getProperty(type + "." + name + ".hostname") != null,
+                name -> connect(type, name, histograms, defaults),
+                () -> metrics ? histograms.getSummary() : "");
+        daemon.start(port, parallelism, Long.parseLong(properties.getProperty("daemon.keepAlive", String.valueOf(Daemon.DEFAULT_KEEP_ALIVE))));
+        for (String name : instances) {
+            daemon.warm(name);
+        }
+        daemon.await();
+    }
+
+    /**
+     * Driver timeouts matching --timeout, so abandoned connections are released
+     */
+    private Properties timeouts() {
+        Properties defaults = new Properties();
+        String timeoutMillis = String.valueOf(TimeUnit.SECONDS.toMillis(timeout));
+        defaults.setProperty("connectTimeout", timeoutMillis);
+        defaults.setProperty("socketTimeout", timeoutMillis);
+        return defaults;
+    }
+
+    /**
+     * Collect the options of a config section with the section prefix removed
+     *
+     * @param prefix Section prefix, e.g. mysql.[name].
+     *
+     * @return Properties
+     */
+    private Properties instanceOptions(String prefix) {
+        Properties options = new Properties();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(prefix)) {
+                options.setProperty(name.substring(prefix.length()), properties.getProperty(name));
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Build dump options from a config section, e.g. mysql.[name].dump.chunkSize
+     *
+     * @param prefix Section prefix
+     *
+     * @return DumpOptions
+     */
+    private DumpOptions dumpOptions(String prefix) {
+        Properties values = instanceOptions(prefix);
+        DumpOptions options = new DumpOptions();
+        if (values.containsKey("chunkSize")) {
+            options.setChunkSize(Long.parseLong(values.getProperty("chunkSize")));
+        }
+        if (values.containsKey("rowsPerInsert")) {
+            options.setRowsPerInsert(Integer.parseInt(values.getProperty("rowsPerInsert")));
+        }
+        if (values.containsKey("parallelism")) {
+            options.setParallelism(Integer.parseInt(values.getProperty("parallelism")));
+        }
+        if (values.containsKey("compress")) {
+            options.setCompression(Boolean.parseBoolean(values.getProperty("compress")) ? DumpCompression.GZIP : DumpCompression.NONE);
+        }
+        if (values.containsKey("resume")) {
+            options.setResume(Boolean.parseBoolean(values.getProperty("resume")));
+        }
+        return options;
+    }
+
     /**
      * Load application properties
      */
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.cli;
+
+import java.io.IOException;
+
+/**
+ * Newline delimited JSON, one object per row with the record kind under
+ * "record", e.g. {"record":"table","schema":"sakila","table":"actor"}
+ */
+final class NdjsonWriter implements RecordWriter {
+
+    private final ChannelOutput output;
+    private String record;
+    private String[] fields;
+
+    NdjsonWriter(ChannelOutput output) {
+        this.output = output;
+    }
+
+    @Override
+    public void header(String record, String... fields) {
+        this.record = record;
+        this.fields = fields;
+    }
+
+    @Override
+    public void row(Object... values) throws IOException {
+        output.write("{\"record\":");
+        string(record);
+        for (int i = 0; i < fields.length; i++) {
+            output.write(',');
+            string(fields[i]);
+            output.write(':');
+            value(values[i]);
+        }
+        output.write("}\n");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        output.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.flush();
+    }
+
+    private void value(Object value) throws IOException {
+        if (value == null || value instanceof Double && !Double.isFinite((Double) value)) {
+            output.write("null");
+        } else if (value instanceof Number) {
+            output.write(value.toString());
+        } else {
+            string(value.toString());
+        }
+    }
+
+    private void string(String value) throws IOException {
+        output.write('"');
+        if (isPlain(value)) {
+            output.write(value);
+            output.write('"');
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    output.write("\\\"");
+                    break;
+                case '\\':
+                    output.write("\\\\");
+                    break;
+                case '\n':
+                    output.write("\\n");
+                    break;
+                case '\r':
+                    output.write("\\r");
+                    break;
+                case '\t':
+                    output.write("\\t");
+                    break;
+                default:
+                    if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                            && Character.isLowSurrogate(value.charAt(i + 1))) {
+                        //Pairs are encoded together
+                        output.write(value.substring(i, i + 2));
+                        i++;
+                    } else if (c < 0x20 || Character.isSurrogate(c)) {
+                        //A lone surrogate has no UTF-8 form, so is escaped rather than replaced
+                        output.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        output.write(c);
+                    }
+            }
+        }
+        output.write('"');
+    }
+
+    private static boolean isPlain(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c == '"' || c == '\\' || Character.isSurrogate(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
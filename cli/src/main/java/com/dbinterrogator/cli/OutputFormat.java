@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.cli;
+
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Structured output formats selected with --format
+ */
+enum OutputFormat {
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv"),
+    BINARY("application/octet-stream");
+
+    private final String contentType;
+
+    OutputFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    String getContentType() {
+        return contentType;
+    }
+
+    RecordWriter open(WritableByteChannel channel) {
+        ChannelOutput output = new ChannelOutput(channel);
+        switch (this) {
+            case NDJSON:
+                return new NdjsonWriter(output);
+            case CSV:
+                return new CsvWriter(output);
+            default:
+                return new BinaryWriter(output);
+        }
+    }
+
+    /**
+     * @param name Format name, any case, or text for the plain log output
+     *
+     * @return Format, or null for text
+     */
+    static OutputFormat parse(String name) {
+        return name == null || name.equalsIgnoreCase("text") ? null : valueOf(name.toUpperCase());
+    }
+}
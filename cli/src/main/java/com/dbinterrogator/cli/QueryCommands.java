@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.cli;
+
+import com.dbinterrogator.service.DependencyGraph;
+import com.dbinterrogator.service.InterrogatorService;
+import com.dbinterrogator.service.TableCapacity;
+import com.dbinterrogator.service.TableReference;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Commands that only read, and so may run against many instances at once
+ * or be served by the daemon
+ */
+final class QueryCommands {
+
+    private static final Set<String> NAMES = new HashSet<String>(Arrays.asList("getschemata", "gettables", "gettablecapacity", "getcreatetables", "getdependencies"));
+
+    private QueryCommands() {
+    }
+
+    static boolean isSupported(String command) {
+        return NAMES.contains(command.toLowerCase());
+    }
+
+    /**
+     * @return supported command names, for error messages
+     */
+    static String names() {
+        return String.join(", ", new TreeSet<String>(NAMES));
+    }
+
+    /**
+     * Run a command, handing its output to out a line at a time
+     *
+     * @param interrogator Connected interrogator
+     * @param command Command name
+     * @param schema Schema to restrict getTables and getCreateTables to, or null for all
+     * @param out Line consumer
+     */
+    static void run(InterrogatorService interrogator, String command, String schema, Consumer<String> out) {
+        switch (command.toLowerCase()) {
+            case "getschemata":
+                out.accept(interrogator.getSchemata().toString());
+                break;
+            case "gettables":
+                for (String name : schema == null ? interrogator.getSchemata() : Collections.singletonList(schema)) {
+                    out.accept(name + " " + interrogator.getTables(name));
+                }
+                break;
+            case "gettablecapacity":
+                for (TableCapacity capacity : interrogator.getTableCapacity()) {
+                    out.accept(capacity.toString());
+                }
+                break;
+            case "getcreatetables":
+                for (String name : schema == null ? interrogator.getSchemata() : Collections.singletonList(schema)) {
+                    interrogator.getCreateTables(name, interrogator.getTables(name), (table, ddl) -> out.accept(ddl + ";\n"));
+                }
+                break;
+            case "getdependencies":
+                DependencyGraph graph = dependencyGraph(interrogator, schema);
+                List<List<TableReference>> waves = graph.getWaves();
+                for (int wave = 0; wave < waves.size(); wave++) {
+                    out.accept("wave " + wave + " " + waves.get(wave));
+                }
+                for (List<TableReference> cycle : graph.getCycles()) {
+                    out.accept("cycle " + cycle);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException(command + " is not a query command");
+        }
+    }
+
+    /**
+     * @throws IllegalStateException when the tables or foreign keys could not be read
+     */
+    private static DependencyGraph dependencyGraph(InterrogatorService interrogator, String schema) {
+        DependencyGraph graph = interrogator.getDependencyGraph(schema);
+        if (graph == null) {
+            throw new IllegalStateException("Tables or foreign keys of " + (schema == null ? "all schemata" : schema) + " could not be read");
+        }
+        return graph;
+    }
+
+    /**
+     * Run a command, streaming its output as structured records
+     *
+     * @param interrogator Connected interrogator
+     * @param command Command name
+     * @param schema Schema to restrict getTables and getCreateTables to, or null for all
+     * @param out Record writer
+     */
+    static void write(InterrogatorService interrogator, String command, String schema, RecordWriter out) throws IOException {
+        switch (command.toLowerCase()) {
+            case "getschemata":
+                out.header("schema", "schema");
+                try (Stream<String> schemata = interrogator.streamSchemata()) {
+                    Iterator<String> names = schemata.iterator();
+                    while (names.hasNext()) {
+                        out.row(names.next());
+                    }
+                }
+                break;
+            case "gettables":
+                out.header("table", "schema", "table");
+                for (String name : schema == null ? interrogator.getSchemata() : Collections.singletonList(schema)) {
+                    try (Stream<String> tables = interrogator.streamTables(name)) {
+                        Iterator<String> names = tables.iterator();
+                        while (names.hasNext()) {
+                            out.row(name, names.next());
+                        }
+                    }
+                }
+                break;
+            case "gettablecapacity":
+                out.header("capacity", "schema", "table", "column", "columnType", "currentValue", "maxValue", "percentUsed", "source");
+                for (TableCapacity capacity : interrogator.getTableCapacity()) {
+                    out.row(capacity.getSchema(), capacity.getTable(), capacity.getColumn(), capacity.getColumnType(),
+                            capacity.getCurrentValue(), capacity.getMaxValue(), capacity.getPercentUsed(), capacity.getSource());
+                }
+                break;
+            case "getcreatetables":
+                out.header("createTable", "schema", "table", "ddl");
+                try {
+                    for (String name : schema == null ? interrogator.getSchemata() : Collections.singletonList(schema)) {
+                        interrogator.getCreateTables(name, interrogator.getTables(name), (table, ddl) -> {
+                            try {
+                                out.row(name, table, ddl);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                    }
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                break;
+            case "getdependencies":
+                out.header("dependency", "schema", "table", "wave", "references");
+                DependencyGraph graph = dependencyGraph(interrogator, schema);
+                for (List<TableReference> tables : graph.getWaves()) {
+                    for (TableReference table : tables) {
+                        StringBuilder references = new StringBuilder();
+                        for (TableReference dependency : graph.getDependencies(table)) {
+                            references.append(references.length() == 0 ? "" : ",").append(dependency);
+                        }
+                        out.row(table.getSchema(), table.getTable(), graph.getWave(table), references.toString());
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException(command + " is not a query command");
+        }
+    }
+}
@@ -4,6 +4,7 @@ module com.dbinterrogator.cli {
     requires ch.qos.logback.classic;
     requires org.slf4j;
     requires info.picocli;
+    requires jdk.httpserver;
     opens com.dbinterrogator.cli to info.picocli;
     uses com.dbinterrogator.service.InterrogatorService;
 }
\ No newline at end of file
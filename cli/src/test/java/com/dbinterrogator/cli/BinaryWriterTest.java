@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.cli;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+class BinaryWriterTest {
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final RecordWriter writer = OutputFormat.BINARY.open(Channels.newChannel(bytes));
+
+    /**
+     * Decode the stream written so far, checking its preamble and each
+     * frame's length
+     *
+     * @return Frames, each its type followed by its fields
+     */
+    private List<Object[]> frames() throws IOException {
+        writer.close();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        byte[] magic = new byte[3];
+        buffer.get(magic);
+        assertEquals("DBI", new String(magic, StandardCharsets.US_ASCII));
+        assertEquals(BinaryWriter.VERSION, buffer.get());
+        List<Object[]> frames = new ArrayList<>();
+        while (buffer.hasRemaining()) {
+            char type = (char) buffer.get();
+            int length = buffer.getInt();
+            int end = buffer.position() + length;
+            Object[] frame = new Object[buffer.getInt() + 1];
+            frame[0] = type;
+            for (int i = 1; i < frame.length; i++) {
+                int size = buffer.getInt();
+                if (size >= 0) {
+                    byte[] field = new byte[size];
+                    buffer.get(field);
+                    frame[i] = new String(field, StandardCharsets.UTF_8);
+                }
+            }
+            assertEquals(end, buffer.position());
+            frames.add(frame);
+        }
+        return frames;
+    }
+
+    @Test
+    void emptyTest() throws IOException {
+        assertEquals(0, frames().size());
+    }
+
+    @Test
+    void roundTripTest() throws IOException {
+        char[] large = new char[ChannelOutput.BUFFER_SIZE * 2];
+        Arrays.fill(large, '\u00e9');
+        writer.header("table", "schema", "name", "rows");
+        writer.row("sakila", "actor", 200L);
+        writer.row("sakila", null, "");
+        writer.row("quote \" comma , line\r\n", "\ud83d\udc2c\u0000", new String(large));
+
+        List<Object[]> frames = frames();
+        assertEquals(4, frames.size());
+        assertArrayEquals(new Object[] {'H', "table", "schema", "name", "rows"}, frames.get(0));
+        assertArrayEquals(new Object[] {'R', "sakila", "actor", "200"}, frames.get(1));
+        assertArrayEquals(new Object[] {'R', "sakila", null, ""}, frames.get(2));
+        assertArrayEquals(new Object[] {'R', "quote \" comma , line\r\n", "\ud83d\udc2c\u0000", new String(large)}, frames.get(3));
+    }
+}
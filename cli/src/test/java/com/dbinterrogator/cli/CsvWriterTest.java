@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+class CsvWriterTest {
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final RecordWriter writer = OutputFormat.CSV.open(Channels.newChannel(bytes));
+
+    private String written() throws IOException {
+        writer.close();
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void plainTest() throws IOException {
+        writer.header("table", "schema", "name", "rows");
+        writer.row("sakila", "actor", 200L);
+        writer.row("sakila", null, 0L);
+        assertEquals("schema,name,rows\r\nsakila,actor,200\r\nsakila,,0\r\n", written());
+    }
+
+    @Test
+    void quotingTest() throws IOException {
+        writer.header("column", "value");
+        writer.row("a,b");
+        writer.row("say \"hi\"");
+        writer.row("line\r\nbreak");
+        writer.row("lone\n");
+        writer.row("tab\tand space ");
+        assertEquals("value\r\n"
+                + "\"a,b\"\r\n"
+                + "\"say \"\"hi\"\"\"\r\n"
+                + "\"line\r\nbreak\"\r\n"
+                + "\"lone\n\"\r\n"
+                + "tab\tand space \r\n", written());
+    }
+
+    @Test
+    void unicodeTest() throws IOException {
+        writer.header("column", "value");
+        writer.row("caf\u00e9 \ud83d\udc2c");
+        assertEquals("value\r\ncaf\u00e9 \ud83d\udc2c\r\n", written());
+    }
+
+    @Test
+    void headerTest() throws IOException {
+        writer.header("table", "name");
+        writer.row("actor");
+        writer.header("table", "name");
+        writer.row("film");
+        writer.header("column", "table", "name");
+        writer.row("actor", "actor_id");
+        assertEquals("name\r\nactor\r\nfilm\r\ntable,name\r\nactor,actor_id\r\n", written());
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+class NdjsonWriterTest {
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final RecordWriter writer = OutputFormat.NDJSON.open(Channels.newChannel(bytes));
+
+    private String written() throws IOException {
+        writer.close();
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void valuesTest() throws IOException {
+        writer.header("capacity", "table", "rows", "percent", "ratio");
+        writer.row("actor", 200L, 12.5, Double.NaN);
+        writer.row(null, 0, null, Double.POSITIVE_INFINITY);
+        assertEquals("{\"record\":\"capacity\",\"table\":\"actor\",\"rows\":200,\"percent\":12.5,\"ratio\":null}\n"
+                + "{\"record\":\"capacity\",\"table\":null,\"rows\":0,\"percent\":null,\"ratio\":null}\n", written());
+    }
+
+    @Test
+    void escapingTest() throws IOException {
+        writer.header("ddl", "value");
+        writer.row("say \"hi\"");
+        writer.row("C:\\temp");
+        writer.row("a\nb\rc\td");
+        writer.row("nul\u0000bell\u0007esc\u001f");
+        assertEquals("{\"record\":\"ddl\",\"value\":\"say \\\"hi\\\"\"}\n"
+                + "{\"record\":\"ddl\",\"value\":\"C:\\\\temp\"}\n"
+                + "{\"record\":\"ddl\",\"value\":\"a\\nb\\rc\\td\"}\n"
+                + "{\"record\":\"ddl\",\"value\":\"nul\\u0000bell\\u0007esc\\u001f\"}\n", written());
+    }
+
+    @Test
+    void surrogateTest() throws IOException {
+        writer.header("ddl", "value");
+        writer.row("\ud83d\udc2c");
+        writer.row("quoted \"\ud83d\udc2c\"");
+        writer.row("high \ud83d alone");
+        writer.row("low \udc2c alone");
+        writer.row("reversed \udc2c\ud83d");
+        writer.row("end \ud83d");
+        assertEquals("{\"record\":\"ddl\",\"value\":\"\ud83d\udc2c\"}\n"
+                + "{\"record\":\"ddl\",\"value\":\"quoted \\\"\ud83d\udc2c\\\"\"}\n"
+                + "{\"record\":\"ddl\",\"value\":\"high \\ud83d alone\"}\n"
+                + "{\"record\":\"ddl\",\"value\":\"low \\udc2c alone\"}\n"
+                + "{\"record\":\"ddl\",\"value\":\"reversed \\udc2c\\ud83d\"}\n"
+                + "{\"record\":\"ddl\",\"value\":\"end \\ud83d\"}\n", written());
+    }
+}
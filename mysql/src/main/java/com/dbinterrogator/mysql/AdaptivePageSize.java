@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.mysql;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rows asked for per page of a keyset paginated read, adjusted after every
+ * page so that a page takes about the target latency.
+ *
+ * A page well under the target doubles the size, and one over it shrinks the
+ * size in proportion to the overshoot, so a busy server quickly gets shorter
+ * queries and an idle one fewer round trips.  The size is shared by every
+ * read of an interrogator, pooled connections included, so what one read
+ * learns carries over to the next.
+ */
+final class AdaptivePageSize {
+    static final int MIN_SIZE = 10;
+    static final int MAX_SIZE = 50000;
+
+    private final AtomicInteger size;
+    private final long targetNanos;
+
+    /**
+     * @param initialSize Rows in the first page
+     * @param targetLatency Time a page should take
+     * @param unit Unit of the target latency
+     */
+    AdaptivePageSize(int initialSize, long targetLatency, TimeUnit unit) {
+        if (initialSize < MIN_SIZE || initialSize > MAX_SIZE) {
+            throw new IllegalArgumentException("Page size must be between " + MIN_SIZE + " and " + MAX_SIZE + ": " + initialSize);
+        }
+        if (targetLatency <= 0) {
+            throw new IllegalArgumentException("Page latency must be positive: " + targetLatency);
+        }
+        this.size = new AtomicInteger(initialSize);
+        this.targetNanos = unit.toNanos(targetLatency);
+    }
+
+    int get() {
+        return size.get();
+    }
+
+    /**
+     * Adjust the size after a page has been read
+     *
+     * @param requested Rows asked for
+     * @param rows Rows returned
+     * @param elapsedNanos Time from execution to the last row
+     */
+    void record(int requested, int rows, long elapsedNanos) {
+        if (elapsedNanos > targetNanos) {
+            size.set(Math.max(MIN_SIZE, (int) (requested * ((double) targetNanos / elapsedNanos))));
+        } else if (rows == requested && elapsedNanos < targetNanos / 2) {
+            //A short last page says nothing about how long a full one would take
+            size.set(Math.min(MAX_SIZE, requested * 2));
+        }
+    }
+}
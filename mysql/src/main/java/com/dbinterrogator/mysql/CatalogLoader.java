@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.mysql;
+
+import com.dbinterrogator.service.CatalogColumn;
+import com.dbinterrogator.service.CatalogKey;
+import com.dbinterrogator.service.CatalogSchema;
+import com.dbinterrogator.service.CatalogSnapshot;
+import com.dbinterrogator.service.CatalogTable;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds a {@link CatalogSnapshot} from four bulk information_schema reads.
+ *
+ * Each query is read through a forward-only cursor and joined in memory, so
+ * the cost is a fixed number of queries regardless of how many tables the
+ * server has.
+ */
+class CatalogLoader {
+
+    private final Connection conn;
+    private final int fetchSize;
+    private final QueryMetrics metrics;
+
+    CatalogLoader(Connection conn, int fetchSize, QueryMetrics metrics) {
+        this.conn = conn;
+        this.fetchSize = fetchSize;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Load the catalog
+     *
+     * @param schema Schema Name, or null for every schema
+     *
+     * @return CatalogSnapshot
+     */
+    CatalogSnapshot load(String schema) throws SQLException {
+        Instant capturedAt = Instant.now();
+        Map<String, String[]> schemata = loadSchemata(schema);
+        Map<String, List<CatalogColumn>> columns = loadColumns(schema);
+        Map<String, List<CatalogKey>> keys = loadKeys(schema);
+        Map<String, List<CatalogTable>> tables = loadTables(schema, columns, keys);
+
+        List<CatalogSchema> results = new ArrayList<CatalogSchema>(schemata.size());
+        for (Map.Entry<String, String[]> entry : schemata.entrySet()) {
+            List<CatalogTable> schemaTables = tables.get(entry.getKey());
+            if (schemaTables == null) {
+                schemaTables = Collections.emptyList();
+            }
+            results.add(new CatalogSchema(entry.getKey(), entry.getValue()[0], entry.getValue()[1], schemaTables));
+        }
+        return new CatalogSnapshot(capturedAt, results);
+    }
+
+    private Map<String, String[]> loadSchemata(String schema) throws SQLException {
+        Map<String, String[]> schemata = new LinkedHashMap<String, String[]>();
+        try (PreparedStatement stmt = prepare("getCatalogSchemata", schema);
+             ResultSet rs = metrics.executeQuery("getCatalogSchemata", stmt)) {
+            while (rs.next()) {
+                schemata.put(rs.getString(1), new String[] { rs.getString(2), rs.getString(3) });
+            }
+        }
+        return schemata;
+    }
+
+    private Map<String, List<CatalogColumn>> loadColumns(String schema) throws SQLException {
+        Map<String, List<CatalogColumn>> columns = new HashMap<String, List<CatalogColumn>>();
+        try (PreparedStatement stmt = prepare("getCatalogColumns", schema);
+             ResultSet rs = metrics.executeQuery("getCatalogColumns", stmt)) {
+            while (rs.next()) {
+                String key = tableKey(rs.getString("TABLE_SCHEMA"), rs.getString("TABLE_NAME"));
+                List<CatalogColumn> tableColumns = columns.get(key);
+                if (tableColumns == null) {
+                    tableColumns = new ArrayList<CatalogColumn>();
+                    columns.put(key, tableColumns);
+                }
+                tableColumns.add(new CatalogColumn(
+                        rs.getString("COLUMN_NAME"),
+                        rs.getInt("ORDINAL_POSITION"),
+                        rs.getString("DATA_TYPE"),
+                        rs.getString("COLUMN_TYPE"),
+                        "YES".equals(rs.getString("IS_NULLABLE")),
+                        rs.getString("COLUMN_KEY"),
+                        rs.getString("EXTRA")));
+            }
+        }
+        return columns;
+    }
+
+    private Map<String, List<CatalogKey>> loadKeys(String schema) throws SQLException {
+        Map<String, List<CatalogKey>> keys = new HashMap<String, List<CatalogKey>>();
+        try (PreparedStatement stmt = prepare("getCatalogKeys", schema);
+             ResultSet rs = metrics.executeQuery("getCatalogKeys", stmt)) {
+            String currentTable = null;
+            String currentName = null;
+            String referencedSchema = null;
+            String referencedTable = null;
+            List<String> keyColumns = null;
+            List<String> referencedColumns = null;
+            while (rs.next()) {
+                String table = tableKey(rs.getString("TABLE_SCHEMA"), rs.getString("TABLE_NAME"));
+                String name = rs.getString("CONSTRAINT_NAME");
+                if (!table.equals(currentTable) || !name.equals(currentName)) {
+                    if (currentTable != null) {
+                        addKey(keys, currentTable, new CatalogKey(currentName, keyColumns, referencedSchema, referencedTable, referencedColumns));
+                    }
+                    currentTable = table;
+                    currentName = name;
+                    referencedSchema = rs.getString("REFERENCED_TABLE_SCHEMA");
+                    referencedTable = rs.getString("REFERENCED_TABLE_NAME");
+                    keyColumns = new ArrayList<String>();
+                    referencedColumns = referencedTable == null ? null : new ArrayList<String>();
+                }
+                keyColumns.add(rs.getString("COLUMN_NAME"));
+                if (referencedColumns != null) {
+                    referencedColumns.add(rs.getString("REFERENCED_COLUMN_NAME"));
+                }
+            }
+            if (currentTable != null) {
+                addKey(keys, currentTable, new CatalogKey(currentName, keyColumns, referencedSchema, referencedTable, referencedColumns));
+            }
+        }
+        return keys;
+    }
+
+    private Map<String, List<CatalogTable>> loadTables(String schema, Map<String, List<CatalogColumn>> columns,
+                                                       Map<String, List<CatalogKey>> keys) throws SQLException {
+        Map<String, List<CatalogTable>> tables = new HashMap<String, List<CatalogTable>>();
+        try (PreparedStatement stmt = prepare("getCatalogTables", schema);
+             ResultSet rs = metrics.executeQuery("getCatalogTables", stmt)) {
+            while (rs.next()) {
+                String tableSchema = rs.getString("TABLE_SCHEMA");
+                String tableName = rs.getString("TABLE_NAME");
+                String key = tableKey(tableSchema, tableName);
+                List<CatalogColumn> tableColumns = columns.remove(key);
+                List<CatalogKey> tableKeys = keys.remove(key);
+                CatalogTable table = new CatalogTable(
+                        tableSchema,
+                        tableName,
+                        rs.getString("TABLE_TYPE"),
+                        rs.getString("ENGINE"),
+                        getLong(rs, "TABLE_ROWS"),
+                        getLong(rs, "AUTO_INCREMENT"),
+                        getInstant(rs, "CREATE_TIME"),
+                        getInstant(rs, "UPDATE_TIME"),
+                        tableColumns == null ? Collections.<CatalogColumn>emptyList() : tableColumns,
+                        tableKeys == null ? Collections.<CatalogKey>emptyList() : tableKeys);
+                List<CatalogTable> schemaTables = tables.get(tableSchema);
+                if (schemaTables == null) {
+                    schemaTables = new ArrayList<CatalogTable>();
+                    tables.put(tableSchema, schemaTables);
+                }
+                schemaTables.add(table);
+            }
+        }
+        return tables;
+    }
+
+    private PreparedStatement prepare(String sqlFile, String schema) throws SQLException {
+        PreparedStatement stmt = metrics.prepare(sqlFile, conn, SqlResources.get(sqlFile));
+        stmt.setFetchSize(fetchSize);
+        stmt.setString(1, schema);
+        stmt.setString(2, schema);
+        return stmt;
+    }
+
+    private static void addKey(Map<String, List<CatalogKey>> keys, String table, CatalogKey key) {
+        List<CatalogKey> tableKeys = keys.get(table);
+        if (tableKeys == null) {
+            tableKeys = new ArrayList<CatalogKey>();
+            keys.put(table, tableKeys);
+        }
+        tableKeys.add(key);
+    }
+
+    private static String tableKey(String schema, String table) {
+        return schema + '\u0000' + table;
+    }
+
+    /**
+     * @return value of a nullable integer column, null rather than 0 for NULL
+     */
+    static Long getLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Instant getInstant(ResultSet rs, String column) throws SQLException {
+        Timestamp value = rs.getTimestamp(column);
+        return value == null ? null : value.toInstant();
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.mysql;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small blocking pool of connections, each with its own statement cache.
+ *
+ * Connections are opened on demand up to maxSize and closed again once they
+ * have sat idle for longer than the idle timeout, never dropping below
+ * minSize.  Idle connections are reaped lazily whenever the pool is used.
+ * A connection that has sat idle for a while is checked before it is lent
+ * out, as the server may have dropped it (e.g. after wait_timeout).
+ */
+class ConnectionPool {
+
+    static final long VALIDATE_AFTER_NANOS = TimeUnit.SECONDS.toNanos(30);
+    static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final String url;
+    private final QueryMetrics metrics;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutNanos;
+    private final Deque<PooledConnection> idle = new ArrayDeque<PooledConnection>();
+    private int fetchSize;
+    private int open = 0;
+    private boolean closed = false;
+
+    ConnectionPool(String url, QueryMetrics metrics, int minSize, int maxSize, long idleTimeout, TimeUnit unit, int fetchSize) throws SQLException {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + " max=" + maxSize);
+        }
+        this.url = url;
+        this.metrics = metrics;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutNanos = unit.toNanos(idleTimeout);
+        this.fetchSize = fetchSize;
+        try {
+            for (int i = 0; i < minSize; i++) {
+                idle.push(open());
+                open++;
+            }
+        } catch (SQLException sqle) {
+            close();
+            throw sqle;
+        }
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Borrow a connection, blocking while every connection is in use
+     *
+     * @return PooledConnection to be handed back through giveBack
+     */
+    PooledConnection borrow() throws SQLException, InterruptedException {
+        PooledConnection connection;
+        while ((connection = take()) != null) {
+            if (connection.isAlive()) {
+                return connection;
+            }
+            connection.close();
+            synchronized (this) {
+                open--;
+                notifyAll();
+            }
+        }
+        try {
+            return open();
+        } catch (SQLException sqle) {
+            synchronized (this) {
+                open--;
+                notifyAll();
+            }
+            throw sqle;
+        }
+    }
+
+    /**
+     * Take an idle connection, or reserve room for a new one
+     *
+     * @return Idle connection, or null when the caller should open one
+     */
+    private synchronized PooledConnection take() throws SQLException, InterruptedException {
+        while (true) {
+            if (closed) {
+                throw new SQLException("Connection pool is closed");
+            }
+            reapIdle();
+            PooledConnection connection = idle.pollFirst();
+            if (connection != null) {
+                return connection;
+            }
+            if (open < maxSize) {
+                open++;
+                return null;
+            }
+            wait();
+        }
+    }
+
+    /**
+     * Return a borrowed connection
+     *
+     * @param connection PooledConnection
+     */
+    synchronized void giveBack(PooledConnection connection) {
+        if (closed || !connection.isValid()) {
+            connection.close();
+            open--;
+        } else {
+            connection.touch();
+            connection.statements.setFetchSize(fetchSize);
+            idle.addFirst(connection);
+        }
+        notifyAll();
+    }
+
+    synchronized void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        for (PooledConnection connection : idle) {
+            connection.statements.setFetchSize(fetchSize);
+        }
+    }
+
+    /**
+     * Close idle connections; borrowed ones are closed as they are handed back
+     */
+    synchronized void close() {
+        closed = true;
+        for (PooledConnection connection : idle) {
+            connection.close();
+            open--;
+        }
+        idle.clear();
+        notifyAll();
+    }
+
+    private void reapIdle() {
+        long now = System.nanoTime();
+        Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+        while (oldestFirst.hasNext() && open > minSize) {
+            PooledConnection connection = oldestFirst.next();
+            if (now - connection.lastUsed < idleTimeoutNanos) {
+                break;
+            }
+            oldestFirst.remove();
+            connection.close();
+            open--;
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection connection = metrics.connect(url);
+        SessionSettings.apply(connection);
+        StatementCache statements = new StatementCache(connection, metrics);
+        synchronized (this) {
+            statements.setFetchSize(fetchSize);
+        }
+        return new PooledConnection(statements);
+    }
+
+    /**
+     * A pooled connection and the statement cache bound to it
+     */
+    static final class PooledConnection {
+        final StatementCache statements;
+        private long lastUsed;
+
+        private PooledConnection(StatementCache statements) {
+            this.statements = statements;
+            this.lastUsed = System.nanoTime();
+        }
+
+        private void touch() {
+            lastUsed = System.nanoTime();
+        }
+
+        /**
+         * Round trip to the server, unless the connection was used recently
+         */
+        private boolean isAlive() {
+            try {
+                return System.nanoTime() - lastUsed < VALIDATE_AFTER_NANOS || statements.getConnection().isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException sqle) {
+                return false;
+            }
+        }
+
+        private boolean isValid() {
+            try {
+                return !statements.getConnection().isClosed();
+            } catch (SQLException sqle) {
+                return false;
+            }
+        }
+
+        private void close() {
+            statements.close();
+            try {
+                statements.getConnection().close();
+            } catch (SQLException sqle) {
+                System.err.println(sqle.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.mysql;
+
+/**
+ * Validation and quoting of MySQL identifiers for SQL that cannot bind them as parameters
+ */
+final class Identifiers {
+
+    static final int MAX_LENGTH = 64;
+
+    private Identifiers() {
+    }
+
+    /**
+     * Quote an identifier with backticks, doubling any embedded backtick
+     *
+     * @param identifier Schema, table or column name
+     *
+     * @return Quoted identifier
+     *
+     * @throws IllegalArgumentException if the name could never be a valid identifier
+     */
+    static String quote(String identifier) {
+        if (identifier == null || identifier.isEmpty()) {
+            throw new IllegalArgumentException("Identifier must not be empty");
+        }
+        if (identifier.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Identifier longer than " + MAX_LENGTH + " characters: " + identifier);
+        }
+        if (identifier.indexOf('\u0000') >= 0) {
+            throw new IllegalArgumentException("Identifier contains NUL: " + identifier);
+        }
+        if (identifier.endsWith(" ")) {
+            throw new IllegalArgumentException("Identifier ends with a space: " + identifier);
+        }
+        return "`" + identifier.replace("`", "``") + "`";
+    }
+}
@@ -22,58 +22,188 @@
 
 package com.dbinterrogator.mysql;
 
+import com.dbinterrogator.service.CatalogSchema;
+import com.dbinterrogator.service.CatalogSnapshot;
+import com.dbinterrogator.service.ColumnReference;
+import com.dbinterrogator.service.DatabaseType;
+import com.dbinterrogator.service.DumpOptions;
+import com.dbinterrogator.service.DumpResult;
+import com.dbinterrogator.service.ForeignKey;
 import com.dbinterrogator.service.InterrogatorService;
+import com.dbinterrogator.service.KeyRange;
+import com.dbinterrogator.service.MetricsRegistry;
+import com.dbinterrogator.service.TableCapacity;
+import com.dbinterrogator.service.TableChecksum;
+import com.dbinterrogator.service.TableMarker;
+import com.dbinterrogator.service.TableMarkers;
+import com.dbinterrogator.service.TableReference;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@DatabaseType("mysql")
 public class MySQLInterrogator implements InterrogatorService {
+    static final int DEFAULT_FETCH_SIZE = 1000;
+    static final int DEFAULT_POOL_MIN_SIZE = 0;
+    static final int DEFAULT_POOL_MAX_SIZE = 4;
+    static final long DEFAULT_POOL_IDLE_TIMEOUT = 60;
+    static final int MAX_VALUE_BATCH_SIZE = 100;
+    static final int CREATE_TABLE_BATCH_SIZE = 25;
+    static final int DEFAULT_PAGE_SIZE = 1000;
+    static final long DEFAULT_PAGE_LATENCY = 250;
+    //Below this many tables a query per table across the pool beats a paged scan of the whole schema
+    static final int IDENTITY_SCAN_MIN_TABLES = 32;
+    //How long the columns of a checksummed table are trusted, covering the drill-down levels of a comparison
+    static final long ROW_EXPRESSION_TTL = TimeUnit.MINUTES.toNanos(1);
+
     private Connection conn = null;
+    private StatementCache statements = null;
+    private ConnectionPool pool = null;
+    private ExecutorService executor = null;
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+    private AdaptivePageSize pageSize = new AdaptivePageSize(DEFAULT_PAGE_SIZE, DEFAULT_PAGE_LATENCY, TimeUnit.MILLISECONDS);
+    private final QueryMetrics metrics = new QueryMetrics();
+    private final Map<List<String>, CachedRowExpression> rowExpressions = new ConcurrentHashMap<List<String>, CachedRowExpression>();
 
-    public MySQLInterrogator() {
-        try {
-            Class.forName("com.mysql.jdbc.Driver");
-        } catch (Exception ex) {
-            // handle the error
-        }
+    @Override
+    public void Connect(String hostname, String username, String password) {
+        Connect(hostname, username, password, new Properties());
     }
 
     /**
-     * Convert InputStream into String
-     *
-     * @param is InputStream
-     *
-     * @return String
+     * Connect using the options of a mysql.[name] config section with the
+     * prefix removed: fetchSize, pool.minSize, pool.maxSize,
+     * pool.idleTimeout (seconds), connectTimeout and socketTimeout
+     * (milliseconds, 0 waits forever), page.size (rows in the first page of
+     * a paged read) and page.latency (milliseconds a page should take).
      */
-    private static String convertStreamToString(InputStream is) throws Exception {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(is));
-        StringBuilder sb = new StringBuilder();
-        String line = null;
-        while ((line = reader.readLine()) != null) {
-            sb.append(line).append("\n");
-        }
-        is.close();
-        return sb.toString();
-    }
-
     @Override
-    public void Connect(String hostname, String username, String password) {
+    public void Connect(String hostname, String username, String password, Properties options) {
+        //Connecting again replaces the previous connections rather than leaking them
+        Disconnect();
+        DriverLoader.load();
+        String url = "jdbc:mysql://" + hostname + "/information_schema?" + "user=" + username + "&password=" + password + "&useSSL=false&useCursorFetch=true";
         try {
-            conn = DriverManager.getConnection("jdbc:mysql://" + hostname + "/information_schema?" + "user=" + username + "&password=" + password + "&useSSL=false");
+            for (String timeout : new String[] { "connectTimeout", "socketTimeout" }) {
+                if (options.getProperty(timeout) != null) {
+                    url += "&" + timeout + "=" + Long.parseLong(options.getProperty(timeout));
+                }
+            }
+            fetchSize = Integer.parseInt(options.getProperty("fetchSize", String.valueOf(fetchSize)));
+            int minSize = Integer.parseInt(options.getProperty("pool.minSize", String.valueOf(DEFAULT_POOL_MIN_SIZE)));
+            int maxSize = Integer.parseInt(options.getProperty("pool.maxSize", String.valueOf(DEFAULT_POOL_MAX_SIZE)));
+            long idleTimeout = Long.parseLong(options.getProperty("pool.idleTimeout", String.valueOf(DEFAULT_POOL_IDLE_TIMEOUT)));
+            pageSize = new AdaptivePageSize(Integer.parseInt(options.getProperty("page.size", String.valueOf(DEFAULT_PAGE_SIZE))),
+                    Long.parseLong(options.getProperty("page.latency", String.valueOf(DEFAULT_PAGE_LATENCY))), TimeUnit.MILLISECONDS);
+
+            conn = metrics.connect(url);
+            SessionSettings.apply(conn);
+            statements = new StatementCache(conn, metrics);
+            statements.setFetchSize(fetchSize);
+            //Pooled connections only run SQL built from quoted identifiers, so they may batch statements
+            pool = new ConnectionPool(url + "&allowMultiQueries=true", metrics, minSize, maxSize, idleTimeout, TimeUnit.SECONDS, fetchSize);
+            executor = Executors.newFixedThreadPool(maxSize, new WorkerThreadFactory());
         } catch (SQLException ex) {
             // handle any errors
             System.out.println("SQLException: " + ex.getMessage());
             System.out.println("SQLState: " + ex.getSQLState());
             System.out.println("VendorError: " + ex.getErrorCode());
+            Disconnect();
+        } catch (IllegalArgumentException ex) {
+            System.err.println("Invalid connection options: " + ex.getMessage());
+            Disconnect();
         }
     }
 
     @Override
     public void Disconnect() {
+        rowExpressions.clear();
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+        if (statements != null) {
+            statements.close();
+            statements = null;
+        }
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException sqle) {
+                System.err.println(sqle.getMessage());
+            }
+            conn = null;
+        }
+    }
+
+    /**
+     * Number of statement lookups served from the per-connection cache
+     *
+     * @return cache hits since connecting
+     */
+    public long getStatementCacheHits() {
+        return statements == null ? 0 : statements.getHits();
+    }
 
+    /**
+     * Number of statement lookups that required a fresh prepare
+     *
+     * @return cache misses since connecting
+     */
+    public long getStatementCacheMisses() {
+        return statements == null ? 0 : statements.getMisses();
+    }
+
+    /**
+     * Rows fetched per round trip by every query.  With the cursor fetch
+     * enabled on the connection a positive value keeps the client-side heap
+     * bounded, Integer.MIN_VALUE streams row by row and 0 buffers the whole
+     * result.
+     *
+     * @param fetchSize Fetch size
+     */
+    @Override
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        if (statements != null) {
+            statements.setFetchSize(fetchSize);
+        }
+        if (pool != null) {
+            pool.setFetchSize(fetchSize);
+        }
     }
 
     @Override
@@ -81,23 +211,94 @@ public class MySQLInterrogator implements InterrogatorService {
         return null;
     }
 
-    private ArrayList<String> singleColumn(String sqlFile){
-        ArrayList<String> results = new ArrayList<String>();
-        try {
-            Statement stmt = conn.createStatement(ResultSet.TYPE_SCROLL_SENSITIVE, ResultSet.CONCUR_READ_ONLY);
-            ResultSet rs = stmt.executeQuery(convertStreamToString(getClass().getClassLoader().getResourceAsStream(sqlFile + ".sql")));
-            while (rs.next()) {
-                results.add(rs.getString(1));
+    /**
+     * Calls needing the pool report a missing connection and return nothing,
+     * as singleColumn does for the rest
+     *
+     * @return true if Connect succeeded
+     */
+    private boolean isConnected() {
+        if (pool == null || executor == null) {
+            System.err.println("Not connected");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Work run against a connection borrowed from the pool
+     */
+    private interface PooledTask<K, V> {
+        V apply(StatementCache statements, K key) throws SQLException;
+    }
+
+    /**
+     * Run a task for every key across the connection pool
+     *
+     * @param keys Keys, in the order results should be returned
+     * @param task Task run once per key on a pooled connection
+     *
+     * @return Results in key order, keys whose task failed are omitted
+     */
+    private <K, V> Map<K, V> fanOut(Collection<K> keys, PooledTask<K, V> task) {
+        if (!isConnected()) {
+            return new LinkedHashMap<K, V>();
+        }
+        Map<K, Future<V>> futures = new LinkedHashMap<K, Future<V>>();
+        for (K key : keys) {
+            futures.put(key, executor.submit(() -> {
+                ConnectionPool.PooledConnection connection = pool.borrow();
+                try {
+                    return task.apply(connection.statements, key);
+                } finally {
+                    pool.giveBack(connection);
+                }
+            }));
+        }
+        Map<K, V> results = new LinkedHashMap<K, V>();
+        for (Map.Entry<K, Future<V>> future : futures.entrySet()) {
+            try {
+                results.put(future.getKey(), future.getValue().get());
+            } catch (ExecutionException ex) {
+                System.err.println(future.getKey() + ": " + ex.getCause().getMessage());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                for (Future<V> pending : futures.values()) {
+                    pending.cancel(true);
+                }
+                break;
             }
-            rs.close();
-            stmt.close();
+        }
+        return results;
+    }
+
+    private Stream<String> streamSingleColumn(String sqlFile, String... parameters){
+        return streamSingleColumn(statements, sqlFile, parameters);
+    }
+
+    private Stream<String> streamSingleColumn(StatementCache statements, String sqlFile, String... parameters){
+        try {
+            return QueryStream.singleColumn(statements, sqlFile, SqlResources.get(sqlFile), parameters);
         } catch (SQLException sqle) {
             System.err.println(sqle.getMessage());
         } catch (Exception ex) {
             ex.printStackTrace();
             System.err.println(ex.getMessage());
         }
-        return results;
+        return Stream.empty();
+    }
+
+    private ArrayList<String> singleColumn(String sqlFile, String... parameters){
+        return singleColumn(statements, sqlFile, parameters);
+    }
+
+    private ArrayList<String> singleColumn(StatementCache statements, String sqlFile, String... parameters){
+        try (Stream<String> rows = streamSingleColumn(statements, sqlFile, parameters)) {
+            return rows.collect(Collectors.toCollection(ArrayList::new));
+        } catch (Exception ex) {
+            System.err.println(ex.getMessage());
+        }
+        return new ArrayList<String>();
     }
 
     @Override
@@ -105,6 +306,11 @@ public class MySQLInterrogator implements InterrogatorService {
         return singleColumn("getSchemata");
     }
 
+    @Override
+    public Stream<String> streamSchemata() {
+        return streamSingleColumn("getSchemata");
+    }
+
     @Override
     public ArrayList<String> getDatabases(String Schema) {
         return null;
@@ -112,66 +318,751 @@ public class MySQLInterrogator implements InterrogatorService {
 
     @Override
     public ArrayList<String> getTables(String schema) {
-        ArrayList<String> tables = new ArrayList<String>();
+        return tables(statements, schema);
+    }
+
+    @Override
+    public Map<String, ArrayList<String>> getTables(Collection<String> schemata) {
+        return fanOut(schemata, this::tables);
+    }
+
+    /**
+     * Tables are read a keyset page at a time, so a schema of any size is
+     * read in short queries and each page is handed on as soon as it arrives
+     */
+    @Override
+    public Stream<String> streamTables(String schema) {
+        return streamTables(statements, schema);
+    }
+
+    private Stream<String> streamTables(StatementCache statements, String schema) {
         try {
-            PreparedStatement stmt = conn.prepareStatement(convertStreamToString(getClass().getClassLoader().getResourceAsStream("getTables.sql")),ResultSet.TYPE_SCROLL_SENSITIVE, ResultSet.CONCUR_READ_ONLY);
-            stmt.setString(1, schema);
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                tables.add(rs.getString("TABLE_NAME"));
-            }
-            rs.close();
-            stmt.close();
+            return PagedQuery.rows(statements, pageSize, "getTables", SqlResources.get("getTables"), 1, new Object[] { "" }, schema).map(row -> row[0]);
         } catch (SQLException sqle) {
             System.err.println(sqle.getMessage());
+        }
+        return Stream.empty();
+    }
+
+    private ArrayList<String> tables(StatementCache statements, String schema) {
+        try (Stream<String> rows = streamTables(statements, schema)) {
+            return rows.collect(Collectors.toCollection(ArrayList::new));
         } catch (Exception ex) {
             System.err.println(ex.getMessage());
         }
-        return tables;
+        return new ArrayList<String>();
     }
 
     @Override
     public String getCreateTable(String database, String table) {
-        return null;
+        String createTable = null;
+        try {
+            String sql = String.format(SqlResources.get("getCreateTable"), Identifiers.quote(database), Identifiers.quote(table));
+            try (Statement stmt = statements.createStatement();
+                 ResultSet rs = statements.executeQuery("getCreateTable", stmt, sql)) {
+                if (rs.next()) {
+                    createTable = rs.getString(2);
+                }
+            }
+        } catch (SQLException sqle) {
+            System.err.println(sqle.getMessage());
+        } catch (Exception ex) {
+            System.err.println(ex.getMessage());
+        }
+        return createTable;
+    }
+
+    /**
+     * DDL of many tables.  Every pooled connection works through a shared
+     * queue, sending up to CREATE_TABLE_BATCH_SIZE SHOW CREATE TABLE
+     * statements per round trip, and each DDL is handed to the consumer as
+     * soon as its result arrives.  Calls to the consumer are serialised but
+     * arrive in no particular order.
+     *
+     * @param database Schema Name
+     * @param tables Table Names
+     * @param consumer Receives the table name and its DDL
+     */
+    @Override
+    public void getCreateTables(String database, Collection<String> tables, BiConsumer<String, String> consumer) {
+        if (!isConnected()) {
+            return;
+        }
+        Queue<String> pending = new ConcurrentLinkedQueue<String>(tables);
+        BiConsumer<String, String> serialised = (table, ddl) -> {
+            synchronized (consumer) {
+                consumer.accept(table, ddl);
+            }
+        };
+        List<Future<?>> workers = new ArrayList<Future<?>>();
+        for (int i = 0; i < Math.min(pool.getMaxSize(), tables.size()); i++) {
+            workers.add(executor.submit(() -> {
+                ConnectionPool.PooledConnection connection = pool.borrow();
+                try {
+                    List<String> batch = new ArrayList<String>(CREATE_TABLE_BATCH_SIZE);
+                    while (true) {
+                        batch.clear();
+                        String table;
+                        while (batch.size() < CREATE_TABLE_BATCH_SIZE && (table = pending.poll()) != null) {
+                            batch.add(table);
+                        }
+                        if (batch.isEmpty()) {
+                            return null;
+                        }
+                        createTables(connection.statements.getConnection(), database, batch, serialised);
+                    }
+                } finally {
+                    pool.giveBack(connection);
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException ex) {
+                System.err.println(database + ": " + ex.getCause().getMessage());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                for (Future<?> running : workers) {
+                    running.cancel(true);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Send a batch of SHOW CREATE TABLE statements in one round trip.  The
+     * server stops at the first failing statement, for example a table
+     * dropped since it was listed, so whatever was not delivered is retried
+     * one table at a time.
+     */
+    private void createTables(Connection connection, String database, List<String> batch, BiConsumer<String, String> consumer) throws SQLException {
+        StringBuilder sql = new StringBuilder();
+        for (String table : batch) {
+            if (sql.length() > 0) {
+                sql.append(";\n");
+            }
+            sql.append(String.format(SqlResources.get("getCreateTable"), Identifiers.quote(database), Identifiers.quote(table)));
+        }
+        int delivered = 0;
+        try (Statement stmt = connection.createStatement()) {
+            boolean hasResults = metrics.execute("getCreateTables", stmt, sql.toString());
+            while (hasResults) {
+                try (ResultSet rs = metrics.fetching("getCreateTables", stmt.getResultSet())) {
+                    if (rs.next()) {
+                        consumer.accept(batch.get(delivered), rs.getString(2));
+                    }
+                }
+                delivered++;
+                hasResults = stmt.getMoreResults();
+            }
+        } catch (SQLException sqle) {
+            if (batch.size() == 1) {
+                System.err.println(database + "." + batch.get(0) + ": " + sqle.getMessage());
+                return;
+            }
+            for (String table : batch.subList(delivered, batch.size())) {
+                createTables(connection, database, Collections.singletonList(table), consumer);
+            }
+        }
     }
 
     @Override
     public ArrayList<String> getIdentityColumns(String schema, String table) {
-        ArrayList<String> columns = new ArrayList<String>();
+        return singleColumn("getPrimaryKeyColumns", schema, table);
+    }
+
+    /**
+     * Few tables are looked up one query each across the pool, many with one
+     * keyset paged scan of the key columns of the whole schema
+     */
+    @Override
+    public Map<String, ArrayList<String>> getIdentityColumns(String schema, Collection<String> tables) {
+        if (!isConnected()) {
+            return new LinkedHashMap<String, ArrayList<String>>();
+        }
+        if (tables.size() < IDENTITY_SCAN_MIN_TABLES) {
+            return fanOut(tables, (pooled, table) -> singleColumn(pooled, "getPrimaryKeyColumns", schema, table));
+        }
+        Map<String, ArrayList<String>> results = new LinkedHashMap<String, ArrayList<String>>();
+        for (String table : tables) {
+            results.put(table, new ArrayList<String>());
+        }
+        try (Stream<String[]> rows = PagedQuery.rows(statements, pageSize, "getSchemaPrimaryKeyColumns", SqlResources.get("getSchemaPrimaryKeyColumns"), 3, new Object[] { "", 0 }, schema)) {
+            rows.forEach(row -> {
+                ArrayList<String> columns = results.get(row[0]);
+                if (columns != null) {
+                    columns.add(row[2]);
+                }
+            });
+            return results;
+        } catch (SQLException | IllegalStateException ex) {
+            System.err.println(ex.getMessage());
+        }
+        return new LinkedHashMap<String, ArrayList<String>>();
+    }
+
+    @Override
+    public Stream<String> streamIdentityColumns(String schema, String table) {
+        return streamSingleColumn("getPrimaryKeyColumns", schema, table);
+    }
+
+    @Override
+    public CatalogSnapshot getCatalogSnapshot() {
+        return getCatalogSnapshot(null);
+    }
+
+    @Override
+    public CatalogSnapshot getCatalogSnapshot(String schema) {
         try {
-            PreparedStatement stmt = conn.prepareStatement(convertStreamToString(getClass().getClassLoader().getResourceAsStream("getPrimaryKeyColumns.sql")),ResultSet.TYPE_SCROLL_SENSITIVE, ResultSet.CONCUR_READ_ONLY);
-            stmt.setString(1, schema);
-            stmt.setString(2, table);
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                columns.add(rs.getString("COLUMN_NAME"));
+            if (schema != null || pool == null || pool.getMaxSize() < 2) {
+                return new CatalogLoader(conn, fetchSize, metrics).load(schema);
+            }
+            //Load each schema on its own pooled connection and merge in name order
+            Map<String, CatalogSnapshot> snapshots = fanOut(getSchemata(), (pooled, name) -> new CatalogLoader(pooled.getConnection(), fetchSize, metrics).load(name));
+            List<CatalogSchema> schemata = new ArrayList<CatalogSchema>();
+            Instant capturedAt = null;
+            for (CatalogSnapshot snapshot : snapshots.values()) {
+                schemata.addAll(snapshot.getSchemata());
+                if (capturedAt == null || snapshot.getCapturedAt().isBefore(capturedAt)) {
+                    capturedAt = snapshot.getCapturedAt();
+                }
             }
-            rs.close();
-            stmt.close();
+            return new CatalogSnapshot(capturedAt == null ? Instant.now() : capturedAt, schemata);
         } catch (SQLException sqle) {
             System.err.println(sqle.getMessage());
-        } catch (Exception ex) {
-            System.err.println(ex.getMessage());
         }
-        return columns;
+        return null;
+    }
+
+    /**
+     * Fingerprint built from the count, names and create/update times of the
+     * tables in a schema.  Comparing fingerprints is far cheaper than reading
+     * the tables themselves, at the cost of missing DDL that leaves
+     * CREATE_TIME untouched.
+     *
+     * @param schema Schema Name, or null for the whole server
+     *
+     * @return Fingerprint, or null if it could not be read
+     */
+    @Override
+    public String getSchemaFingerprint(String schema) {
+        ArrayList<String> fingerprint = singleColumn("getSchemaFingerprint", schema, schema, schema, schema);
+        return fingerprint.isEmpty() ? null : fingerprint.get(0);
+    }
+
+    /**
+     * Change markers of the base tables created, rebuilt or written to since
+     * a point in time, with a count of every base table.  Statistics are read
+     * fresh rather than from the MySQL 8 cache, see SessionSettings.
+     *
+     * @param schema Schema Name, or null for the whole server
+     * @param changedSince Earliest change to report, or null for every table
+     *
+     * @return Markers, or null if they could not be read
+     */
+    @Override
+    public TableMarkers getTableMarkers(String schema, Instant changedSince) {
+        List<TableMarker> markers = new ArrayList<TableMarker>();
+        String sql = SqlResources.get("getTableMarkers");
+        try {
+            ArrayList<String> count = singleColumn("getTableCount", schema, schema);
+            if (count.isEmpty()) {
+                return null;
+            }
+            Timestamp since = changedSince == null ? null : Timestamp.from(changedSince);
+            PreparedStatement stmt = statements.acquire("getTableMarkers", sql);
+            try {
+                stmt.setString(1, schema);
+                stmt.setString(2, schema);
+                stmt.setTimestamp(3, since);
+                stmt.setTimestamp(4, since);
+                stmt.setTimestamp(5, since);
+                try (ResultSet rs = statements.executeQuery("getTableMarkers", stmt)) {
+                    while (rs.next()) {
+                        Timestamp createTime = rs.getTimestamp("CREATE_TIME");
+                        Timestamp updateTime = rs.getTimestamp("UPDATE_TIME");
+                        Long autoIncrement = CatalogLoader.getLong(rs, "AUTO_INCREMENT");
+                        markers.add(new TableMarker(rs.getString("TABLE_SCHEMA"), rs.getString("TABLE_NAME"),
+                                createTime == null ? null : createTime.toInstant(),
+                                updateTime == null ? null : updateTime.toInstant(),
+                                autoIncrement));
+                    }
+                }
+            } finally {
+                statements.release(sql, stmt);
+            }
+            return new TableMarkers(Long.parseLong(count.get(0)), markers);
+        } catch (SQLException sqle) {
+            System.err.println(sqle.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Foreign keys read from KEY_COLUMN_USAGE, whose rows arrive a column at a
+     * time in key order and are folded back into one key each
+     *
+     * @param schema Schema Name, or null for all schemata
+     *
+     * @return Foreign keys, or null if they could not be read
+     */
+    @Override
+    public List<ForeignKey> getForeignKeys(String schema) {
+        if (!isConnected()) {
+            return null;
+        }
+        List<ForeignKey> foreignKeys = new ArrayList<ForeignKey>();
+        String sql = SqlResources.get("getForeignKeys");
+        try {
+            PreparedStatement stmt = statements.acquire("getForeignKeys", sql);
+            try {
+                stmt.setString(1, schema);
+                stmt.setString(2, schema);
+                try (ResultSet rs = statements.executeQuery("getForeignKeys", stmt)) {
+                    String name = null;
+                    TableReference table = null;
+                    TableReference referencedTable = null;
+                    List<String> columns = null;
+                    List<String> referencedColumns = null;
+                    String updateRule = null;
+                    String deleteRule = null;
+                    while (rs.next()) {
+                        TableReference rowTable = new TableReference(rs.getString("TABLE_SCHEMA"), rs.getString("TABLE_NAME"));
+                        String rowName = rs.getString("CONSTRAINT_NAME");
+                        if (!rowTable.equals(table) || !rowName.equals(name)) {
+                            if (table != null) {
+                                foreignKeys.add(new ForeignKey(name, table, columns, referencedTable, referencedColumns, updateRule, deleteRule));
+                            }
+                            name = rowName;
+                            table = rowTable;
+                            referencedTable = new TableReference(rs.getString("REFERENCED_TABLE_SCHEMA"), rs.getString("REFERENCED_TABLE_NAME"));
+                            columns = new ArrayList<String>();
+                            referencedColumns = new ArrayList<String>();
+                            updateRule = rs.getString("UPDATE_RULE");
+                            deleteRule = rs.getString("DELETE_RULE");
+                        }
+                        columns.add(rs.getString("COLUMN_NAME"));
+                        referencedColumns.add(rs.getString("REFERENCED_COLUMN_NAME"));
+                    }
+                    if (table != null) {
+                        foreignKeys.add(new ForeignKey(name, table, columns, referencedTable, referencedColumns, updateRule, deleteRule));
+                    }
+                }
+            } finally {
+                statements.release(sql, stmt);
+            }
+            return foreignKeys;
+        } catch (SQLException sqle) {
+            System.err.println(sqle.getMessage());
+        }
+        return null;
     }
 
     @Override
     public String getMaxValue(String column, String schema, String table) {
-        String maxValue = "";
+        return extremeValue(statements, "getMaxValue", column, schema, table);
+    }
+
+    @Override
+    public String getMinValue(String column, String schema, String table) {
+        return extremeValue(statements, "getMinValue", column, schema, table);
+    }
+
+    private String extremeValue(StatementCache statements, String sqlFile, String column, String schema, String table) {
+        String value = "";
         try {
-            Statement stmt = conn.createStatement(ResultSet.TYPE_SCROLL_SENSITIVE, ResultSet.CONCUR_READ_ONLY);
-            ResultSet rs = stmt.executeQuery(String.format(convertStreamToString(getClass().getClassLoader().getResourceAsStream("getMaxValue.sql")),column,schema,table));
-            while (rs.next()) {
-                maxValue = rs.getString("MAX_VALUE");
+            String sql = String.format(SqlResources.get(sqlFile), Identifiers.quote(column), Identifiers.quote(schema), Identifiers.quote(table));
+            try (Statement stmt = statements.createStatement();
+                 ResultSet rs = statements.executeQuery(sqlFile, stmt, sql)) {
+                while (rs.next()) {
+                    value = rs.getString(1);
+                }
             }
-            rs.close();
-            stmt.close();
         } catch (SQLException sqle) {
             System.err.println(sqle.getMessage());
         } catch (Exception ex) {
             System.err.println(ex.getMessage());
         }
-        return maxValue;
+        return value;
+    }
+
+    /**
+     * Maximum value of many columns, combined into UNION ALL statements of
+     * up to MAX_VALUE_BATCH_SIZE columns that run in parallel on the pool.
+     *
+     * @param columns Columns to probe
+     *
+     * @return Max values in input order, columns that could not be probed are omitted
+     */
+    @Override
+    public Map<ColumnReference, String> getMaxValues(List<ColumnReference> columns) {
+        return extremeValues(columns, "getMaxValueBatch");
+    }
+
+    /**
+     * Minimum value of many columns, batched as getMaxValues
+     *
+     * @param columns Columns to probe
+     *
+     * @return Min values in input order, columns that could not be probed are omitted
+     */
+    @Override
+    public Map<ColumnReference, String> getMinValues(List<ColumnReference> columns) {
+        return extremeValues(columns, "getMinValueBatch");
+    }
+
+    private Map<ColumnReference, String> extremeValues(List<ColumnReference> columns, String sqlFile) {
+        List<List<ColumnReference>> batches = new ArrayList<List<ColumnReference>>();
+        for (int i = 0; i < columns.size(); i += MAX_VALUE_BATCH_SIZE) {
+            batches.add(columns.subList(i, Math.min(i + MAX_VALUE_BATCH_SIZE, columns.size())));
+        }
+        Map<List<ColumnReference>, Map<ColumnReference, String>> results = fanOut(batches, (pooled, batch) -> extremeValues(pooled, sqlFile, batch));
+        Map<ColumnReference, String> values = new LinkedHashMap<ColumnReference, String>();
+        for (Map<ColumnReference, String> batch : results.values()) {
+            values.putAll(batch);
+        }
+        return values;
+    }
+
+    private Map<ColumnReference, String> extremeValues(StatementCache statements, String sqlFile, List<ColumnReference> batch) throws SQLException {
+        String template = SqlResources.get(sqlFile);
+        StringBuilder sql = new StringBuilder();
+        for (int i = 0; i < batch.size(); i++) {
+            ColumnReference reference = batch.get(i);
+            if (i > 0) {
+                sql.append("\nUNION ALL\n");
+            }
+            sql.append(String.format(template, i, Identifiers.quote(reference.getColumn()),
+                    Identifiers.quote(reference.getSchema()), Identifiers.quote(reference.getTable())));
+        }
+        String[] values = new String[batch.size()];
+        try (Statement stmt = statements.createStatement();
+             ResultSet rs = statements.executeQuery(sqlFile, stmt, sql.toString())) {
+            while (rs.next()) {
+                values[rs.getInt(1)] = rs.getString(2);
+            }
+        }
+        Map<ColumnReference, String> results = new LinkedHashMap<ColumnReference, String>();
+        for (int i = 0; i < batch.size(); i++) {
+            results.put(batch.get(i), values[i] == null ? "" : values[i]);
+        }
+        return results;
+    }
+
+    /**
+     * Dump table data into one file per primary key range.  Tables with a
+     * single integer primary key are split into ranges of the configured
+     * chunk size aligned to multiples of it, and each file is named after
+     * its range.  A key span needing more than KeyRange.MAX_RANGES chunks,
+     * e.g. from one outlying key, gets wider chunks instead.  A resumed dump
+     * keeps the chunk width of the files already written, so it only writes
+     * missing chunks even once the key span has moved; a table whose span
+     * has outgrown that width is reported as failed.  Other tables are
+     * written as a single chunk.  Each table's DDL is written alongside its
+     * data, while views get their DDL alone, as restoring their rows would
+     * insert them a second time into the tables beneath.  Chunks are read on separate pooled
+     * connections and so do not share a consistent snapshot.
+     *
+     * @param database Schema Name
+     * @param tables Table Names
+     * @param directory Output directory, created if missing
+     * @param options DumpOptions
+     *
+     * @return DumpResult, or null if the dump could not start
+     */
+    @Override
+    public DumpResult dumpTables(String database, Collection<String> tables, Path directory, DumpOptions options) {
+        if (!isConnected()) {
+            return null;
+        }
+        try {
+            Files.createDirectories(directory);
+            TableDumper dumper = new TableDumper(pool, executor, directory, options);
+
+            List<String> missingSchema = new ArrayList<String>();
+            for (String table : tables) {
+                if (!options.isResume() || !Files.exists(dumper.schemaFile(database, table))) {
+                    missingSchema.add(table);
+                }
+            }
+            getCreateTables(database, missingSchema, (table, ddl) -> {
+                try {
+                    Files.write(dumper.schemaFile(database, table), (ddl + ";\n").getBytes(StandardCharsets.UTF_8));
+                } catch (IOException ex) {
+                    System.err.println(database + "." + table + ": " + ex.getMessage());
+                }
+            });
+
+            Set<String> withData = new HashSet<String>(singleColumn("getBaseTables", database));
+            List<String> baseTables = new ArrayList<String>();
+            for (String table : tables) {
+                if (withData.contains(table)) {
+                    baseTables.add(table);
+                }
+            }
+            Map<String, ArrayList<String>> identityColumns = getIdentityColumns(database, baseTables);
+            List<ColumnReference> keys = new ArrayList<ColumnReference>();
+            for (Map.Entry<String, ArrayList<String>> columns : identityColumns.entrySet()) {
+                if (columns.getValue().size() == 1) {
+                    keys.add(new ColumnReference(database, columns.getKey(), columns.getValue().get(0)));
+                }
+            }
+            Map<ColumnReference, String> minValues = getMinValues(keys);
+            Map<ColumnReference, String> maxValues = getMaxValues(keys);
+
+            List<TableDumper.Chunk> chunks = new ArrayList<TableDumper.Chunk>();
+            int unplanned = 0;
+            for (String table : baseTables) {
+                ArrayList<String> columns = identityColumns.get(table);
+                ColumnReference key = columns != null && columns.size() == 1 ? new ColumnReference(database, table, columns.get(0)) : null;
+                Long min = key == null ? null : parseLong(minValues.get(key));
+                Long max = key == null ? null : parseLong(maxValues.get(key));
+                if (min == null || max == null) {
+                    chunks.add(TableDumper.Chunk.wholeTable(database, table));
+                    continue;
+                }
+                Long resumedWidth = options.isResume() ? dumper.chunkWidth(database, table) : null;
+                long chunkSize = resumedWidth == null ? options.getChunkSize() : resumedWidth;
+                if (resumedWidth != null && KeyRange.width(min, max, chunkSize, KeyRange.MAX_RANGES) != chunkSize) {
+                    System.err.println(database + "." + table + ": key span outgrew the chunks being resumed, dump the table afresh");
+                    unplanned++;
+                    continue;
+                }
+                for (KeyRange range : KeyRange.aligned(database, table, key.getColumn(), min, max, chunkSize)) {
+                    chunks.add(new TableDumper.Chunk(database, table, range.getColumn(), range.getLower(), range.getUpper()));
+                }
+            }
+            DumpResult result = dumper.dump(chunks);
+            return new DumpResult(result.getChunksWritten(), result.getChunksSkipped(), result.getChunksFailed() + unplanned, result.getRows());
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private static Long parseLong(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Record the connect, prepare, execute and fetch phases of every query
+     *
+     * @param registry MetricsRegistry, null to stop recording
+     */
+    @Override
+    public void setMetricsRegistry(MetricsRegistry registry) {
+        metrics.setRegistry(registry);
+    }
+
+    /**
+     * Checksum key ranges in parallel on the pool.  Each range is hashed
+     * server side as the exact SUM of a 64 bit MD5 prefix per row, which is
+     * independent of row order, so only the count and hash are returned.
+     * Unlike BIT_XOR, a sum does not cancel out pairs of duplicate rows, so
+     * tables without a unique key still compare correctly.
+     * The columns of each table are read once and reused by further calls
+     * for up to ROW_EXPRESSION_TTL, so the levels of a comparison do not
+     * read them again.
+     *
+     * @param ranges Key ranges, or whole tables
+     *
+     * @return Checksums in input order, ranges that could not be checksummed are omitted
+     */
+    @Override
+    public Map<KeyRange, TableChecksum> getChecksums(List<KeyRange> ranges) {
+        if (!isConnected()) {
+            return new LinkedHashMap<KeyRange, TableChecksum>();
+        }
+        long now = System.nanoTime();
+        Set<List<String>> stale = new LinkedHashSet<List<String>>();
+        for (KeyRange range : ranges) {
+            List<String> table = Arrays.asList(range.getSchema(), range.getTable());
+            CachedRowExpression cached = rowExpressions.get(table);
+            if (cached == null || now - cached.resolvedAt > ROW_EXPRESSION_TTL) {
+                stale.add(table);
+            }
+        }
+        Map<List<String>, String> resolved = fanOut(stale,
+                (pooled, table) -> rowExpression(singleColumn(pooled, "getColumnNames", table.get(0), table.get(1))));
+        for (List<String> table : stale) {
+            String expression = resolved.get(table);
+            if (expression == null) {
+                rowExpressions.remove(table);
+            } else {
+                rowExpressions.put(table, new CachedRowExpression(expression, now));
+            }
+        }
+        return fanOut(ranges, (pooled, range) -> {
+            List<String> table = Arrays.asList(range.getSchema(), range.getTable());
+            CachedRowExpression cached = rowExpressions.get(table);
+            try {
+                return checksum(pooled, range, cached == null ? null : cached.expression);
+            } catch (SQLException sqle) {
+                //A column may have been dropped, read them again next time
+                rowExpressions.remove(table);
+                throw sqle;
+            }
+        });
+    }
+
+    /**
+     * CONCAT_WS arguments of every column followed by their null flags, so
+     * NULL and empty values hash differently
+     */
+    private static String rowExpression(List<String> columns) {
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException("no columns");
+        }
+        StringBuilder values = new StringBuilder();
+        StringBuilder nulls = new StringBuilder();
+        for (String column : columns) {
+            String quoted = Identifiers.quote(column);
+            values.append(quoted).append(", ");
+            nulls.append(nulls.length() == 0 ? "" : ", ").append("ISNULL(").append(quoted).append(")");
+        }
+        return values.append("CONCAT(").append(nulls).append(")").toString();
+    }
+
+    private TableChecksum checksum(StatementCache statements, KeyRange range, String rowExpression) throws SQLException {
+        if (rowExpression == null) {
+            throw new SQLException("No columns found for " + range.getSchema() + "." + range.getTable());
+        }
+        String schema = Identifiers.quote(range.getSchema());
+        String table = Identifiers.quote(range.getTable());
+        String sql = range.isWholeTable()
+                ? String.format(SqlResources.get("getTableChecksum"), rowExpression, schema, table)
+                : String.format(SqlResources.get("getChecksum"), rowExpression, schema, table, Identifiers.quote(range.getColumn()), range.getLower(), range.getUpper());
+        String name = range.isWholeTable() ? "getTableChecksum" : "getChecksum";
+        try (Statement stmt = statements.createStatement();
+             ResultSet rs = statements.executeQuery(name, stmt, sql)) {
+            rs.next();
+            return new TableChecksum(rs.getLong(1), rs.getString(2));
+        }
+    }
+
+    /**
+     * Capacity of every auto increment column on the server, read from the
+     * AUTO_INCREMENT table metadata in a single query, read fresh rather
+     * than from the MySQL 8 statistics cache.  Only tables the
+     * server holds no statistics for are probed with MAX(), which the
+     * column's index answers without a scan.  Columns neither yields a value
+     * for are reported with an unknown current value rather than left out.
+     *
+     * @return capacity sorted by risk, unknown first, then most consumed
+     */
+    @Override
+    public List<TableCapacity> getTableCapacity() {
+        if (!isConnected()) {
+            return new ArrayList<TableCapacity>();
+        }
+        List<TableCapacity> capacity = new ArrayList<TableCapacity>();
+        List<String[]> unknown = new ArrayList<String[]>();
+        DataTypes dataTypes = new DataTypes();
+        String sql = SqlResources.get("getTableCapacity");
+        try {
+            PreparedStatement stmt = statements.acquire("getTableCapacity", sql);
+            try (ResultSet rs = statements.executeQuery("getTableCapacity", stmt)) {
+                while (rs.next()) {
+                    String schema = rs.getString("TABLE_SCHEMA");
+                    String table = rs.getString("TABLE_NAME");
+                    String column = rs.getString("COLUMN_NAME");
+                    String dataType = rs.getString("DATA_TYPE");
+                    String columnType = rs.getString("COLUMN_TYPE");
+                    String autoIncrement = rs.getString("AUTO_INCREMENT");
+                    if (autoIncrement == null) {
+                        unknown.add(new String[] { schema, table, column, dataType, columnType });
+                    } else {
+                        BigInteger current = new BigInteger(autoIncrement).subtract(BigInteger.ONE).max(BigInteger.ZERO);
+                        capacity.add(new TableCapacity(schema, table, column, columnType, current,
+                                typeMaxValue(dataTypes, dataType, columnType), TableCapacity.Source.METADATA));
+                    }
+                }
+            } finally {
+                statements.release(sql, stmt);
+            }
+        } catch (SQLException sqle) {
+            System.err.println(sqle.getMessage());
+        }
+
+        Map<String[], String> probes = fanOut(unknown, (pooled, column) -> extremeValue(pooled, "getMaxValue", column[2], column[0], column[1]));
+        for (String[] column : unknown) {
+            //A failed probe, an empty table or a value that is not an integer says nothing about the next value
+            BigInteger current = parseBigInteger(probes.get(column));
+            capacity.add(new TableCapacity(column[0], column[1], column[2], column[4], current,
+                    typeMaxValue(dataTypes, column[3], column[4]), current == null ? TableCapacity.Source.UNKNOWN : TableCapacity.Source.PROBE));
+        }
+        Collections.sort(capacity);
+        return capacity;
+    }
+
+    private static BigInteger parseBigInteger(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return new BigInteger(value);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static BigInteger typeMaxValue(DataTypes dataTypes, String dataType, String columnType) {
+        boolean signed = !columnType.toLowerCase().contains("unsigned");
+        return new BigInteger(Long.toUnsignedString(dataTypes.getMaxValue(dataType, signed)));
+    }
+
+    /**
+     * Row expression of a table and when its columns were read
+     */
+    private static final class CachedRowExpression {
+        final String expression;
+        final long resolvedAt;
+
+        CachedRowExpression(String expression, long resolvedAt) {
+            this.expression = expression;
+            this.resolvedAt = resolvedAt;
+        }
+    }
+
+    /**
+     * Loads the JDBC driver on the first connect of the JVM rather than on
+     * every construction, so discovering the provider costs nothing
+     */
+    private static final class DriverLoader {
+        static {
+            try {
+                Class.forName("com.mysql.jdbc.Driver");
+            } catch (ClassNotFoundException ex) {
+                //DriverManager still finds JDBC 4 drivers on its own
+            }
+        }
+
+        static void load() {
+        }
+    }
+
+    /**
+     * Daemon worker threads so an interrogator left connected never blocks JVM exit
+     */
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private static final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "mysql-interrogator-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
     }
 }
\ No newline at end of file
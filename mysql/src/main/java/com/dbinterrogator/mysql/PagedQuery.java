@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.mysql;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads a large information_schema query a keyset page at a time and exposes
+ * the rows as a Stream.
+ *
+ * Each page is a short query of its own, resuming after the key of the last
+ * row read, e.g. TABLE_NAME > ? ORDER BY TABLE_NAME LIMIT ?.  The statement is
+ * handed back to the cache as soon as a page has been read, so nothing is held
+ * on the server while the rows are consumed, and the next page is only read
+ * once the consumer has taken every row of the current one.
+ *
+ * The query binds its fixed String parameters first, then the key and finally
+ * the page size.  The key is the leading columns of the select list and must
+ * match its ORDER BY and be unique.
+ */
+class PagedQuery extends Spliterators.AbstractSpliterator<String[]> {
+
+    private final StatementCache statements;
+    private final AdaptivePageSize pageSize;
+    private final String name;
+    private final String sql;
+    private final int columns;
+    private final Object[] key;
+    private final String[] parameters;
+    private Iterator<String[]> page;
+    private boolean lastPage = false;
+
+    private PagedQuery(StatementCache statements, AdaptivePageSize pageSize, String name, String sql, int columns, Object[] key, String[] parameters) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.statements = statements;
+        this.pageSize = pageSize;
+        this.name = name;
+        this.sql = sql;
+        this.columns = columns;
+        this.key = key.clone();
+        this.parameters = parameters;
+    }
+
+    /**
+     * Read the first page of a query and stream its rows, reading further
+     * pages as the stream is consumed
+     *
+     * @param statements Statement cache of the connection to query
+     * @param pageSize Page size, adjusted as pages are read
+     * @param name Query name
+     * @param sql SQL text
+     * @param columns Columns in the select list
+     * @param firstKey Key sorting before every row, e.g. an empty name
+     * @param parameters String parameters bound before the key
+     *
+     * @return Stream of rows, one String per column
+     */
+    static Stream<String[]> rows(StatementCache statements, AdaptivePageSize pageSize, String name, String sql, int columns, Object[] firstKey, String... parameters) throws SQLException {
+        PagedQuery spliterator = new PagedQuery(statements, pageSize, name, sql, columns, firstKey, parameters);
+        spliterator.page = spliterator.read().iterator();
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String[]> action) {
+        while (!page.hasNext()) {
+            if (lastPage) {
+                return false;
+            }
+            try {
+                page = read().iterator();
+            } catch (SQLException sqle) {
+                lastPage = true;
+                throw new IllegalStateException(sqle.getMessage(), sqle);
+            }
+        }
+        action.accept(page.next());
+        return true;
+    }
+
+    private List<String[]> read() throws SQLException {
+        int limit = pageSize.get();
+        List<String[]> rows = new ArrayList<String[]>(Math.min(limit, 1024));
+        PreparedStatement stmt = statements.acquire(name, sql);
+        try {
+            int index = 1;
+            for (String parameter : parameters) {
+                stmt.setString(index++, parameter);
+            }
+            for (Object value : key) {
+                stmt.setObject(index++, value);
+            }
+            stmt.setInt(index, limit);
+            long start = System.nanoTime();
+            try (ResultSet rs = statements.executeQuery(name, stmt)) {
+                while (rs.next()) {
+                    String[] row = new String[columns];
+                    for (int i = 0; i < columns; i++) {
+                        row[i] = rs.getString(i + 1);
+                    }
+                    for (int i = 0; i < key.length; i++) {
+                        key[i] = rs.getObject(i + 1);
+                    }
+                    rows.add(row);
+                }
+            }
+            pageSize.record(limit, rows.size(), System.nanoTime() - start);
+        } finally {
+            statements.release(sql, stmt);
+        }
+        lastPage = rows.size() < limit;
+        return rows;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.mysql;
+
+import com.dbinterrogator.service.MetricsRegistry;
+import com.dbinterrogator.service.MetricsRegistry.Phase;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Times each phase of the queries run on every connection of an
+ * interrogator and reports them to its current {@link MetricsRegistry},
+ * named after the SQL resource they run.
+ *
+ * Fetch time is the time spent inside ResultSet.next() only, so it excludes
+ * whatever the reader does with each row.  Bytes are estimated from the
+ * values read: characters of strings, length of byte arrays and the width
+ * of numbers.  With no registry set result sets are not wrapped and the
+ * only cost is a few calls to System.nanoTime().
+ */
+final class QueryMetrics {
+
+    private volatile MetricsRegistry registry = MetricsRegistry.NONE;
+
+    void setRegistry(MetricsRegistry registry) {
+        this.registry = registry == null ? MetricsRegistry.NONE : registry;
+    }
+
+    Connection connect(String url) throws SQLException {
+        MetricsRegistry.Timer timer = registry.start(Phase.CONNECT, "connect");
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Connection connection = DriverManager.getConnection(url);
+            failed = false;
+            return connection;
+        } finally {
+            timer.stop(System.nanoTime() - start, 0, 0, failed);
+        }
+    }
+
+    PreparedStatement prepare(String name, Connection conn, String sql) throws SQLException {
+        MetricsRegistry.Timer timer = registry.start(Phase.PREPARE, name);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            failed = false;
+            return stmt;
+        } finally {
+            timer.stop(System.nanoTime() - start, 0, 0, failed);
+        }
+    }
+
+    ResultSet executeQuery(String name, PreparedStatement stmt) throws SQLException {
+        MetricsRegistry.Timer timer = registry.start(Phase.EXECUTE, name);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            ResultSet rs = stmt.executeQuery();
+            failed = false;
+            return fetching(name, rs);
+        } finally {
+            timer.stop(System.nanoTime() - start, 0, 0, failed);
+        }
+    }
+
+    ResultSet executeQuery(String name, Statement stmt, String sql) throws SQLException {
+        MetricsRegistry.Timer timer = registry.start(Phase.EXECUTE, name);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            ResultSet rs = stmt.executeQuery(sql);
+            failed = false;
+            return fetching(name, rs);
+        } finally {
+            timer.stop(System.nanoTime() - start, 0, 0, failed);
+        }
+    }
+
+    boolean execute(String name, Statement stmt, String sql) throws SQLException {
+        MetricsRegistry.Timer timer = registry.start(Phase.EXECUTE, name);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            boolean hasResults = stmt.execute(sql);
+            failed = false;
+            return hasResults;
+        } finally {
+            timer.stop(System.nanoTime() - start, 0, 0, failed);
+        }
+    }
+
+    /**
+     * Wrap a ResultSet so reading it is recorded as a FETCH once it is
+     * exhausted or closed
+     *
+     * @param name Query name
+     * @param rs ResultSet
+     *
+     * @return ResultSet
+     */
+    ResultSet fetching(String name, ResultSet rs) {
+        MetricsRegistry current = registry;
+        if (current == MetricsRegistry.NONE || rs == null) {
+            return rs;
+        }
+        return (ResultSet) Proxy.newProxyInstance(QueryMetrics.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+                new FetchTimer(current, name, rs));
+    }
+
+    private static final class FetchTimer implements InvocationHandler {
+        private final MetricsRegistry.Timer timer;
+        private final ResultSet rs;
+        private long nanos;
+        private long rows;
+        private long bytes;
+        private boolean recorded;
+
+        FetchTimer(MetricsRegistry registry, String name, ResultSet rs) {
+            this.timer = registry.start(Phase.FETCH, name);
+            this.rs = rs;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = method.invoke(rs, args);
+            } catch (InvocationTargetException ex) {
+                finish(true);
+                throw ex.getCause();
+            }
+            switch (methodName) {
+                case "next":
+                    nanos += System.nanoTime() - start;
+                    if ((Boolean) result) {
+                        rows++;
+                    } else {
+                        finish(false);
+                    }
+                    break;
+                case "getString":
+                    bytes += result == null ? 0 : ((String) result).length();
+                    break;
+                case "getBytes":
+                    bytes += result == null ? 0 : ((byte[]) result).length;
+                    break;
+                case "getInt":
+                    bytes += 4;
+                    break;
+                case "getLong":
+                case "getDouble":
+                case "getTimestamp":
+                    bytes += 8;
+                    break;
+                case "close":
+                    finish(false);
+                    break;
+                default:
+                    break;
+            }
+            return result;
+        }
+
+        private void finish(boolean failed) {
+            if (!recorded) {
+                recorded = true;
+                timer.stop(nanos, rows, bytes, failed);
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.mysql;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily exposes the first column of a forward-only ResultSet as a Stream.
+ *
+ * Rows are read from the driver as the stream is consumed. The ResultSet is
+ * closed and its statement handed back to the cache as soon as the last row
+ * has been read, or when the stream is closed, whichever happens first.
+ */
+class QueryStream extends Spliterators.AbstractSpliterator<String> {
+
+    private final StatementCache statements;
+    private final String sql;
+    private final PreparedStatement stmt;
+    private final ResultSet rs;
+    private boolean closed = false;
+
+    private QueryStream(StatementCache statements, String sql, PreparedStatement stmt, ResultSet rs) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED);
+        this.statements = statements;
+        this.sql = sql;
+        this.stmt = stmt;
+        this.rs = rs;
+    }
+
+    /**
+     * Execute a query and stream its first column
+     *
+     * @param statements Statement cache of the connection to query
+     * @param name Query name
+     * @param sql SQL text
+     * @param parameters String parameters bound in order
+     *
+     * @return Stream that must be closed if it is not fully consumed
+     */
+    static Stream<String> singleColumn(StatementCache statements, String name, String sql, String... parameters) throws SQLException {
+        PreparedStatement stmt = statements.acquire(name, sql);
+        ResultSet rs;
+        try {
+            for (int i = 0; i < parameters.length; i++) {
+                stmt.setString(i + 1, parameters[i]);
+            }
+            rs = statements.executeQuery(name, stmt);
+        } catch (SQLException sqle) {
+            statements.release(sql, stmt);
+            throw sqle;
+        }
+        QueryStream spliterator = new QueryStream(statements, sql, stmt, rs);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+        if (closed) {
+            return false;
+        }
+        try {
+            if (!rs.next()) {
+                close();
+                return false;
+            }
+            action.accept(rs.getString(1));
+            return true;
+        } catch (SQLException sqle) {
+            close();
+            throw new IllegalStateException(sqle.getMessage(), sqle);
+        }
+    }
+
+    private void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            rs.close();
+        } catch (SQLException sqle) {
+            System.err.println(sqle.getMessage());
+        }
+        statements.release(sql, stmt);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dbinterrogator.mysql;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Session variables set on every connection as it is opened
+ */
+final class SessionSettings {
+
+    private SessionSettings() {
+    }
+
+    /**
+     * Read INFORMATION_SCHEMA statistics such as AUTO_INCREMENT and
+     * UPDATE_TIME fresh.  MySQL 8 otherwise serves them from a cache for up
+     * to information_schema_stats_expiry seconds, a day by default; earlier
+     * servers have no cache and no such variable.
+     *
+     * @param connection Newly opened connection
+     */
+    static void apply(Connection connection) {
+        try {
+            if (connection.getMetaData().getDatabaseMajorVersion() < 8) {
+                return;
+            }
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("SET SESSION information_schema_stats_expiry = 0");
+            }
+        } catch (SQLException sqle) {
+            //Stale statistics are still better than no connection
+            System.err.println(sqle.getMessage());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.mysql;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable registry of the SQL templates bundled with this module.
+ *
+ * Every template is read from the classpath exactly once, when the class is
+ * loaded, so interrogation methods only pay for a map lookup.  The leading
+ * doc comment is stripped so templates can be composed into larger queries.
+ */
+final class SqlResources {
+
+    private static final String[] NAMES = {
+            "getSchemata",
+            "getTables",
+            "getBaseTables",
+            "getPrimaryKeyColumns",
+            "getMaxValue",
+            "getMaxValueBatch",
+            "getMinValue",
+            "getMinValueBatch",
+            "getColumnNames",
+            "getChecksum",
+            "getTableChecksum",
+            "getCreateTable",
+            "getCatalogSchemata",
+            "getCatalogTables",
+            "getCatalogColumns",
+            "getCatalogKeys",
+            "getTableCapacity",
+            "getSchemaFingerprint",
+            "getTableMarkers",
+            "getTableCount",
+            "getForeignKeys",
+            "getSchemaPrimaryKeyColumns"
+    };
+
+    private static final Map<String, String> TEMPLATES = load();
+
+    private SqlResources() {
+    }
+
+    /**
+     * Retrieve a SQL template
+     *
+     * @param name Resource name without the .sql extension
+     *
+     * @return SQL text
+     */
+    static String get(String name) {
+        String sql = TEMPLATES.get(name);
+        if (sql == null) {
+            throw new IllegalArgumentException("Unknown SQL resource: " + name);
+        }
+        return sql;
+    }
+
+    private static Map<String, String> load() {
+        Map<String, String> templates = new HashMap<String, String>();
+        for (String name : NAMES) {
+            InputStream is = SqlResources.class.getClassLoader().getResourceAsStream(name + ".sql");
+            if (is == null) {
+                throw new IllegalStateException("Missing SQL resource: " + name + ".sql");
+            }
+            try {
+                templates.put(name, stripDocComment(convertStreamToString(is)));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        return Collections.unmodifiableMap(templates);
+    }
+
+    private static String stripDocComment(String sql) {
+        String trimmed = sql.trim();
+        if (trimmed.startsWith("/**")) {
+            int end = trimmed.indexOf("*/");
+            if (end >= 0) {
+                return trimmed.substring(end + 2).trim();
+            }
+        }
+        return trimmed;
+    }
+
+    /**
+     * Convert InputStream into String
+     *
+     * @param is InputStream
+     *
+     * @return String
+     */
+    private static String convertStreamToString(InputStream is) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            StringBuilder sb = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                sb.append(line).append("\n");
+            }
+            return sb.toString();
+        }
+    }
+}
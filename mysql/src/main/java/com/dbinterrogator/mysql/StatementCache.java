@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.mysql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of prepared statements belonging to a single connection.
+ *
+ * Statements are checked out with {@link #acquire(String, String)} and handed back
+ * with {@link #release(String, PreparedStatement)}, so a statement whose
+ * ResultSet is still being streamed is never re-executed underneath it.
+ *
+ * Only SQL whose text repeats, i.e. with its values bound as parameters,
+ * belongs in the cache.  SQL with identifiers formatted into it is mostly
+ * run once, and caching it would evict the statements that are reused, so
+ * it runs on a {@link #createStatement()} or a {@link #prepare(String, String)}
+ * statement instead.
+ */
+class StatementCache {
+
+    static final int DEFAULT_CAPACITY = 256;
+
+    private final Connection conn;
+    private final QueryMetrics metrics;
+    private final int capacity;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+    private int fetchSize = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    StatementCache(Connection conn, QueryMetrics metrics) {
+        this(conn, metrics, DEFAULT_CAPACITY);
+    }
+
+    StatementCache(Connection conn, QueryMetrics metrics, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Statement cache capacity must be positive: " + capacity);
+        }
+        this.conn = conn;
+        this.metrics = metrics;
+        this.capacity = capacity;
+        this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true);
+    }
+
+    /**
+     * Check out a forward-only statement for the supplied SQL, preparing it on a miss
+     *
+     * @param name Query name the prepare is recorded under
+     * @param sql SQL text
+     *
+     * @return PreparedStatement to be handed back through release
+     */
+    synchronized PreparedStatement acquire(String name, String sql) throws SQLException {
+        PreparedStatement stmt = statements.remove(sql);
+        if (stmt != null && !stmt.isClosed()) {
+            hits++;
+            stmt.clearParameters();
+        } else {
+            misses++;
+            stmt = metrics.prepare(name, conn, sql);
+        }
+        stmt.setFetchSize(fetchSize);
+        return stmt;
+    }
+
+    /**
+     * Create a forward-only plain statement outside the cache, for SQL
+     * formatted with identifiers and values whose result is small enough to
+     * buffer
+     *
+     * @return Statement for the caller to close
+     */
+    synchronized Statement createStatement() throws SQLException {
+        Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        stmt.setFetchSize(fetchSize);
+        return stmt;
+    }
+
+    /**
+     * Prepare a forward-only statement outside the cache, for SQL formatted
+     * with identifiers whose large result needs the cursor fetch only a
+     * prepared statement gets
+     *
+     * @param name Query name the prepare is recorded under
+     * @param sql SQL text
+     *
+     * @return PreparedStatement for the caller to close
+     */
+    synchronized PreparedStatement prepare(String name, String sql) throws SQLException {
+        PreparedStatement stmt = metrics.prepare(name, conn, sql);
+        stmt.setFetchSize(fetchSize);
+        return stmt;
+    }
+
+    /**
+     * Execute SQL on a statement from createStatement, recording its execution and fetch
+     *
+     * @param name Query name
+     * @param stmt Statement
+     * @param sql SQL text
+     *
+     * @return ResultSet
+     */
+    ResultSet executeQuery(String name, Statement stmt, String sql) throws SQLException {
+        return metrics.executeQuery(name, stmt, sql);
+    }
+
+    /**
+     * Execute an acquired statement, recording its execution and fetch
+     *
+     * @param name Query name
+     * @param stmt PreparedStatement with its parameters bound
+     *
+     * @return ResultSet
+     */
+    ResultSet executeQuery(String name, PreparedStatement stmt) throws SQLException {
+        return metrics.executeQuery(name, stmt);
+    }
+
+    QueryMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Return a statement to the cache once its ResultSet has been closed
+     *
+     * @param sql SQL text the statement was acquired for
+     * @param stmt PreparedStatement
+     */
+    synchronized void release(String sql, PreparedStatement stmt) {
+        PreparedStatement previous = statements.put(sql, stmt);
+        if (previous != null && previous != stmt) {
+            closeQuietly(previous);
+        }
+        if (statements.size() > capacity) {
+            Iterator<Map.Entry<String, PreparedStatement>> eldest = statements.entrySet().iterator();
+            PreparedStatement evicted = eldest.next().getValue();
+            eldest.remove();
+            evictions++;
+            closeQuietly(evicted);
+        }
+    }
+
+    /**
+     * Fetch size applied to every statement handed out
+     *
+     * @param fetchSize rows per round trip, Integer.MIN_VALUE to stream row by row, 0 to buffer the whole result
+     */
+    synchronized void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    synchronized int getFetchSize() {
+        return fetchSize;
+    }
+
+    Connection getConnection() {
+        return conn;
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    synchronized long getEvictions() {
+        return evictions;
+    }
+
+    synchronized int size() {
+        return statements.size();
+    }
+
+    /**
+     * Close every cached statement
+     */
+    synchronized void close() {
+        for (PreparedStatement stmt : statements.values()) {
+            closeQuietly(stmt);
+        }
+        statements.clear();
+    }
+
+    static void closeQuietly(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException sqle) {
+            System.err.println(sqle.getMessage());
+        }
+    }
+}
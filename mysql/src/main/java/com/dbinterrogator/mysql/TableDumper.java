@@ -0,0 +1,451 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.mysql;
+
+import com.dbinterrogator.service.DumpOptions;
+import com.dbinterrogator.service.DumpResult;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Writes primary key range chunks of tables to individual files.
+ *
+ * Each chunk is a bounded producer/consumer pipeline: a reader streams rows
+ * from a pooled connection and encodes them into multi-row INSERT
+ * statements, while a writer compresses them to disk.  A chunk is written to
+ * a .part file named after its key range and only renamed into place once
+ * complete, so an interrupted dump can be resumed by skipping every chunk
+ * whose final file exists.
+ */
+class TableDumper {
+
+    private static final String END = new String("");
+    //How often a blocked hand off checks whether the other side has gone
+    private static final long HAND_OFF_MILLIS = 100;
+
+    /**
+     * A primary key range of a table, or the whole table when the key cannot be ranged
+     */
+    static final class Chunk {
+        final String schema;
+        final String table;
+        final String keyColumn;
+        final long lower;
+        final long upper;
+
+        Chunk(String schema, String table, String keyColumn, long lower, long upper) {
+            this.schema = schema;
+            this.table = table;
+            this.keyColumn = keyColumn;
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        static Chunk wholeTable(String schema, String table) {
+            return new Chunk(schema, table, null, 0, 0);
+        }
+
+        @Override
+        public String toString() {
+            return schema + "." + table + (keyColumn == null ? "" : " " + keyColumn + " [" + lower + ", " + upper + "]");
+        }
+    }
+
+    private final ConnectionPool pool;
+    private final ExecutorService readers;
+    private final Path directory;
+    private final DumpOptions options;
+
+    TableDumper(ConnectionPool pool, ExecutorService readers, Path directory, DumpOptions options) {
+        this.pool = pool;
+        this.readers = readers;
+        this.directory = directory;
+        this.options = options;
+    }
+
+    /**
+     * File a table's DDL is written to
+     */
+    Path schemaFile(String schema, String table) {
+        return directory.resolve(fileName(schema) + "." + fileName(table) + "-schema.sql");
+    }
+
+    /**
+     * Width of the key ranges an earlier run split a table into, read back
+     * from the names of its completed chunk files.  A resumed dump must
+     * reuse it, as chunks of another width would overlap those already
+     * written.
+     *
+     * @return width, or null if no ranged chunk of the table was completed
+     */
+    Long chunkWidth(String schema, String table) throws IOException {
+        String prefix = fileName(schema) + "." + fileName(table) + ".";
+        Pattern range = Pattern.compile("(-?\\d+)_(-?\\d+)\\.sql" + Pattern.quote(options.getCompression().getExtension()));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, file -> file.getFileName().toString().startsWith(prefix))) {
+            for (Path file : files) {
+                Matcher matcher = range.matcher(file.getFileName().toString().substring(prefix.length()));
+                if (!matcher.matches()) {
+                    continue;
+                }
+                long lower = Long.parseLong(matcher.group(1));
+                long upper = Long.parseLong(matcher.group(2));
+                //Ranges clipped at either end of the key type are narrower than the rest
+                if (lower != Long.MIN_VALUE && upper != Long.MAX_VALUE) {
+                    return upper - lower + 1;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Dump every chunk, keeping at most the configured parallelism in flight
+     *
+     * @param chunks Chunks to dump
+     *
+     * @return DumpResult
+     */
+    DumpResult dump(List<Chunk> chunks) throws InterruptedException {
+        int parallelism = options.getParallelism() == 0 ? pool.getMaxSize() : options.getParallelism();
+        Semaphore inFlight = new Semaphore(parallelism);
+        ExecutorService writers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "mysql-dump-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int skipped = 0;
+        List<Future<Long>> written = new ArrayList<Future<Long>>();
+        try {
+            for (Chunk chunk : chunks) {
+                Path target = chunkFile(chunk);
+                if (options.isResume() && Files.exists(target)) {
+                    skipped++;
+                    continue;
+                }
+                inFlight.acquire();
+                BlockingQueue<String> queue = new ArrayBlockingQueue<String>(options.getQueueCapacity());
+                AtomicBoolean aborted = new AtomicBoolean(false);
+                Future<Long> reader = readers.submit(() -> read(chunk, queue, aborted));
+                written.add(writers.submit(() -> {
+                    try {
+                        return write(chunk, target, queue, aborted, reader);
+                    } finally {
+                        //Nothing takes from the queue any more, so the reader must not wait to end it
+                        aborted.set(true);
+                        inFlight.release();
+                    }
+                }));
+            }
+            int failed = 0;
+            long rows = 0;
+            for (Future<Long> chunk : written) {
+                try {
+                    rows += chunk.get();
+                } catch (ExecutionException ex) {
+                    failed++;
+                    System.err.println(ex.getCause().getMessage());
+                }
+            }
+            return new DumpResult(written.size() - failed, skipped, failed, rows);
+        } finally {
+            writers.shutdownNow();
+        }
+    }
+
+    /**
+     * Stream a chunk into the queue, always ending it with the END marker
+     */
+    private long read(Chunk chunk, BlockingQueue<String> queue, AtomicBoolean aborted) throws Exception {
+        long rows = 0;
+        try {
+            ConnectionPool.PooledConnection connection = pool.borrow();
+            try {
+                String table = Identifiers.quote(chunk.schema) + "." + Identifiers.quote(chunk.table);
+                String sql = "SELECT * FROM " + table;
+                if (chunk.keyColumn != null) {
+                    String key = Identifiers.quote(chunk.keyColumn);
+                    sql += " WHERE " + key + " BETWEEN ? AND ? ORDER BY " + key;
+                }
+                try (PreparedStatement stmt = connection.statements.prepare("dumpTables", sql)) {
+                    if (chunk.keyColumn != null) {
+                        stmt.setLong(1, chunk.lower);
+                        stmt.setLong(2, chunk.upper);
+                    }
+                    try (ResultSet rs = connection.statements.executeQuery("dumpTables", stmt)) {
+                        rows = encode(rs, Identifiers.quote(chunk.table), queue, aborted);
+                    }
+                }
+            } finally {
+                pool.giveBack(connection);
+            }
+        } finally {
+            end(queue, aborted);
+        }
+        return rows;
+    }
+
+    /**
+     * Queue the END marker even once interrupted, e.g. by shutdownNow on
+     * Disconnect, keeping the interrupt for the caller.  Gives up only once
+     * the writer has stopped taking from the queue.
+     */
+    private static void end(BlockingQueue<String> queue, AtomicBoolean aborted) {
+        boolean interrupted = false;
+        try {
+            while (!aborted.get()) {
+                try {
+                    if (queue.offer(END, HAND_OFF_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Next statement of a chunk, or END once the reader has finished without
+     * queueing it
+     */
+    private static String next(BlockingQueue<String> queue, Future<Long> reader) throws InterruptedException {
+        while (true) {
+            //Checked before polling, so an empty poll after it means nothing more can arrive
+            boolean finished = reader.isDone();
+            String statement = queue.poll(HAND_OFF_MILLIS, TimeUnit.MILLISECONDS);
+            if (statement != null) {
+                return statement;
+            }
+            if (finished) {
+                return END;
+            }
+        }
+    }
+
+    private long encode(ResultSet rs, String table, BlockingQueue<String> queue, AtomicBoolean aborted) throws SQLException, InterruptedException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columns = metaData.getColumnCount();
+        int[] types = new int[columns + 1];
+        StringBuilder insert = new StringBuilder("INSERT INTO ").append(table).append(" (");
+        for (int i = 1; i <= columns; i++) {
+            types[i] = metaData.getColumnType(i);
+            insert.append(i > 1 ? "," : "").append(Identifiers.quote(metaData.getColumnName(i)));
+        }
+        String prefix = insert.append(") VALUES\n").toString();
+
+        long rows = 0;
+        int batched = 0;
+        StringBuilder statement = new StringBuilder(prefix);
+        while (!aborted.get() && rs.next()) {
+            statement.append(batched == 0 ? "(" : ",\n(");
+            for (int i = 1; i <= columns; i++) {
+                if (i > 1) {
+                    statement.append(',');
+                }
+                appendValue(statement, rs, i, types[i]);
+            }
+            statement.append(')');
+            rows++;
+            if (++batched == options.getRowsPerInsert()) {
+                queue.put(statement.append(";\n").toString());
+                statement = new StringBuilder(prefix);
+                batched = 0;
+            }
+        }
+        if (batched > 0) {
+            queue.put(statement.append(";\n").toString());
+        }
+        return rows;
+    }
+
+    /**
+     * Drain the queue into the chunk file and move it into place once the reader succeeded
+     */
+    private long write(Chunk chunk, Path target, BlockingQueue<String> queue, AtomicBoolean aborted, Future<Long> reader) throws Exception {
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        IOException failure = null;
+        boolean ended = false;
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(options.getCompression().wrap(
+                new BufferedOutputStream(Files.newOutputStream(part), 1 << 16)), StandardCharsets.UTF_8))) {
+            out.write("-- " + chunk + "\n");
+            out.write("/*!40101 SET NAMES utf8mb4 */;\n");
+            String statement;
+            while ((statement = next(queue, reader)) != END) {
+                if (failure == null) {
+                    try {
+                        out.write(statement);
+                    } catch (IOException ex) {
+                        //Keep draining so the reader is never left blocked on a full queue
+                        failure = ex;
+                        aborted.set(true);
+                    }
+                }
+            }
+            ended = true;
+        } catch (IOException ex) {
+            if (failure == null) {
+                failure = ex;
+            }
+            aborted.set(true);
+            while (!ended && next(queue, reader) != END) {
+                //Drain so the reader can finish
+            }
+        }
+        try {
+            long rows = reader.get();
+            if (failure != null) {
+                throw failure;
+            }
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return rows;
+        } catch (Exception ex) {
+            Files.deleteIfExists(part);
+            Throwable cause = ex instanceof ExecutionException ? ex.getCause() : ex;
+            throw new IOException(chunk + ": " + cause.getMessage(), cause);
+        }
+    }
+
+    private static void appendValue(StringBuilder sb, ResultSet rs, int column, int type) throws SQLException {
+        switch (type) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+            case Types.NUMERIC:
+            case Types.DECIMAL: {
+                String value = rs.getString(column);
+                sb.append(value == null ? "NULL" : value);
+                break;
+            }
+            case Types.BIT:
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB: {
+                byte[] value = rs.getBytes(column);
+                if (value == null) {
+                    sb.append("NULL");
+                } else if (value.length == 0) {
+                    sb.append("''");
+                } else {
+                    sb.append("0x");
+                    for (byte b : value) {
+                        sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+                    }
+                }
+                break;
+            }
+            default: {
+                String value = rs.getString(column);
+                if (value == null) {
+                    sb.append("NULL");
+                } else {
+                    appendString(sb, value);
+                }
+            }
+        }
+    }
+
+    private static void appendString(StringBuilder sb, String value) {
+        sb.append('\'');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\u0000':
+                    sb.append("\\0");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\u001a':
+                    sb.append("\\Z");
+                    break;
+                case '\'':
+                    sb.append("\\'");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        sb.append('\'');
+    }
+
+    /**
+     * schema.table.lower_upper.sql for a key range, schema.table.sql for a whole table
+     */
+    private Path chunkFile(Chunk chunk) {
+        String range = chunk.keyColumn == null ? "" : chunk.lower + "_" + chunk.upper + ".";
+        return directory.resolve(fileName(chunk.schema) + "." + fileName(chunk.table) + "."
+                + range + "sql" + options.getCompression().getExtension());
+    }
+
+    private static String fileName(String identifier) {
+        try {
+            return URLEncoder.encode(identifier, "UTF-8");
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+/**
+* Retrieve the base tables of a schema, leaving out views
+*
+* @param  schema  Schema Name
+*/
+SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = ? AND TABLE_TYPE = 'BASE TABLE' ORDER BY TABLE_NAME
\ No newline at end of file
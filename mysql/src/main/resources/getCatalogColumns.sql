@@ -0,0 +1,10 @@
+/**
+* Retrieve every column of every table
+*
+* @param  schema  Schema Name, or NULL for all schemata
+* @param  schema  Schema Name, or NULL for all schemata
+*/
+SELECT TABLE_SCHEMA, TABLE_NAME, COLUMN_NAME, ORDINAL_POSITION, DATA_TYPE, COLUMN_TYPE, IS_NULLABLE, COLUMN_KEY, EXTRA
+FROM INFORMATION_SCHEMA.COLUMNS
+WHERE (? IS NULL OR TABLE_SCHEMA = ?)
+ORDER BY TABLE_SCHEMA, TABLE_NAME, ORDINAL_POSITION
\ No newline at end of file
@@ -0,0 +1,11 @@
+/**
+* Retrieve the columns of every primary, unique and foreign key
+*
+* @param  schema  Schema Name, or NULL for all schemata
+* @param  schema  Schema Name, or NULL for all schemata
+*/
+SELECT TABLE_SCHEMA, TABLE_NAME, CONSTRAINT_NAME, COLUMN_NAME,
+       REFERENCED_TABLE_SCHEMA, REFERENCED_TABLE_NAME, REFERENCED_COLUMN_NAME
+FROM INFORMATION_SCHEMA.KEY_COLUMN_USAGE
+WHERE (? IS NULL OR TABLE_SCHEMA = ?)
+ORDER BY TABLE_SCHEMA, TABLE_NAME, CONSTRAINT_NAME, ORDINAL_POSITION
\ No newline at end of file
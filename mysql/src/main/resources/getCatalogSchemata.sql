@@ -0,0 +1,10 @@
+/**
+* Retrieve every schema with its default character set and collation
+*
+* @param  schema  Schema Name, or NULL for all schemata
+* @param  schema  Schema Name, or NULL for all schemata
+*/
+SELECT SCHEMA_NAME, DEFAULT_CHARACTER_SET_NAME, DEFAULT_COLLATION_NAME
+FROM INFORMATION_SCHEMA.SCHEMATA
+WHERE (? IS NULL OR SCHEMA_NAME = ?)
+ORDER BY SCHEMA_NAME
\ No newline at end of file
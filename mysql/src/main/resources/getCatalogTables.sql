@@ -0,0 +1,10 @@
+/**
+* Retrieve every table with its engine, statistics and change markers
+*
+* @param  schema  Schema Name, or NULL for all schemata
+* @param  schema  Schema Name, or NULL for all schemata
+*/
+SELECT TABLE_SCHEMA, TABLE_NAME, TABLE_TYPE, ENGINE, TABLE_ROWS, AUTO_INCREMENT, CREATE_TIME, UPDATE_TIME
+FROM INFORMATION_SCHEMA.TABLES
+WHERE (? IS NULL OR TABLE_SCHEMA = ?)
+ORDER BY TABLE_SCHEMA, TABLE_NAME
\ No newline at end of file
@@ -0,0 +1,7 @@
+/**
+* Retrieve the columns of a table in ordinal order
+*
+* @param  schema  Schema Name
+* @param  table  Table Name
+*/
+SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ? ORDER BY ORDINAL_POSITION
\ No newline at end of file
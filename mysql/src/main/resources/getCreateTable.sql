@@ -0,0 +1,9 @@
+/**
+* Retrieve the DDL of a table or view
+*
+* @param  schema  Quoted Schema Name
+* @param  table  Quoted Table Name
+*
+* @return  Table name in the first column, DDL in the second
+*/
+SHOW CREATE TABLE %s.%s
\ No newline at end of file
@@ -1,9 +1,9 @@
 /**
 * Retrieve the maximum value from a column
 *
-* @param  column  Column Name
-* @param  schema  Schema Name
-* @param  table  Table Name
+* @param  column  Quoted Column Name
+* @param  schema  Quoted Schema Name
+* @param  table  Quoted Table Name
 *
 * @return  Max value stored in supplied column
 */
@@ -0,0 +1,12 @@
+/**
+* One branch of a UNION ALL retrieving the maximum value of many columns at once
+*
+* @param  index  Position of the column in the batch
+* @param  column  Quoted Column Name
+* @param  schema  Quoted Schema Name
+* @param  table  Quoted Table Name
+*
+* @return  Max value stored in supplied column, as text
+*/
+SELECT %d AS IDX, CAST(MAX(%s) AS CHAR) AS MAX_VALUE
+FROM %s.%s
\ No newline at end of file
@@ -0,0 +1,11 @@
+/**
+* Retrieve the minimum value from a column
+*
+* @param  column  Quoted Column Name
+* @param  schema  Quoted Schema Name
+* @param  table  Quoted Table Name
+*
+* @return  Min value stored in supplied column
+*/
+SELECT MIN(%s) AS MIN_VALUE
+FROM %s.%s
\ No newline at end of file
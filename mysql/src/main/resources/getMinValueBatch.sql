@@ -0,0 +1,12 @@
+/**
+* One branch of a UNION ALL retrieving the minimum value of many columns at once
+*
+* @param  index  Position of the column in the batch
+* @param  column  Quoted Column Name
+* @param  schema  Quoted Schema Name
+* @param  table  Quoted Table Name
+*
+* @return  Min value stored in supplied column, as text
+*/
+SELECT %d AS IDX, CAST(MIN(%s) AS CHAR) AS MIN_VALUE
+FROM %s.%s
\ No newline at end of file
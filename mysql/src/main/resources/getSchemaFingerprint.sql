@@ -0,0 +1,17 @@
+/**
+* Cheap fingerprint of the tables in a schema, changing whenever a table is
+* created, dropped, rebuilt or written to
+*
+* @param  schema  Schema Name, or NULL for all schemata
+* @param  schema  Schema Name, or NULL for all schemata
+* @param  schema  Schema Name, or NULL for all schemata
+* @param  schema  Schema Name, or NULL for all schemata
+*/
+SELECT CONCAT_WS(':',
+       (SELECT COUNT(*) FROM INFORMATION_SCHEMA.SCHEMATA WHERE (? IS NULL OR SCHEMA_NAME = ?)),
+       COUNT(*),
+       COALESCE(SUM(CRC32(CONCAT_WS('#', TABLE_SCHEMA, TABLE_NAME, CREATE_TIME, UPDATE_TIME))), 0),
+       COALESCE(MAX(CREATE_TIME), ''),
+       COALESCE(MAX(UPDATE_TIME), '')) AS FINGERPRINT
+FROM INFORMATION_SCHEMA.TABLES
+WHERE (? IS NULL OR TABLE_SCHEMA = ?)
\ No newline at end of file
@@ -0,0 +1,16 @@
+/**
+* Retrieve a page of the primary key columns of every table in schema, in
+* table and ordinal order after a given table and position
+*
+* @param  schema  Schema Name
+* @param  table  Table Name of the last row of the previous page, '' for the first page
+* @param  position  Ordinal position of the last row of the previous page, 0 for the first page
+* @param  limit  Page size
+*/
+SELECT TABLE_NAME, ORDINAL_POSITION, COLUMN_NAME
+FROM INFORMATION_SCHEMA.COLUMNS
+WHERE TABLE_SCHEMA = ?
+AND COLUMN_KEY = 'PRI'
+AND (TABLE_NAME, ORDINAL_POSITION) > (?, ?)
+ORDER BY TABLE_NAME, ORDINAL_POSITION
+LIMIT ?
\ No newline at end of file
@@ -0,0 +1,12 @@
+/**
+* Retrieve every auto increment column with the next value its table will allocate
+*
+* @return  AUTO_INCREMENT is NULL where the server has no statistics for the table
+*/
+SELECT c.TABLE_SCHEMA, c.TABLE_NAME, c.COLUMN_NAME, c.DATA_TYPE, c.COLUMN_TYPE, t.AUTO_INCREMENT
+FROM INFORMATION_SCHEMA.COLUMNS c
+JOIN INFORMATION_SCHEMA.TABLES t
+  ON t.TABLE_SCHEMA = c.TABLE_SCHEMA
+ AND t.TABLE_NAME = c.TABLE_NAME
+WHERE c.EXTRA LIKE '%auto_increment%'
+AND t.TABLE_TYPE = 'BASE TABLE'
\ No newline at end of file
@@ -0,0 +1,12 @@
+/**
+* Row count and order independent checksum of a whole table
+*
+* @param  columns  Quoted columns followed by their ISNULL flags, as CONCAT_WS arguments
+* @param  schema  Quoted Schema Name
+* @param  table  Quoted Table Name
+*
+* @return  Row count and checksum, the exact sum of a 64 bit hash per row, so duplicate rows never cancel out
+*/
+SELECT COUNT(*) AS ROW_COUNT,
+COALESCE(SUM(CAST(CONV(LEFT(MD5(CONCAT_WS('#', %s)), 16), 16, 10) AS UNSIGNED)), 0) AS CHECKSUM
+FROM %s.%s
\ No newline at end of file
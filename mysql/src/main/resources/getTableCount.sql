@@ -0,0 +1,10 @@
+/**
+* Count the base tables in a schema
+*
+* @param  schema  Schema Name, or NULL for all schemata
+* @param  schema  Schema Name, or NULL for all schemata
+*/
+SELECT COUNT(*)
+FROM INFORMATION_SCHEMA.TABLES
+WHERE TABLE_TYPE = 'BASE TABLE'
+AND (? IS NULL OR TABLE_SCHEMA = ?)
\ No newline at end of file
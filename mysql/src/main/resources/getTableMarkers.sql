@@ -0,0 +1,15 @@
+/**
+* Retrieve the change markers of the base tables created, rebuilt or written
+* to since a point in time
+*
+* @param  schema  Schema Name, or NULL for all schemata
+* @param  schema  Schema Name, or NULL for all schemata
+* @param  since   Earliest CREATE_TIME or UPDATE_TIME, or NULL for every table
+* @param  since   Earliest CREATE_TIME or UPDATE_TIME, or NULL for every table
+* @param  since   Earliest CREATE_TIME or UPDATE_TIME, or NULL for every table
+*/
+SELECT TABLE_SCHEMA, TABLE_NAME, CREATE_TIME, UPDATE_TIME, AUTO_INCREMENT
+FROM INFORMATION_SCHEMA.TABLES
+WHERE TABLE_TYPE = 'BASE TABLE'
+AND (? IS NULL OR TABLE_SCHEMA = ?)
+AND (? IS NULL OR CREATE_TIME >= ? OR UPDATE_TIME >= ?)
\ No newline at end of file
@@ -1,6 +1,12 @@
 /**
-* Retrieve list of tables in schema
+* Retrieve a page of the tables in schema, in name order after a given name
 *
 * @param  schema  Schema Name
+* @param  after  Last table name of the previous page, '' for the first page
+* @param  limit  Page size
 */
-SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = ?
\ No newline at end of file
+SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES
+WHERE TABLE_SCHEMA = ?
+AND TABLE_NAME > ?
+ORDER BY TABLE_NAME
+LIMIT ?
\ No newline at end of file
@@ -21,12 +21,42 @@
  */
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.dbinterrogator.mysql.MySQLInterrogator;
+import com.dbinterrogator.service.CatalogSnapshot;
+import com.dbinterrogator.service.ColumnReference;
+import com.dbinterrogator.service.DependencyGraph;
+import com.dbinterrogator.service.DumpCompression;
+import com.dbinterrogator.service.DumpOptions;
+import com.dbinterrogator.service.DumpResult;
+import com.dbinterrogator.service.ForeignKey;
+import com.dbinterrogator.service.InterrogatorRegistry;
+import com.dbinterrogator.service.InterrogatorService;
+import com.dbinterrogator.service.TableCapacity;
+import com.dbinterrogator.service.TableComparator;
+import com.dbinterrogator.service.TableMarkers;
+import com.dbinterrogator.service.TableReference;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 class MySQLInterrogatorTest {
 
@@ -43,6 +73,56 @@ class MySQLInterrogatorTest {
         interrogator.Connect(hostname,username,password);
     }
 
+    @Test
+    void newInstanceTest() {
+        assertTrue(InterrogatorService.newInstance("mysql") instanceof MySQLInterrogator);
+        assertTrue(InterrogatorService.newInstance("com.dbinterrogator.mysql.MySQLInterrogator") instanceof MySQLInterrogator);
+        assertNotSame(InterrogatorService.newInstance("mysql"), InterrogatorService.newInstance("mysql"));
+        assertNull(InterrogatorService.newInstance("oracle"));
+        assertTrue(InterrogatorRegistry.getDatabaseTypes().contains("mysql"));
+    }
+
+    @Test
+    void getTableMarkersTest() {
+        TableMarkers all = interrogator.getTableMarkers("mysql", null);
+        assertTrue(all.getTableCount() > 0);
+        assertEquals(all.getTableCount(), all.getMarkers().size());
+        TableMarkers none = interrogator.getTableMarkers("mysql", Instant.now().plus(1, ChronoUnit.DAYS));
+        assertEquals(all.getTableCount(), none.getTableCount());
+        assertTrue(none.getMarkers().isEmpty());
+        assertTrue(interrogator.watch("mysql").poll().isEmpty());
+    }
+
+    @Test
+    void pagedTablesTest() {
+        Properties options = new Properties();
+        options.setProperty("page.size", "10");
+        MySQLInterrogator paged = new MySQLInterrogator();
+        paged.Connect(hostname, username, password, options);
+        ArrayList<String> tables = paged.getTables("mysql");
+        assertTrue(tables.size() > 10);
+        assertEquals(tables.size(), new HashSet<String>(tables).size());
+        assertEquals(new HashSet<String>(interrogator.getTables("mysql")), new HashSet<String>(tables));
+        Map<String, ArrayList<String>> keys = paged.getIdentityColumns("mysql", tables);
+        for (String table : tables) {
+            assertEquals(interrogator.getIdentityColumns("mysql", table), keys.get(table));
+        }
+        paged.Disconnect();
+    }
+
+    @Test
+    void getForeignKeysTest() {
+        TableReference city = new TableReference("sakila", "city");
+        List<ForeignKey> foreignKeys = interrogator.getForeignKeys("sakila");
+        assertTrue(foreignKeys.stream().anyMatch(key -> key.getTable().equals(city)
+                && key.getReferencedTable().equals(new TableReference("sakila", "country"))
+                && key.getColumns().equals(Arrays.asList("country_id"))));
+        DependencyGraph graph = interrogator.getDependencyGraph("sakila");
+        assertEquals(0, graph.getWave(new TableReference("sakila", "country")));
+        assertTrue(graph.getWave(new TableReference("sakila", "address")) > graph.getWave(city));
+        System.out.println(graph.getWaves());
+    }
+
     @Test
     void getSchemataTest() {
         ArrayList<String> schemata = interrogator.getSchemata();
@@ -56,4 +136,88 @@ class MySQLInterrogatorTest {
         assertEquals("CHARACTER_SETS", tables.get(0));
         System.out.println(tables);
     }
+
+    @Test
+    void statementCacheTest() {
+        long hits = interrogator.getStatementCacheHits();
+        interrogator.getTables("information_schema");
+        interrogator.getTables("information_schema");
+        assertTrue(interrogator.getStatementCacheHits() > hits);
+    }
+
+    @Test
+    void getCatalogSnapshotTest() {
+        CatalogSnapshot snapshot = interrogator.getCatalogSnapshot("information_schema");
+        assertEquals(interrogator.getTables("information_schema").size(), snapshot.getSchema("information_schema").getTableCount());
+        assertNotNull(snapshot.getColumn("information_schema", "TABLES", "TABLE_NAME"));
+    }
+
+    @Test
+    void streamTablesTest() {
+        try (Stream<String> tables = interrogator.streamTables("information_schema")) {
+            assertEquals(interrogator.getTables("information_schema"), tables.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void getTablesConcurrentTest() {
+        ArrayList<String> schemata = interrogator.getSchemata();
+        Map<String, ArrayList<String>> tables = interrogator.getTables(schemata);
+        assertEquals(schemata, new ArrayList<String>(tables.keySet()));
+        assertEquals(interrogator.getTables("information_schema"), tables.get("information_schema"));
+    }
+
+    @Test
+    void getTableCapacityTest() {
+        List<TableCapacity> capacity = interrogator.getTableCapacity();
+        for (int i = 1; i < capacity.size(); i++) {
+            //Unknown capacity sorts first
+            Double previous = capacity.get(i - 1).getPercentUsed();
+            Double current = capacity.get(i).getPercentUsed();
+            assertTrue(previous == null || current != null && previous >= current);
+        }
+    }
+
+    @Test
+    void getMaxValuesTest() {
+        ColumnReference tableName = new ColumnReference("information_schema", "TABLES", "TABLE_NAME");
+        ColumnReference schemaName = new ColumnReference("information_schema", "SCHEMATA", "SCHEMA_NAME");
+        Map<ColumnReference, String> maxValues = interrogator.getMaxValues(Arrays.asList(tableName, schemaName));
+        assertEquals(interrogator.getMaxValue("TABLE_NAME", "information_schema", "TABLES"), maxValues.get(tableName));
+        assertEquals(interrogator.getMaxValue("SCHEMA_NAME", "information_schema", "SCHEMATA"), maxValues.get(schemaName));
+    }
+
+    @Test
+    void getCreateTablesTest() {
+        ArrayList<String> tables = interrogator.getTables("information_schema");
+        Map<String, String> ddl = new ConcurrentHashMap<String, String>();
+        interrogator.getCreateTables("information_schema", tables, ddl::put);
+        assertEquals(tables.size(), ddl.size());
+        assertEquals(interrogator.getCreateTable("information_schema", "TABLES"), ddl.get("TABLES"));
+    }
+
+    @Test
+    void getMinValueTest() {
+        ArrayList<String> schemata = interrogator.getSchemata();
+        assertEquals(schemata.get(0), interrogator.getMinValue("SCHEMA_NAME", "information_schema", "SCHEMATA"));
+    }
+
+    @Test
+    void dumpTablesTest() throws IOException {
+        Path directory = Files.createTempDirectory("dump");
+        DumpOptions options = new DumpOptions();
+        options.setCompression(DumpCompression.NONE);
+        DumpResult result = interrogator.dumpTables("information_schema", Arrays.asList("SCHEMATA"), directory, options);
+        assertEquals(1, result.getChunksWritten());
+        assertEquals(0, result.getChunksFailed());
+        DumpResult resumed = interrogator.dumpTables("information_schema", Arrays.asList("SCHEMATA"), directory, options);
+        assertEquals(1, resumed.getChunksSkipped());
+    }
+
+    @Test
+    void compareTablesTest() {
+        TableComparator comparator = new TableComparator(interrogator, interrogator);
+        assertTrue(comparator.compare("information_schema", Arrays.asList("SCHEMATA", "ENGINES")).isEmpty());
+        assertEquals(2, comparator.getRangesCompared());
+    }
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.mysql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class IdentifiersTest {
+
+    @Test
+    void quoteTest() {
+        assertEquals("`actor`", Identifiers.quote("actor"));
+        assertEquals("`a``b`", Identifiers.quote("a`b"));
+        assertEquals("`x`` FROM t; DROP TABLE y; --`", Identifiers.quote("x` FROM t; DROP TABLE y; --"));
+    }
+
+    @Test
+    void rejectInvalidTest() {
+        assertThrows(IllegalArgumentException.class, () -> Identifiers.quote(""));
+        assertThrows(IllegalArgumentException.class, () -> Identifiers.quote(null));
+        assertThrows(IllegalArgumentException.class, () -> Identifiers.quote("trailing "));
+        assertThrows(IllegalArgumentException.class, () -> Identifiers.quote(new String(new char[65]).replace('\u0000', 'a')));
+    }
+}
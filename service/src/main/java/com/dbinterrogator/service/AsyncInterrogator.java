@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Runs a blocking {@link InterrogatorService} on an executor.
+ *
+ * JDBC has no non-blocking API, so every running call still occupies a
+ * thread; what the executor bounds is how many run at once.  The rest
+ * wait in its queue as plain futures, so thousands of interrogations,
+ * across any number of servers sharing one executor, need no more threads
+ * than the executor has.  Size it to the connections available, e.g. the
+ * sum of pool.maxSize, as a running call beyond that only blocks waiting
+ * for a connection.
+ *
+ * A cancelled or timed out call is interrupted.  The MySQL driver does not
+ * abandon a query on interrupt, so a call already waiting on the server
+ * holds its thread until the query returns or socketTimeout expires; its
+ * result is discarded.
+ */
+public class AsyncInterrogator implements AsyncInterrogatorService {
+
+    private final InterrogatorService delegate;
+    private final ExecutorService executor;
+    private final long timeoutNanos;
+
+    /**
+     * @param delegate Blocking interrogator
+     * @param executor Executor calls run on, may be shared between interrogators
+     */
+    public AsyncInterrogator(InterrogatorService delegate, ExecutorService executor) {
+        this(delegate, executor, 0);
+    }
+
+    private AsyncInterrogator(InterrogatorService delegate, ExecutorService executor, long timeoutNanos) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.timeoutNanos = timeoutNanos;
+    }
+
+    @Override
+    public CompletableFuture<Void> Connect(String hostname, String username, String password, Properties options) {
+        return call(interrogator -> {
+            interrogator.Connect(hostname, username, password, options);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> Disconnect() {
+        return call(interrogator -> {
+            interrogator.Disconnect();
+            return null;
+        });
+    }
+
+    @Override
+    public AsyncInterrogatorService withTimeout(long timeout, TimeUnit unit) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("Timeout must be positive: " + timeout);
+        }
+        return new AsyncInterrogator(delegate, executor, unit.toNanos(timeout));
+    }
+
+    @Override
+    public CompletableFuture<ArrayList<String>> getUsers() {
+        return call(InterrogatorService::getUsers);
+    }
+
+    @Override
+    public CompletableFuture<ArrayList<String>> getSchemata() {
+        return call(InterrogatorService::getSchemata);
+    }
+
+    @Override
+    public CompletableFuture<ArrayList<String>> getDatabases(String schema) {
+        return call(interrogator -> interrogator.getDatabases(schema));
+    }
+
+    @Override
+    public CompletableFuture<ArrayList<String>> getTables(String database) {
+        return call(interrogator -> interrogator.getTables(database));
+    }
+
+    @Override
+    public CompletableFuture<String> getCreateTable(String database, String table) {
+        return call(interrogator -> interrogator.getCreateTable(database, table));
+    }
+
+    @Override
+    public CompletableFuture<ArrayList<String>> getIdentityColumns(String schema, String table) {
+        return call(interrogator -> interrogator.getIdentityColumns(schema, table));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, ArrayList<String>>> getTables(Collection<String> databases) {
+        return call(interrogator -> interrogator.getTables(databases));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, ArrayList<String>>> getIdentityColumns(String schema, Collection<String> tables) {
+        return call(interrogator -> interrogator.getIdentityColumns(schema, tables));
+    }
+
+    @Override
+    public CompletableFuture<Void> getCreateTables(String database, Collection<String> tables, BiConsumer<String, String> consumer) {
+        return call(interrogator -> {
+            interrogator.getCreateTables(database, tables, consumer);
+            return null;
+        });
+    }
+
+    @Override
+    public Flow.Publisher<String> streamSchemata() {
+        return new StreamPublisher<String>(delegate::streamSchemata, executor);
+    }
+
+    @Override
+    public Flow.Publisher<String> streamTables(String database) {
+        return new StreamPublisher<String>(() -> delegate.streamTables(database), executor);
+    }
+
+    @Override
+    public Flow.Publisher<String> streamIdentityColumns(String schema, String table) {
+        return new StreamPublisher<String>(() -> delegate.streamIdentityColumns(schema, table), executor);
+    }
+
+    @Override
+    public CompletableFuture<CatalogSnapshot> getCatalogSnapshot() {
+        return call(InterrogatorService::getCatalogSnapshot);
+    }
+
+    @Override
+    public CompletableFuture<CatalogSnapshot> getCatalogSnapshot(String schema) {
+        return call(interrogator -> interrogator.getCatalogSnapshot(schema));
+    }
+
+    @Override
+    public CompletableFuture<String> getSchemaFingerprint(String schema) {
+        return call(interrogator -> interrogator.getSchemaFingerprint(schema));
+    }
+
+    @Override
+    public CompletableFuture<String> getMaxValue(String column, String schema, String table) {
+        return call(interrogator -> interrogator.getMaxValue(column, schema, table));
+    }
+
+    @Override
+    public CompletableFuture<String> getMinValue(String column, String schema, String table) {
+        return call(interrogator -> interrogator.getMinValue(column, schema, table));
+    }
+
+    @Override
+    public CompletableFuture<Map<ColumnReference, String>> getMaxValues(List<ColumnReference> columns) {
+        return call(interrogator -> interrogator.getMaxValues(columns));
+    }
+
+    @Override
+    public CompletableFuture<Map<ColumnReference, String>> getMinValues(List<ColumnReference> columns) {
+        return call(interrogator -> interrogator.getMinValues(columns));
+    }
+
+    @Override
+    public CompletableFuture<List<TableCapacity>> getTableCapacity() {
+        return call(InterrogatorService::getTableCapacity);
+    }
+
+    @Override
+    public CompletableFuture<DumpResult> dumpTables(String database, Collection<String> tables, Path directory, DumpOptions options) {
+        return call(interrogator -> interrogator.dumpTables(database, tables, directory, options));
+    }
+
+    @Override
+    public CompletableFuture<Map<KeyRange, TableChecksum>> getChecksums(List<KeyRange> ranges) {
+        return call(interrogator -> interrogator.getChecksums(ranges));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> call(Function<InterrogatorService, T> call) {
+        CompletableFuture<T> result = new CompletableFuture<T>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                result.complete(call.apply(delegate));
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        //Cancellation and timeouts settle the future first, then stop the work behind it
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled() || error instanceof TimeoutException) {
+                task.cancel(true);
+            }
+        });
+        if (timeoutNanos > 0) {
+            result.orTimeout(timeoutNanos, TimeUnit.NANOSECONDS);
+        }
+        return result;
+    }
+}
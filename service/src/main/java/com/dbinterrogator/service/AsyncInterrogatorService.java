@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Non-blocking counterpart of {@link InterrogatorService}.
+ *
+ * Calls return straight away and complete on an executor, so a caller can
+ * have any number in flight without a thread of its own for each.
+ * Cancelling a future stops a call that has not started and interrupts
+ * one that has.  Streams are published with back pressure: rows are only
+ * fetched as the subscriber requests them.
+ */
+public interface AsyncInterrogatorService {
+
+    //Connection Related
+    public CompletableFuture<Void> Connect(String hostname, String username, String password, Properties options);
+    public CompletableFuture<Void> Disconnect();
+
+    //Timeouts, calls made through the returned view fail with a TimeoutException and are cancelled once the timeout runs out
+    public AsyncInterrogatorService withTimeout(long timeout, TimeUnit unit);
+
+    //Security Related
+    public CompletableFuture<ArrayList<String>> getUsers();
+
+    //Structure Related
+    public CompletableFuture<ArrayList<String>> getSchemata();
+    public CompletableFuture<ArrayList<String>> getDatabases(String schema);
+    public CompletableFuture<ArrayList<String>> getTables(String database);
+    public CompletableFuture<String>            getCreateTable(String database, String table);
+    public CompletableFuture<ArrayList<String>> getIdentityColumns(String schema, String table);
+    public CompletableFuture<Map<String, ArrayList<String>>> getTables(Collection<String> databases);
+    public CompletableFuture<Map<String, ArrayList<String>>> getIdentityColumns(String schema, Collection<String> tables);
+    public CompletableFuture<Void>              getCreateTables(String database, Collection<String> tables, BiConsumer<String, String> consumer);
+
+    //Streaming, each subscription opens its own stream and closes it on completion or cancellation
+    public Flow.Publisher<String> streamSchemata();
+    public Flow.Publisher<String> streamTables(String database);
+    public Flow.Publisher<String> streamIdentityColumns(String schema, String table);
+
+    //Catalog Related
+    public CompletableFuture<CatalogSnapshot> getCatalogSnapshot();
+    public CompletableFuture<CatalogSnapshot> getCatalogSnapshot(String schema);
+    public CompletableFuture<String>          getSchemaFingerprint(String schema);
+
+    //Data related
+    public CompletableFuture<String> getMaxValue(String column, String schema, String table);
+    public CompletableFuture<String> getMinValue(String column, String schema, String table);
+    public CompletableFuture<Map<ColumnReference, String>> getMaxValues(List<ColumnReference> columns);
+    public CompletableFuture<Map<ColumnReference, String>> getMinValues(List<ColumnReference> columns);
+    public CompletableFuture<List<TableCapacity>> getTableCapacity();
+    public CompletableFuture<DumpResult> dumpTables(String database, Collection<String> tables, Path directory, DumpOptions options);
+
+    //Checksum Related
+    public CompletableFuture<Map<KeyRange, TableChecksum>> getChecksums(List<KeyRange> ranges);
+
+    //Anything else, run against the blocking interrogator on the same executor
+    public <T> CompletableFuture<T> call(Function<InterrogatorService, T> call);
+}
@@ -0,0 +1,459 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Caching decorator for any {@link InterrogatorService}.
+ *
+ * Metadata results are kept in a bounded LRU cache with a per-method time to
+ * live.  When an entry expires it is not simply re-fetched: the schema
+ * fingerprint it was loaded under is compared with the current one and, if
+ * nothing changed, the entry is renewed for another time to live.  Entries
+ * loaded through the bulk methods carry no fingerprint, to avoid one
+ * fingerprint query per key, and are simply reloaded on expiry.  Streams,
+ * data probes and connection calls always go straight to the delegate.
+ */
+public class CachingInterrogator implements InterrogatorService {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 10000;
+    public static final long DEFAULT_TIME_TO_LIVE = TimeUnit.SECONDS.toNanos(30);
+    public static final long DEFAULT_FINGERPRINT_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    //Scope of entries that have no fingerprint to revalidate against
+    private static final String UNSCOPED = "\u0000";
+
+    private final InterrogatorService delegate;
+    private final int maximumSize;
+    private final long defaultTimeToLive;
+    private final Map<String, Long> timeToLive = new HashMap<String, Long>();
+    private final LinkedHashMap<List<Object>, Entry> entries = new LinkedHashMap<List<Object>, Entry>(16, 0.75f, true);
+    private final Map<String, Fingerprint> fingerprints = new HashMap<String, Fingerprint>();
+    private long fingerprintInterval = DEFAULT_FINGERPRINT_INTERVAL;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long revalidations = 0;
+
+    public CachingInterrogator(InterrogatorService delegate) {
+        this(delegate, DEFAULT_MAXIMUM_SIZE, DEFAULT_TIME_TO_LIVE, TimeUnit.NANOSECONDS);
+    }
+
+    public CachingInterrogator(InterrogatorService delegate, int maximumSize, long timeToLive, TimeUnit unit) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+        this.delegate = delegate;
+        this.maximumSize = maximumSize;
+        this.defaultTimeToLive = unit.toNanos(timeToLive);
+    }
+
+    /**
+     * Override the time to live of a single method
+     *
+     * @param method Method name, e.g. getTables
+     * @param timeToLive Time to live, 0 disables caching for the method
+     * @param unit TimeUnit
+     */
+    public synchronized void setTimeToLive(String method, long timeToLive, TimeUnit unit) {
+        this.timeToLive.put(method, unit.toNanos(timeToLive));
+    }
+
+    /**
+     * Minimum interval between fingerprint queries for the same schema
+     *
+     * @param interval Interval
+     * @param unit TimeUnit
+     */
+    public synchronized void setFingerprintInterval(long interval, TimeUnit unit) {
+        this.fingerprintInterval = unit.toNanos(interval);
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        fingerprints.clear();
+    }
+
+    /**
+     * Drop every entry loaded for a schema
+     *
+     * @param schema Schema Name
+     */
+    public synchronized void invalidate(String schema) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (schema.equals(iterator.next().scope)) {
+                iterator.remove();
+            }
+        }
+        fingerprints.remove(schema);
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return expired entries renewed because their fingerprint was unchanged
+     */
+    public synchronized long getRevalidations() {
+        return revalidations;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void Connect(String hostname, String username, String password) {
+        invalidateAll();
+        delegate.Connect(hostname, username, password);
+    }
+
+    @Override
+    public void Connect(String hostname, String username, String password, Properties options) {
+        invalidateAll();
+        delegate.Connect(hostname, username, password, options);
+    }
+
+    @Override
+    public void Disconnect() {
+        invalidateAll();
+        delegate.Disconnect();
+    }
+
+    @Override
+    public ArrayList<String> getUsers() {
+        return copy(cached("getUsers", UNSCOPED, delegate::getUsers));
+    }
+
+    @Override
+    public ArrayList<String> getSchemata() {
+        return copy(cached("getSchemata", null, delegate::getSchemata));
+    }
+
+    @Override
+    public ArrayList<String> getDatabases(String schema) {
+        return copy(cached("getDatabases", UNSCOPED, () -> delegate.getDatabases(schema), schema));
+    }
+
+    @Override
+    public ArrayList<String> getTables(String database) {
+        return copy(cached("getTables", database, () -> delegate.getTables(database), database));
+    }
+
+    @Override
+    public String getCreateTable(String database, String table) {
+        return cached("getCreateTable", database, () -> delegate.getCreateTable(database, table), database, table);
+    }
+
+    @Override
+    public ArrayList<String> getIdentityColumns(String schema, String table) {
+        return copy(cached("getIdentityColumns", schema, () -> delegate.getIdentityColumns(schema, table), schema, table));
+    }
+
+    @Override
+    public Map<String, ArrayList<String>> getTables(Collection<String> databases) {
+        Map<String, ArrayList<String>> results = new LinkedHashMap<String, ArrayList<String>>();
+        List<String> missing = new ArrayList<String>();
+        for (String database : databases) {
+            ArrayList<String> tables = lookup("getTables", database, database);
+            results.put(database, tables);
+            if (tables == null) {
+                missing.add(database);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<String, ArrayList<String>> loaded = delegate.getTables(missing);
+            for (Map.Entry<String, ArrayList<String>> tables : loaded.entrySet()) {
+                store("getTables", tables.getKey(), null, tables.getValue(), tables.getKey());
+            }
+            results.putAll(loaded);
+        }
+        return copy(results);
+    }
+
+    @Override
+    public Map<String, ArrayList<String>> getIdentityColumns(String schema, Collection<String> tables) {
+        Map<String, ArrayList<String>> results = new LinkedHashMap<String, ArrayList<String>>();
+        List<String> missing = new ArrayList<String>();
+        for (String table : tables) {
+            ArrayList<String> columns = lookup("getIdentityColumns", schema, schema, table);
+            results.put(table, columns);
+            if (columns == null) {
+                missing.add(table);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<String, ArrayList<String>> loaded = delegate.getIdentityColumns(schema, missing);
+            for (Map.Entry<String, ArrayList<String>> columns : loaded.entrySet()) {
+                store("getIdentityColumns", schema, null, columns.getValue(), schema, columns.getKey());
+            }
+            results.putAll(loaded);
+        }
+        return copy(results);
+    }
+
+    @Override
+    public void getCreateTables(String database, Collection<String> tables, BiConsumer<String, String> consumer) {
+        delegate.getCreateTables(database, tables, consumer);
+    }
+
+    @Override
+    public void setFetchSize(int fetchSize) {
+        delegate.setFetchSize(fetchSize);
+    }
+
+    @Override
+    public Stream<String> streamSchemata() {
+        return delegate.streamSchemata();
+    }
+
+    @Override
+    public Stream<String> streamTables(String database) {
+        return delegate.streamTables(database);
+    }
+
+    @Override
+    public Stream<String> streamIdentityColumns(String schema, String table) {
+        return delegate.streamIdentityColumns(schema, table);
+    }
+
+    @Override
+    public CatalogSnapshot getCatalogSnapshot() {
+        return cached("getCatalogSnapshot", null, delegate::getCatalogSnapshot);
+    }
+
+    @Override
+    public CatalogSnapshot getCatalogSnapshot(String schema) {
+        return cached("getCatalogSnapshot", schema, () -> delegate.getCatalogSnapshot(schema), schema);
+    }
+
+    @Override
+    public String getSchemaFingerprint(String schema) {
+        return delegate.getSchemaFingerprint(schema);
+    }
+
+    @Override
+    public TableMarkers getTableMarkers(String schema, Instant changedSince) {
+        return delegate.getTableMarkers(schema, changedSince);
+    }
+
+    @Override
+    public List<ForeignKey> getForeignKeys(String schema) {
+        List<ForeignKey> foreignKeys = cached("getForeignKeys", schema, () -> delegate.getForeignKeys(schema), schema);
+        return foreignKeys == null ? null : new ArrayList<ForeignKey>(foreignKeys);
+    }
+
+    @Override
+    public String getMaxValue(String column, String schema, String table) {
+        return delegate.getMaxValue(column, schema, table);
+    }
+
+    @Override
+    public String getMinValue(String column, String schema, String table) {
+        return delegate.getMinValue(column, schema, table);
+    }
+
+    @Override
+    public Map<ColumnReference, String> getMaxValues(List<ColumnReference> columns) {
+        return delegate.getMaxValues(columns);
+    }
+
+    @Override
+    public Map<ColumnReference, String> getMinValues(List<ColumnReference> columns) {
+        return delegate.getMinValues(columns);
+    }
+
+    @Override
+    public List<TableCapacity> getTableCapacity() {
+        List<TableCapacity> capacity = cached("getTableCapacity", UNSCOPED, delegate::getTableCapacity);
+        return capacity == null ? null : new ArrayList<TableCapacity>(capacity);
+    }
+
+    @Override
+    public DumpResult dumpTables(String database, Collection<String> tables, Path directory, DumpOptions options) {
+        return delegate.dumpTables(database, tables, directory, options);
+    }
+
+    @Override
+    public void setMetricsRegistry(MetricsRegistry registry) {
+        delegate.setMetricsRegistry(registry);
+    }
+
+    @Override
+    public Map<KeyRange, TableChecksum> getChecksums(List<KeyRange> ranges) {
+        return delegate.getChecksums(ranges);
+    }
+
+    /**
+     * Return a cached value, loading it through the delegate on a miss
+     *
+     * @param method Method name, used for the time to live
+     * @param scope Schema whose fingerprint guards the entry, null for the whole server or UNSCOPED for none
+     * @param loader Delegate call
+     * @param arguments Method arguments
+     */
+    private <T> T cached(String method, String scope, Supplier<T> loader, Object... arguments) {
+        T value = lookup(method, scope, arguments);
+        if (value == null) {
+            //Fingerprint first, a change racing the load then forces a reload rather than hiding it
+            String fingerprint = UNSCOPED.equals(scope) ? null : fingerprint(scope);
+            value = loader.get();
+            store(method, scope, fingerprint, value, arguments);
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T lookup(String method, String scope, Object... arguments) {
+        List<Object> key = key(method, arguments);
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+            if (System.nanoTime() < entry.expiresAt) {
+                hits++;
+                return (T) entry.value;
+            }
+        }
+        //Expired, renew it if the schema is unchanged since the entry was loaded, entries without a fingerprint are reloaded
+        String fingerprint = UNSCOPED.equals(scope) || entry.fingerprint == null ? null : fingerprint(scope);
+        synchronized (this) {
+            if (fingerprint != null && fingerprint.equals(entry.fingerprint)) {
+                entry.expiresAt = System.nanoTime() + timeToLive(method);
+                revalidations++;
+                hits++;
+                return (T) entry.value;
+            }
+            entries.remove(key);
+            misses++;
+        }
+        return null;
+    }
+
+    private void store(String method, String scope, String fingerprint, Object value, Object... arguments) {
+        long ttl = timeToLive(method);
+        if (value == null || ttl <= 0) {
+            return;
+        }
+        synchronized (this) {
+            entries.put(key(method, arguments), new Entry(value, scope, fingerprint, System.nanoTime() + ttl));
+            if (entries.size() > maximumSize) {
+                Iterator<Entry> eldest = entries.values().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions++;
+            }
+        }
+    }
+
+    private String fingerprint(String scope) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            Fingerprint fingerprint = fingerprints.get(scope);
+            if (fingerprint != null && now - fingerprint.fetchedAt < fingerprintInterval) {
+                return fingerprint.value;
+            }
+        }
+        String value = delegate.getSchemaFingerprint(scope);
+        synchronized (this) {
+            fingerprints.put(scope, new Fingerprint(value, now));
+        }
+        return value;
+    }
+
+    private synchronized long timeToLive(String method) {
+        Long ttl = timeToLive.get(method);
+        return ttl == null ? defaultTimeToLive : ttl;
+    }
+
+    private static List<Object> key(String method, Object... arguments) {
+        List<Object> key = new ArrayList<Object>(arguments.length + 1);
+        key.add(method);
+        key.addAll(Arrays.asList(arguments));
+        return key;
+    }
+
+    private static ArrayList<String> copy(ArrayList<String> values) {
+        return values == null ? null : new ArrayList<String>(values);
+    }
+
+    private static Map<String, ArrayList<String>> copy(Map<String, ArrayList<String>> values) {
+        Map<String, ArrayList<String>> copy = new LinkedHashMap<String, ArrayList<String>>();
+        for (Map.Entry<String, ArrayList<String>> value : values.entrySet()) {
+            copy.put(value.getKey(), copy(value.getValue()));
+        }
+        return copy;
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final String scope;
+        private final String fingerprint;
+        private long expiresAt;
+
+        private Entry(Object value, String scope, String fingerprint, long expiresAt) {
+            this.value = value;
+            this.scope = scope;
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Fingerprint {
+        private final String value;
+        private final long fetchedAt;
+
+        private Fingerprint(String value, long fetchedAt) {
+            this.value = value;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+/**
+ * A single structural difference between two catalog states
+ */
+public final class CatalogChange {
+
+    public enum Type {
+        ADDED,
+        DROPPED,
+        ALTERED
+    }
+
+    public enum Level {
+        SCHEMA,
+        TABLE,
+        COLUMN,
+        KEY
+    }
+
+    private final Type type;
+    private final Level level;
+    private final String schema;
+    private final String table;
+    private final String name;
+    private final String detail;
+
+    public CatalogChange(Type type, Level level, String schema, String table, String name, String detail) {
+        this.type = type;
+        this.level = level;
+        this.schema = schema;
+        this.table = table;
+        this.name = name;
+        this.detail = detail;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public String getSchema() {
+        return schema;
+    }
+
+    /**
+     * @return table, or null for schema changes
+     */
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * @return column or key name, or null for schema and table changes
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return description of what was altered, or null
+     */
+    public String getDetail() {
+        return detail;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(type).append(' ').append(level).append(' ').append(schema);
+        if (table != null) {
+            sb.append('.').append(table);
+        }
+        if (name != null) {
+            sb.append('.').append(name);
+        }
+        if (detail != null) {
+            sb.append(": ").append(detail);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+/**
+ * Immutable description of a single table column
+ */
+public final class CatalogColumn {
+
+    private final String name;
+    private final int ordinalPosition;
+    private final String dataType;
+    private final String columnType;
+    private final boolean nullable;
+    private final String columnKey;
+    private final String extra;
+
+    public CatalogColumn(String name, int ordinalPosition, String dataType, String columnType,
+                         boolean nullable, String columnKey, String extra) {
+        this.name = name;
+        this.ordinalPosition = ordinalPosition;
+        this.dataType = dataType;
+        this.columnType = columnType;
+        this.nullable = nullable;
+        this.columnKey = columnKey == null ? "" : columnKey;
+        this.extra = extra == null ? "" : extra;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getOrdinalPosition() {
+        return ordinalPosition;
+    }
+
+    /**
+     * @return base data type, e.g. int
+     */
+    public String getDataType() {
+        return dataType;
+    }
+
+    /**
+     * @return full column type, e.g. int(10) unsigned
+     */
+    public String getColumnType() {
+        return columnType;
+    }
+
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    public String getColumnKey() {
+        return columnKey;
+    }
+
+    public String getExtra() {
+        return extra;
+    }
+
+    public boolean isUnsigned() {
+        return columnType != null && columnType.toLowerCase().contains("unsigned");
+    }
+
+    public boolean isAutoIncrement() {
+        return extra.toLowerCase().contains("auto_increment");
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + columnType;
+    }
+}
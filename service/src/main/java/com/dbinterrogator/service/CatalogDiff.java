@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Structural differences between two catalog states.
+ *
+ * Schemata and tables are walked as sorted merges.  Each pair is first
+ * compared by {@link CatalogSchema#getStructureHash()} or
+ * {@link CatalogTable#getStructureHash()} and only descended into when the
+ * hashes differ.  Only one schema from each side is held at a time, so
+ * comparing memory-mapped snapshots runs in memory bounded by the largest
+ * schema rather than the whole catalog.
+ */
+public final class CatalogDiff {
+
+    private final List<CatalogChange> changes;
+
+    private CatalogDiff(List<CatalogChange> changes) {
+        this.changes = Collections.unmodifiableList(changes);
+    }
+
+    /**
+     * Compare two catalog states
+     *
+     * @param before Earlier state
+     * @param after Later state
+     *
+     * @return CatalogDiff
+     */
+    public static CatalogDiff compare(CatalogSource before, CatalogSource after) {
+        List<CatalogChange> changes = new ArrayList<CatalogChange>();
+        List<String> beforeNames = before.getSchemaNames();
+        List<String> afterNames = after.getSchemaNames();
+        int i = 0;
+        int j = 0;
+        while (i < beforeNames.size() || j < afterNames.size()) {
+            int compare = i == beforeNames.size() ? 1 : j == afterNames.size() ? -1 : beforeNames.get(i).compareTo(afterNames.get(j));
+            if (compare < 0) {
+                changes.add(new CatalogChange(CatalogChange.Type.DROPPED, CatalogChange.Level.SCHEMA, beforeNames.get(i++), null, null, null));
+            } else if (compare > 0) {
+                changes.add(new CatalogChange(CatalogChange.Type.ADDED, CatalogChange.Level.SCHEMA, afterNames.get(j++), null, null, null));
+            } else {
+                compareSchema(before.getSchema(beforeNames.get(i++)), after.getSchema(afterNames.get(j++)), changes);
+            }
+        }
+        return new CatalogDiff(changes);
+    }
+
+    public List<CatalogChange> getChanges() {
+        return changes;
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    private static void compareSchema(CatalogSchema before, CatalogSchema after, List<CatalogChange> changes) {
+        if (before.getStructureHash() == after.getStructureHash()) {
+            return;
+        }
+        String schema = after.getName();
+        if (!Objects.equals(before.getCharacterSet(), after.getCharacterSet())
+                || !Objects.equals(before.getCollation(), after.getCollation())) {
+            changes.add(new CatalogChange(CatalogChange.Type.ALTERED, CatalogChange.Level.SCHEMA, schema, null, null,
+                    before.getCollation() + " -> " + after.getCollation()));
+        }
+        List<CatalogTable> beforeTables = before.getTables();
+        List<CatalogTable> afterTables = after.getTables();
+        int i = 0;
+        int j = 0;
+        while (i < beforeTables.size() || j < afterTables.size()) {
+            int compare = i == beforeTables.size() ? 1 : j == afterTables.size() ? -1
+                    : beforeTables.get(i).getName().compareTo(afterTables.get(j).getName());
+            if (compare < 0) {
+                changes.add(new CatalogChange(CatalogChange.Type.DROPPED, CatalogChange.Level.TABLE, schema, beforeTables.get(i++).getName(), null, null));
+            } else if (compare > 0) {
+                changes.add(new CatalogChange(CatalogChange.Type.ADDED, CatalogChange.Level.TABLE, schema, afterTables.get(j++).getName(), null, null));
+            } else {
+                compareTable(beforeTables.get(i++), afterTables.get(j++), changes);
+            }
+        }
+    }
+
+    private static void compareTable(CatalogTable before, CatalogTable after, List<CatalogChange> changes) {
+        if (before.getStructureHash() == after.getStructureHash()) {
+            return;
+        }
+        String schema = after.getSchema();
+        String table = after.getName();
+        if (!Objects.equals(before.getTableType(), after.getTableType())
+                || !Objects.equals(before.getEngine(), after.getEngine())) {
+            changes.add(new CatalogChange(CatalogChange.Type.ALTERED, CatalogChange.Level.TABLE, schema, table, null,
+                    before.getTableType() + " " + before.getEngine() + " -> " + after.getTableType() + " " + after.getEngine()));
+        }
+
+        Map<String, CatalogColumn> beforeColumns = new LinkedHashMap<String, CatalogColumn>();
+        for (CatalogColumn column : before.getColumns()) {
+            beforeColumns.put(column.getName(), column);
+        }
+        for (CatalogColumn column : after.getColumns()) {
+            CatalogColumn previous = beforeColumns.remove(column.getName());
+            if (previous == null) {
+                changes.add(new CatalogChange(CatalogChange.Type.ADDED, CatalogChange.Level.COLUMN, schema, table, column.getName(), describe(column)));
+            } else if (CatalogHash.of(previous) != CatalogHash.of(column)) {
+                changes.add(new CatalogChange(CatalogChange.Type.ALTERED, CatalogChange.Level.COLUMN, schema, table, column.getName(),
+                        describe(previous) + " -> " + describe(column)));
+            }
+        }
+        for (CatalogColumn column : beforeColumns.values()) {
+            changes.add(new CatalogChange(CatalogChange.Type.DROPPED, CatalogChange.Level.COLUMN, schema, table, column.getName(), describe(column)));
+        }
+
+        Map<String, CatalogKey> beforeKeys = new LinkedHashMap<String, CatalogKey>();
+        for (CatalogKey key : before.getKeys()) {
+            beforeKeys.put(key.getName(), key);
+        }
+        for (CatalogKey key : after.getKeys()) {
+            CatalogKey previous = beforeKeys.remove(key.getName());
+            if (previous == null) {
+                changes.add(new CatalogChange(CatalogChange.Type.ADDED, CatalogChange.Level.KEY, schema, table, key.getName(), describe(key)));
+            } else if (CatalogHash.of(previous) != CatalogHash.of(key)) {
+                changes.add(new CatalogChange(CatalogChange.Type.ALTERED, CatalogChange.Level.KEY, schema, table, key.getName(),
+                        describe(previous) + " -> " + describe(key)));
+            }
+        }
+        for (CatalogKey key : beforeKeys.values()) {
+            changes.add(new CatalogChange(CatalogChange.Type.DROPPED, CatalogChange.Level.KEY, schema, table, key.getName(), describe(key)));
+        }
+    }
+
+    private static String describe(CatalogColumn column) {
+        StringBuilder sb = new StringBuilder(column.getColumnType());
+        sb.append(column.isNullable() ? " NULL" : " NOT NULL");
+        if (!column.getExtra().isEmpty()) {
+            sb.append(' ').append(column.getExtra());
+        }
+        sb.append(" at position ").append(column.getOrdinalPosition());
+        return sb.toString();
+    }
+
+    private static String describe(CatalogKey key) {
+        StringBuilder sb = new StringBuilder(key.getColumns().toString());
+        if (key.isForeignKey()) {
+            sb.append(" REFERENCES ").append(key.getReferencedSchema()).append('.').append(key.getReferencedTable())
+                    .append(key.getReferencedColumns());
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (CatalogChange change : changes) {
+            sb.append(change).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Structural hashes of catalog objects, combined bottom up Merkle style so
+ * that equal schema or table hashes mean equal subtrees.
+ *
+ * Only structure is hashed; statistics and change markers such as row
+ * counts, AUTO_INCREMENT and create/update times are ignored.
+ */
+final class CatalogHash {
+
+    private static final long OFFSET = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private CatalogHash() {
+    }
+
+    static long of(CatalogSchema schema) {
+        long hash = OFFSET;
+        hash = mix(hash, schema.getName());
+        hash = mix(hash, schema.getCharacterSet());
+        hash = mix(hash, schema.getCollation());
+        for (CatalogTable table : schema.getTables()) {
+            hash = mix(hash, table.getStructureHash());
+        }
+        return hash;
+    }
+
+    static long of(CatalogTable table) {
+        long hash = OFFSET;
+        hash = mix(hash, table.getName());
+        hash = mix(hash, table.getTableType());
+        hash = mix(hash, table.getEngine());
+        for (CatalogColumn column : table.getColumns()) {
+            hash = mix(hash, of(column));
+        }
+        for (CatalogKey key : table.getKeys()) {
+            hash = mix(hash, of(key));
+        }
+        return hash;
+    }
+
+    static long of(CatalogColumn column) {
+        long hash = OFFSET;
+        hash = mix(hash, column.getName());
+        hash = mix(hash, column.getOrdinalPosition());
+        hash = mix(hash, column.getColumnType());
+        hash = mix(hash, column.isNullable() ? 1 : 0);
+        hash = mix(hash, column.getColumnKey());
+        hash = mix(hash, column.getExtra());
+        return hash;
+    }
+
+    static long of(CatalogKey key) {
+        long hash = OFFSET;
+        hash = mix(hash, key.getName());
+        hash = mix(hash, key.getColumns());
+        hash = mix(hash, key.getReferencedSchema());
+        hash = mix(hash, key.getReferencedTable());
+        hash = mix(hash, key.getReferencedColumns());
+        return hash;
+    }
+
+    private static long mix(long hash, List<String> values) {
+        hash = mix(hash, values.size());
+        for (String value : values) {
+            hash = mix(hash, value);
+        }
+        return hash;
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, with a length prefix so adjacent fields cannot run together
+     */
+    private static long mix(long hash, String value) {
+        if (value == null) {
+            return mix(hash, -1L);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        hash = mix(hash, bytes.length);
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= PRIME;
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable description of a primary, unique or foreign key
+ */
+public final class CatalogKey {
+
+    public static final String PRIMARY = "PRIMARY";
+
+    private final String name;
+    private final List<String> columns;
+    private final String referencedSchema;
+    private final String referencedTable;
+    private final List<String> referencedColumns;
+
+    public CatalogKey(String name, List<String> columns, String referencedSchema, String referencedTable,
+                      List<String> referencedColumns) {
+        this.name = name;
+        this.columns = Collections.unmodifiableList(columns);
+        this.referencedSchema = referencedSchema;
+        this.referencedTable = referencedTable;
+        this.referencedColumns = referencedColumns == null
+                ? Collections.<String>emptyList()
+                : Collections.unmodifiableList(referencedColumns);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return schema of the referenced table, or null if this is not a foreign key
+     */
+    public String getReferencedSchema() {
+        return referencedSchema;
+    }
+
+    /**
+     * @return referenced table, or null if this is not a foreign key
+     */
+    public String getReferencedTable() {
+        return referencedTable;
+    }
+
+    public List<String> getReferencedColumns() {
+        return referencedColumns;
+    }
+
+    public boolean isPrimary() {
+        return PRIMARY.equals(name);
+    }
+
+    public boolean isForeignKey() {
+        return referencedTable != null;
+    }
+
+    @Override
+    public String toString() {
+        return name + columns;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable description of a schema and its tables
+ */
+public final class CatalogSchema {
+
+    private final String name;
+    private final String characterSet;
+    private final String collation;
+    private final Map<String, CatalogTable> tables;
+    private volatile Long structureHash = null;
+
+    public CatalogSchema(String name, String characterSet, String collation, List<CatalogTable> tables) {
+        this.name = name;
+        this.characterSet = characterSet;
+        this.collation = collation;
+        Map<String, CatalogTable> byName = new TreeMap<String, CatalogTable>();
+        for (CatalogTable table : tables) {
+            byName.put(table.getName(), table);
+        }
+        this.tables = Collections.unmodifiableMap(byName);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getCharacterSet() {
+        return characterSet;
+    }
+
+    public String getCollation() {
+        return collation;
+    }
+
+    /**
+     * @return table names in sorted order
+     */
+    public List<String> getTableNames() {
+        return new ArrayList<String>(tables.keySet());
+    }
+
+    /**
+     * @return tables sorted by name
+     */
+    public List<CatalogTable> getTables() {
+        return new ArrayList<CatalogTable>(tables.values());
+    }
+
+    public int getTableCount() {
+        return tables.size();
+    }
+
+    public CatalogTable getTable(String table) {
+        return tables.get(table);
+    }
+
+    /**
+     * Merkle hash of the structure below this schema, ignoring statistics and change markers
+     *
+     * @return hash, equal for structurally equal schemata
+     */
+    public long getStructureHash() {
+        Long hash = structureHash;
+        if (hash == null) {
+            hash = CatalogHash.of(this);
+            structureHash = hash;
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable, in-memory model of a server catalog.
+ *
+ * A snapshot is gathered in a handful of bulk queries; every lookup made
+ * against it is answered locally without further round trips.
+ */
+public final class CatalogSnapshot implements CatalogSource {
+
+    private final Instant capturedAt;
+    private final Map<String, CatalogSchema> schemata;
+
+    public CatalogSnapshot(Instant capturedAt, List<CatalogSchema> schemata) {
+        this.capturedAt = capturedAt;
+        Map<String, CatalogSchema> byName = new TreeMap<String, CatalogSchema>();
+        for (CatalogSchema schema : schemata) {
+            byName.put(schema.getName(), schema);
+        }
+        this.schemata = Collections.unmodifiableMap(byName);
+    }
+
+    @Override
+    public Instant getCapturedAt() {
+        return capturedAt;
+    }
+
+    /**
+     * @return schema names in sorted order
+     */
+    @Override
+    public List<String> getSchemaNames() {
+        return new ArrayList<String>(schemata.keySet());
+    }
+
+    /**
+     * @return schemata sorted by name
+     */
+    public List<CatalogSchema> getSchemata() {
+        return new ArrayList<CatalogSchema>(schemata.values());
+    }
+
+    @Override
+    public CatalogSchema getSchema(String schema) {
+        return schemata.get(schema);
+    }
+
+    /**
+     * Look up a table
+     *
+     * @param schema Schema Name
+     * @param table Table Name
+     *
+     * @return table, or null if it is not part of the snapshot
+     */
+    @Override
+    public CatalogTable getTable(String schema, String table) {
+        CatalogSchema catalogSchema = schemata.get(schema);
+        return catalogSchema == null ? null : catalogSchema.getTable(table);
+    }
+
+    /**
+     * Look up a column
+     *
+     * @param schema Schema Name
+     * @param table Table Name
+     * @param column Column Name
+     *
+     * @return column, or null if it is not part of the snapshot
+     */
+    public CatalogColumn getColumn(String schema, String table, String column) {
+        CatalogTable catalogTable = getTable(schema, table);
+        return catalogTable == null ? null : catalogTable.getColumn(column);
+    }
+
+    public int getTableCount() {
+        int count = 0;
+        for (CatalogSchema schema : schemata.values()) {
+            count += schema.getTableCount();
+        }
+        return count;
+    }
+}
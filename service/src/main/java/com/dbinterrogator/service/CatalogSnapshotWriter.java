@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a catalog in the compact binary format read by {@link MappedCatalogSnapshot}.
+ *
+ * Every distinct string is stored once in a dictionary and referenced by id
+ * from fixed-width schema, table, column and key records, so a reader can
+ * seek straight to any record without parsing the rest of the file.  The
+ * file is written to a temporary sibling and moved into place, so readers
+ * never observe a partial snapshot.
+ */
+public class CatalogSnapshotWriter {
+
+    private final Map<String, Integer> ids = new HashMap<String, Integer>();
+    private final List<byte[]> strings = new ArrayList<byte[]>();
+    private int stringBytes = 0;
+
+    private CatalogSnapshotWriter() {
+    }
+
+    /**
+     * Write a catalog to disk
+     *
+     * @param catalog Catalog to write
+     * @param path Destination file, replaced if it exists
+     */
+    public static void write(CatalogSource catalog, Path path) throws IOException {
+        new CatalogSnapshotWriter().writeCatalog(catalog, path);
+    }
+
+    private void writeCatalog(CatalogSource catalog, Path path) throws IOException {
+        List<CatalogSchema> schemata = new ArrayList<CatalogSchema>();
+        int tableCount = 0;
+        int columnCount = 0;
+        int keyCount = 0;
+        int keyColumnCount = 0;
+        for (String name : catalog.getSchemaNames()) {
+            CatalogSchema schema = catalog.getSchema(name);
+            schemata.add(schema);
+            id(schema.getName());
+            id(schema.getCharacterSet());
+            id(schema.getCollation());
+            for (CatalogTable table : schema.getTables()) {
+                tableCount++;
+                id(table.getName());
+                id(table.getTableType());
+                id(table.getEngine());
+                for (CatalogColumn column : table.getColumns()) {
+                    columnCount++;
+                    id(column.getName());
+                    id(column.getDataType());
+                    id(column.getColumnType());
+                    id(column.getColumnKey());
+                    id(column.getExtra());
+                }
+                for (CatalogKey key : table.getKeys()) {
+                    keyCount++;
+                    keyColumnCount += key.getColumns().size();
+                    id(key.getName());
+                    id(key.getReferencedSchema());
+                    id(key.getReferencedTable());
+                    for (String column : key.getColumns()) {
+                        id(column);
+                    }
+                    for (String column : key.getReferencedColumns()) {
+                        id(column);
+                    }
+                }
+            }
+        }
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream file = Files.newOutputStream(temporary);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            long offset = MappedCatalogSnapshot.HEADER_SIZE;
+            long stringOffsets = offset;
+            offset += (strings.size() + 1) * 4L;
+            long stringData = offset;
+            offset += stringBytes;
+            long schemaRecords = offset;
+            offset += (long) schemata.size() * MappedCatalogSnapshot.SCHEMA_RECORD;
+            long tableRecords = offset;
+            offset += (long) tableCount * MappedCatalogSnapshot.TABLE_RECORD;
+            long columnRecords = offset;
+            offset += (long) columnCount * MappedCatalogSnapshot.COLUMN_RECORD;
+            long keyRecords = offset;
+            offset += (long) keyCount * MappedCatalogSnapshot.KEY_RECORD;
+            long keyColumnRecords = offset;
+
+            Instant capturedAt = catalog.getCapturedAt();
+            out.writeInt(MappedCatalogSnapshot.MAGIC);
+            out.writeInt(MappedCatalogSnapshot.VERSION);
+            out.writeLong(capturedAt == null ? Long.MIN_VALUE : capturedAt.toEpochMilli());
+            out.writeInt(strings.size());
+            out.writeInt(schemata.size());
+            out.writeInt(tableCount);
+            out.writeInt(columnCount);
+            out.writeInt(keyCount);
+            out.writeInt(keyColumnCount);
+            out.writeLong(stringOffsets);
+            out.writeLong(stringData);
+            out.writeLong(schemaRecords);
+            out.writeLong(tableRecords);
+            out.writeLong(columnRecords);
+            out.writeLong(keyRecords);
+            out.writeLong(keyColumnRecords);
+
+            int position = 0;
+            for (byte[] string : strings) {
+                out.writeInt(position);
+                position += string.length;
+            }
+            out.writeInt(position);
+            for (byte[] string : strings) {
+                out.write(string);
+            }
+
+            int firstTable = 0;
+            for (CatalogSchema schema : schemata) {
+                out.writeInt(id(schema.getName()));
+                out.writeInt(id(schema.getCharacterSet()));
+                out.writeInt(id(schema.getCollation()));
+                out.writeInt(firstTable);
+                out.writeInt(schema.getTableCount());
+                firstTable += schema.getTableCount();
+            }
+
+            int firstColumn = 0;
+            int firstKey = 0;
+            for (CatalogSchema schema : schemata) {
+                for (CatalogTable table : schema.getTables()) {
+                    out.writeInt(id(table.getName()));
+                    out.writeInt(id(table.getTableType()));
+                    out.writeInt(id(table.getEngine()));
+                    out.writeLong(nullable(table.getTableRows()));
+                    out.writeLong(nullable(table.getAutoIncrement()));
+                    out.writeLong(table.getCreateTime() == null ? Long.MIN_VALUE : table.getCreateTime().toEpochMilli());
+                    out.writeLong(table.getUpdateTime() == null ? Long.MIN_VALUE : table.getUpdateTime().toEpochMilli());
+                    out.writeInt(firstColumn);
+                    out.writeInt(table.getColumns().size());
+                    out.writeInt(firstKey);
+                    out.writeInt(table.getKeys().size());
+                    firstColumn += table.getColumns().size();
+                    firstKey += table.getKeys().size();
+                }
+            }
+
+            for (CatalogSchema schema : schemata) {
+                for (CatalogTable table : schema.getTables()) {
+                    for (CatalogColumn column : table.getColumns()) {
+                        out.writeInt(id(column.getName()));
+                        out.writeInt(column.getOrdinalPosition());
+                        out.writeInt(id(column.getDataType()));
+                        out.writeInt(id(column.getColumnType()));
+                        out.writeInt(column.isNullable() ? 1 : 0);
+                        out.writeInt(id(column.getColumnKey()));
+                        out.writeInt(id(column.getExtra()));
+                    }
+                }
+            }
+
+            int firstKeyColumn = 0;
+            for (CatalogSchema schema : schemata) {
+                for (CatalogTable table : schema.getTables()) {
+                    for (CatalogKey key : table.getKeys()) {
+                        out.writeInt(id(key.getName()));
+                        out.writeInt(id(key.getReferencedSchema()));
+                        out.writeInt(id(key.getReferencedTable()));
+                        out.writeInt(firstKeyColumn);
+                        out.writeInt(key.getColumns().size());
+                        firstKeyColumn += key.getColumns().size();
+                    }
+                }
+            }
+
+            for (CatalogSchema schema : schemata) {
+                for (CatalogTable table : schema.getTables()) {
+                    for (CatalogKey key : table.getKeys()) {
+                        List<String> referenced = key.getReferencedColumns();
+                        for (int i = 0; i < key.getColumns().size(); i++) {
+                            out.writeInt(id(key.getColumns().get(i)));
+                            out.writeInt(i < referenced.size() ? id(referenced.get(i)) : -1);
+                        }
+                    }
+                }
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Dictionary id of a string, assigning the next id on first sight
+     */
+    private int id(String string) {
+        if (string == null) {
+            return -1;
+        }
+        Integer id = ids.get(string);
+        if (id == null) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            id = strings.size();
+            ids.put(string, id);
+            strings.add(bytes);
+            stringBytes += bytes.length;
+        }
+        return id;
+    }
+
+    private static long nullable(Long value) {
+        return value == null ? Long.MIN_VALUE : value;
+    }
+}
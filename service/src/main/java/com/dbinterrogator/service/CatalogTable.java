@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable description of a table, its columns and keys
+ */
+public final class CatalogTable {
+
+    private final String schema;
+    private final String name;
+    private final String tableType;
+    private final String engine;
+    private final Long tableRows;
+    private final Long autoIncrement;
+    private final Instant createTime;
+    private final Instant updateTime;
+    private final Map<String, CatalogColumn> columns;
+    private final List<CatalogKey> keys;
+    private volatile Long structureHash = null;
+
+    public CatalogTable(String schema, String name, String tableType, String engine, Long tableRows,
+                        Long autoIncrement, Instant createTime, Instant updateTime,
+                        List<CatalogColumn> columns, List<CatalogKey> keys) {
+        this.schema = schema;
+        this.name = name;
+        this.tableType = tableType;
+        this.engine = engine;
+        this.tableRows = tableRows;
+        this.autoIncrement = autoIncrement;
+        this.createTime = createTime;
+        this.updateTime = updateTime;
+        Map<String, CatalogColumn> byName = new LinkedHashMap<String, CatalogColumn>();
+        for (CatalogColumn column : columns) {
+            byName.put(column.getName(), column);
+        }
+        this.columns = Collections.unmodifiableMap(byName);
+        this.keys = Collections.unmodifiableList(new ArrayList<CatalogKey>(keys));
+    }
+
+    public String getSchema() {
+        return schema;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return table type, e.g. BASE TABLE or VIEW
+     */
+    public String getTableType() {
+        return tableType;
+    }
+
+    public String getEngine() {
+        return engine;
+    }
+
+    /**
+     * @return estimated row count, or null if unknown
+     */
+    public Long getTableRows() {
+        return tableRows;
+    }
+
+    /**
+     * @return next auto increment value, or null if unknown
+     */
+    public Long getAutoIncrement() {
+        return autoIncrement;
+    }
+
+    public Instant getCreateTime() {
+        return createTime;
+    }
+
+    public Instant getUpdateTime() {
+        return updateTime;
+    }
+
+    /**
+     * @return columns in ordinal order
+     */
+    public List<CatalogColumn> getColumns() {
+        return new ArrayList<CatalogColumn>(columns.values());
+    }
+
+    public CatalogColumn getColumn(String column) {
+        return columns.get(column);
+    }
+
+    public List<CatalogKey> getKeys() {
+        return keys;
+    }
+
+    /**
+     * @return the primary key, or null if the table has none
+     */
+    public CatalogKey getPrimaryKey() {
+        for (CatalogKey key : keys) {
+            if (key.isPrimary()) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return primary key column names in key order
+     */
+    public List<String> getIdentityColumns() {
+        CatalogKey primaryKey = getPrimaryKey();
+        return primaryKey == null ? Collections.<String>emptyList() : primaryKey.getColumns();
+    }
+
+    /**
+     * Merkle hash of the structure below this table, ignoring statistics and change markers
+     *
+     * @return hash, equal for structurally equal tables
+     */
+    public long getStructureHash() {
+        Long hash = structureHash;
+        if (hash == null) {
+            hash = CatalogHash.of(this);
+            structureHash = hash;
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return schema + "." + name;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Incremental watch over the tables of a schema, or of every schema.
+ *
+ * The watcher keeps the last seen change markers of each table.  Each poll
+ * only asks for tables whose CREATE_TIME or UPDATE_TIME reached the latest
+ * time already seen, plus a count of every table.  Only when that count
+ * disagrees with the tables known, because one was dropped, are all the
+ * markers read again.  The rows read therefore follow the rate of change
+ * rather than the size of the catalog.
+ *
+ * An AUTO_INCREMENT that moves without its table's UPDATE_TIME moving is
+ * only seen on the next full read, which in practice does not happen as
+ * inserts move both.
+ */
+public class CatalogWatcher {
+
+    private final InterrogatorService interrogator;
+    private final String schema;
+    private final Map<List<String>, TableMarker> seen = new HashMap<List<String>, TableMarker>();
+    private Instant since = null;
+    private boolean started = false;
+    private long markersRead = 0;
+    private long fullReads = 0;
+
+    /**
+     * @param interrogator Connected interrogator
+     * @param schema Schema to watch, or null for all
+     */
+    public CatalogWatcher(InterrogatorService interrogator, String schema) {
+        this.interrogator = interrogator;
+        this.schema = schema;
+    }
+
+    /**
+     * Poll the server once.  The first poll records where every table
+     * stands and reports nothing.
+     *
+     * @return Tables whose markers moved since the previous poll
+     */
+    public List<TableEvent> poll() {
+        TableMarkers changed = interrogator.getTableMarkers(schema, since);
+        if (changed == null) {
+            return Collections.emptyList();
+        }
+        List<TableEvent> events = new ArrayList<TableEvent>();
+        markersRead += changed.getMarkers().size();
+        for (TableMarker marker : changed.getMarkers()) {
+            record(marker, events);
+        }
+        if (changed.getTableCount() != seen.size()) {
+            TableMarkers all = interrogator.getTableMarkers(schema, null);
+            if (all != null) {
+                fullReads++;
+                markersRead += all.getMarkers().size();
+                Map<List<String>, TableMarker> current = new HashMap<List<String>, TableMarker>();
+                for (TableMarker marker : all.getMarkers()) {
+                    current.put(key(marker), marker);
+                }
+                for (Iterator<TableMarker> known = seen.values().iterator(); known.hasNext(); ) {
+                    TableMarker marker = known.next();
+                    if (!current.containsKey(key(marker))) {
+                        known.remove();
+                        if (started) {
+                            events.add(new TableEvent(TableEvent.Type.DROPPED, marker, null));
+                        }
+                    }
+                }
+                for (TableMarker marker : all.getMarkers()) {
+                    record(marker, events);
+                }
+            }
+        }
+        started = true;
+        return events;
+    }
+
+    /**
+     * Poll at a fixed rate until interrupted
+     *
+     * @param interval Time between polls
+     * @param unit Unit of interval
+     * @param consumer Receives every event as soon as its poll completes
+     */
+    public void watch(long interval, TimeUnit unit, Consumer<TableEvent> consumer) throws InterruptedException {
+        long next = System.nanoTime();
+        while (!Thread.currentThread().isInterrupted()) {
+            for (TableEvent event : poll()) {
+                consumer.accept(event);
+            }
+            next += unit.toNanos(interval);
+            TimeUnit.NANOSECONDS.sleep(Math.max(0, next - System.nanoTime()));
+        }
+        throw new InterruptedException();
+    }
+
+    /**
+     * @return table markers read from the server so far
+     */
+    public long getMarkersRead() {
+        return markersRead;
+    }
+
+    /**
+     * @return polls that had to read every table's markers to find drops
+     */
+    public long getFullReads() {
+        return fullReads;
+    }
+
+    private void record(TableMarker marker, List<TableEvent> events) {
+        TableMarker previous = seen.put(key(marker), marker);
+        Instant changed = marker.getLastChanged();
+        if (changed != null && (since == null || changed.isAfter(since))) {
+            since = changed;
+        }
+        if (started) {
+            TableEvent.Type type = compare(previous, marker);
+            if (type != null) {
+                events.add(new TableEvent(type, previous, marker));
+            }
+        }
+    }
+
+    private static TableEvent.Type compare(TableMarker previous, TableMarker current) {
+        if (previous == null) {
+            return TableEvent.Type.CREATED;
+        }
+        if (!Objects.equals(previous.getCreateTime(), current.getCreateTime())) {
+            return TableEvent.Type.REBUILT;
+        }
+        if (!Objects.equals(previous.getAutoIncrement(), current.getAutoIncrement())) {
+            return TableEvent.Type.AUTO_INCREMENT;
+        }
+        if (!Objects.equals(previous.getUpdateTime(), current.getUpdateTime())) {
+            return TableEvent.Type.WRITTEN;
+        }
+        return null;
+    }
+
+    private static List<String> key(TableMarker marker) {
+        return Arrays.asList(marker.getSchema(), marker.getTable());
+    }
+}
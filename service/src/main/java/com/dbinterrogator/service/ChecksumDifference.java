@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+/**
+ * Smallest key range found to differ between two servers
+ */
+public final class ChecksumDifference {
+
+    private final KeyRange range;
+    private final TableChecksum source;
+    private final TableChecksum target;
+
+    public ChecksumDifference(KeyRange range, TableChecksum source, TableChecksum target) {
+        this.range = range;
+        this.source = source;
+        this.target = target;
+    }
+
+    public KeyRange getRange() {
+        return range;
+    }
+
+    /**
+     * @return checksum on the source server, null if it could not be computed
+     */
+    public TableChecksum getSource() {
+        return source;
+    }
+
+    /**
+     * @return checksum on the target server, null if it could not be computed
+     */
+    public TableChecksum getTarget() {
+        return target;
+    }
+
+    @Override
+    public String toString() {
+        return range + " source " + (source == null ? "failed" : source) + ", target " + (target == null ? "failed" : target);
+    }
+}
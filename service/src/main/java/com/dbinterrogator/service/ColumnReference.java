@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.util.Objects;
+
+/**
+ * Fully qualified reference to a table column
+ */
+public final class ColumnReference {
+
+    private final String schema;
+    private final String table;
+    private final String column;
+
+    public ColumnReference(String schema, String table, String column) {
+        this.schema = Objects.requireNonNull(schema, "schema");
+        this.table = Objects.requireNonNull(table, "table");
+        this.column = Objects.requireNonNull(column, "column");
+    }
+
+    public String getSchema() {
+        return schema;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ColumnReference)) {
+            return false;
+        }
+        ColumnReference reference = (ColumnReference) other;
+        return schema.equals(reference.schema) && table.equals(reference.table) && column.equals(reference.column);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(schema, table, column);
+    }
+
+    @Override
+    public String toString() {
+        return schema + "." + table + "." + column;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Foreign key dependencies between a set of tables.
+ *
+ * A table depends on every table its foreign keys reference.  Tables that
+ * reference each other, directly or through others, form a cycle and are
+ * kept together as one group, as no order between them satisfies every
+ * key.  Groups are then layered into waves: wave 0 depends on nothing,
+ * and every other wave only on earlier waves.  References to tables
+ * outside the set are kept in getForeignKeys but play no part in ordering.
+ */
+public final class DependencyGraph {
+
+    private final Set<TableReference> tables;
+    private final List<ForeignKey> foreignKeys;
+    private final Map<TableReference, Set<TableReference>> dependencies = new HashMap<TableReference, Set<TableReference>>();
+    private final Map<TableReference, Set<TableReference>> dependents = new HashMap<TableReference, Set<TableReference>>();
+    private final Set<TableReference> selfReferencing = new TreeSet<TableReference>();
+    //Strongly connected groups, every group after the groups it depends on
+    private final List<List<TableReference>> groups;
+    private final Map<TableReference, Integer> wave = new HashMap<TableReference, Integer>();
+    private final List<List<TableReference>> waves = new ArrayList<List<TableReference>>();
+
+    private DependencyGraph(Collection<TableReference> tables, Collection<ForeignKey> foreignKeys) {
+        this.tables = Collections.unmodifiableSet(new TreeSet<TableReference>(tables));
+        this.foreignKeys = Collections.unmodifiableList(new ArrayList<ForeignKey>(foreignKeys));
+        for (TableReference table : this.tables) {
+            dependencies.put(table, new LinkedHashSet<TableReference>());
+            dependents.put(table, new LinkedHashSet<TableReference>());
+        }
+        for (ForeignKey key : foreignKeys) {
+            if (!dependencies.containsKey(key.getTable()) || !dependencies.containsKey(key.getReferencedTable())) {
+                continue;
+            }
+            if (key.getTable().equals(key.getReferencedTable())) {
+                selfReferencing.add(key.getTable());
+            } else {
+                dependencies.get(key.getTable()).add(key.getReferencedTable());
+                dependents.get(key.getReferencedTable()).add(key.getTable());
+            }
+        }
+        groups = stronglyConnected();
+        //Groups arrive after everything they depend on, so one pass settles every wave
+        for (List<TableReference> group : groups) {
+            int level = 0;
+            for (TableReference table : group) {
+                for (TableReference dependency : dependencies.get(table)) {
+                    Integer dependencyWave = wave.get(dependency);
+                    if (dependencyWave != null) {
+                        level = Math.max(level, dependencyWave + 1);
+                    }
+                }
+            }
+            for (TableReference table : group) {
+                wave.put(table, level);
+            }
+            while (waves.size() <= level) {
+                waves.add(new ArrayList<TableReference>());
+            }
+            waves.get(level).addAll(group);
+        }
+        for (List<TableReference> tablesInWave : waves) {
+            Collections.sort(tablesInWave);
+        }
+    }
+
+    /**
+     * @param tables Tables to order
+     * @param foreignKeys Foreign keys of those tables
+     *
+     * @return Graph of the tables
+     */
+    public static DependencyGraph of(Collection<TableReference> tables, Collection<ForeignKey> foreignKeys) {
+        return new DependencyGraph(tables, foreignKeys);
+    }
+
+    public Set<TableReference> getTables() {
+        return tables;
+    }
+
+    public List<ForeignKey> getForeignKeys() {
+        return foreignKeys;
+    }
+
+    /**
+     * @return tables this table references, itself excluded
+     */
+    public Set<TableReference> getDependencies(TableReference table) {
+        return Collections.unmodifiableSet(dependencies.getOrDefault(table, Collections.<TableReference>emptySet()));
+    }
+
+    /**
+     * @return tables referencing this table, itself excluded
+     */
+    public Set<TableReference> getDependents(TableReference table) {
+        return Collections.unmodifiableSet(dependents.getOrDefault(table, Collections.<TableReference>emptySet()));
+    }
+
+    /**
+     * @return waves of tables, each depending only on tables in earlier waves or in its own cycle
+     */
+    public List<List<TableReference>> getWaves() {
+        return Collections.unmodifiableList(waves);
+    }
+
+    /**
+     * @return wave of the table, or -1 if it is not in the graph
+     */
+    public int getWave(TableReference table) {
+        return wave.getOrDefault(table, -1);
+    }
+
+    /**
+     * @return groups of tables referencing each other, plus tables referencing
+     *         themselves, whose rows rather than tables need ordering
+     */
+    public List<List<TableReference>> getCycles() {
+        List<List<TableReference>> cycles = new ArrayList<List<TableReference>>();
+        for (List<TableReference> group : groups) {
+            if (group.size() > 1 || selfReferencing.contains(group.get(0))) {
+                List<TableReference> cycle = new ArrayList<TableReference>(group);
+                Collections.sort(cycle);
+                cycles.add(cycle);
+            }
+        }
+        return cycles;
+    }
+
+    public boolean hasCycles() {
+        return !getCycles().isEmpty();
+    }
+
+    /**
+     * Groups in dependency order, a cycle making up one group
+     */
+    List<List<TableReference>> getGroups() {
+        return groups;
+    }
+
+    /**
+     * Tarjan's algorithm without recursion, so deep chains of references
+     * cannot overflow the stack.  Groups are completed dependencies first.
+     */
+    private List<List<TableReference>> stronglyConnected() {
+        List<List<TableReference>> components = new ArrayList<List<TableReference>>();
+        Map<TableReference, Integer> index = new HashMap<TableReference, Integer>();
+        Map<TableReference, Integer> low = new HashMap<TableReference, Integer>();
+        Deque<TableReference> stack = new ArrayDeque<TableReference>();
+        Set<TableReference> onStack = new HashSet<TableReference>();
+        Deque<TableReference> path = new ArrayDeque<TableReference>();
+        Deque<Iterator<TableReference>> edges = new ArrayDeque<Iterator<TableReference>>();
+        int counter = 0;
+        for (TableReference root : tables) {
+            if (index.containsKey(root)) {
+                continue;
+            }
+            index.put(root, counter);
+            low.put(root, counter++);
+            stack.push(root);
+            onStack.add(root);
+            path.push(root);
+            edges.push(dependencies.get(root).iterator());
+            while (!path.isEmpty()) {
+                TableReference node = path.peek();
+                Iterator<TableReference> next = edges.peek();
+                if (next.hasNext()) {
+                    TableReference dependency = next.next();
+                    if (!index.containsKey(dependency)) {
+                        index.put(dependency, counter);
+                        low.put(dependency, counter++);
+                        stack.push(dependency);
+                        onStack.add(dependency);
+                        path.push(dependency);
+                        edges.push(dependencies.get(dependency).iterator());
+                    } else if (onStack.contains(dependency)) {
+                        low.put(node, Math.min(low.get(node), index.get(dependency)));
+                    }
+                    continue;
+                }
+                path.pop();
+                edges.pop();
+                if (!path.isEmpty()) {
+                    low.put(path.peek(), Math.min(low.get(path.peek()), low.get(node)));
+                }
+                if (low.get(node).equals(index.get(node))) {
+                    List<TableReference> component = new ArrayList<TableReference>();
+                    TableReference member;
+                    do {
+                        member = stack.pop();
+                        onStack.remove(member);
+                        component.add(member);
+                    } while (!member.equals(node));
+                    components.add(Collections.unmodifiableList(component));
+                }
+            }
+        }
+        return Collections.unmodifiableList(components);
+    }
+}
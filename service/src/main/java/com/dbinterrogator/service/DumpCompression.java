@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression applied to every file written by a dump
+ */
+public interface DumpCompression {
+
+    public static final DumpCompression NONE = new DumpCompression() {
+        @Override
+        public String getExtension() {
+            return "";
+        }
+
+        @Override
+        public OutputStream wrap(OutputStream out) {
+            return out;
+        }
+    };
+
+    public static final DumpCompression GZIP = new DumpCompression() {
+        @Override
+        public String getExtension() {
+            return ".gz";
+        }
+
+        @Override
+        public OutputStream wrap(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, 1 << 16);
+        }
+    };
+
+    /**
+     * @return suffix appended to file names, e.g. .gz
+     */
+    public String getExtension();
+
+    /**
+     * Wrap a file stream; closing the returned stream must close the file
+     *
+     * @param out Buffered file stream
+     *
+     * @return Compressing stream
+     */
+    public OutputStream wrap(OutputStream out) throws IOException;
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+/**
+ * Tuning options for a chunked data dump
+ */
+public class DumpOptions {
+
+    public static final long DEFAULT_CHUNK_SIZE = 100000;
+    public static final int DEFAULT_ROWS_PER_INSERT = 1000;
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    private long chunkSize = DEFAULT_CHUNK_SIZE;
+    private int rowsPerInsert = DEFAULT_ROWS_PER_INSERT;
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private int parallelism = 0;
+    private DumpCompression compression = DumpCompression.GZIP;
+    private boolean resume = true;
+
+    /**
+     * @return width of each primary key range written to its own file
+     */
+    public long getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(long chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return rows combined into each INSERT statement
+     */
+    public int getRowsPerInsert() {
+        return rowsPerInsert;
+    }
+
+    public void setRowsPerInsert(int rowsPerInsert) {
+        if (rowsPerInsert < 1) {
+            throw new IllegalArgumentException("Rows per insert must be positive: " + rowsPerInsert);
+        }
+        this.rowsPerInsert = rowsPerInsert;
+    }
+
+    /**
+     * @return INSERT statements buffered between each reader and its writer
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * @return chunks written concurrently, 0 to match the connection pool
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        if (parallelism < 0) {
+            throw new IllegalArgumentException("Parallelism must not be negative: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    public DumpCompression getCompression() {
+        return compression;
+    }
+
+    public void setCompression(DumpCompression compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * @return true to skip chunks whose file already exists from an earlier run
+     */
+    public boolean isResume() {
+        return resume;
+    }
+
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+/**
+ * Totals of a completed dump
+ */
+public final class DumpResult {
+
+    private final int chunksWritten;
+    private final int chunksSkipped;
+    private final int chunksFailed;
+    private final long rows;
+
+    public DumpResult(int chunksWritten, int chunksSkipped, int chunksFailed, long rows) {
+        this.chunksWritten = chunksWritten;
+        this.chunksSkipped = chunksSkipped;
+        this.chunksFailed = chunksFailed;
+        this.rows = rows;
+    }
+
+    public int getChunksWritten() {
+        return chunksWritten;
+    }
+
+    /**
+     * @return chunks left untouched because a previous run completed them
+     */
+    public int getChunksSkipped() {
+        return chunksSkipped;
+    }
+
+    /**
+     * @return chunks that failed and will be retried by a resumed run
+     */
+    public int getChunksFailed() {
+        return chunksFailed;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    @Override
+    public String toString() {
+        return rows + " rows, " + chunksWritten + " chunks written, " + chunksSkipped + " skipped, " + chunksFailed + " failed";
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+/**
+ * Outcome of interrogating one instance of a fleet
+ *
+ * @param <T> Result of the task run against the instance
+ */
+public final class FleetResult<T> {
+
+    /**
+     * How the instance finished
+     */
+    public enum Status {
+        /** The task completed */
+        OK,
+        /** Connecting or the task threw */
+        FAILED,
+        /** The task was still running when its time ran out */
+        TIMED_OUT
+    }
+
+    private final String instance;
+    private final Status status;
+    private final T value;
+    private final Throwable error;
+    private final long elapsedNanos;
+
+    FleetResult(String instance, Status status, T value, Throwable error, long elapsedNanos) {
+        this.instance = instance;
+        this.status = status;
+        this.value = value;
+        this.error = error;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public String getInstance() {
+        return instance;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return task result, null unless OK
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * @return cause of a FAILED instance, null otherwise
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return instance + " " + status + " in " + elapsedNanos / 1000000 + "ms"
+                + (error == null ? "" : ": " + error);
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Run the same task against many instances at once.
+ *
+ * At most parallelism instances are interrogated at a time, each on its own
+ * connection.  Every instance finishes exactly once: with its result, with
+ * the exception it threw, or when its timeout runs out.  A timed out
+ * instance is interrupted and gives up its slot straight away, so a hung
+ * server cannot hold up the rest of the fleet; its thread is abandoned
+ * until the driver's own socket timeout releases it.  Results are handed to
+ * the caller's thread in the order instances finish.
+ */
+public class FleetScanner {
+
+    public static final int DEFAULT_PARALLELISM = 16;
+    public static final long DEFAULT_TIMEOUT = TimeUnit.MINUTES.toNanos(5);
+
+    private final int parallelism;
+    private final long timeoutNanos;
+
+    public FleetScanner() {
+        this(DEFAULT_PARALLELISM, DEFAULT_TIMEOUT, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param parallelism Instances interrogated at once
+     * @param timeout Time allowed per instance, from connecting to the end of the task
+     * @param unit Unit of timeout
+     */
+    public FleetScanner(int parallelism, long timeout, TimeUnit unit) {
+        if (parallelism < 1 || timeout <= 0) {
+            throw new IllegalArgumentException("Parallelism and timeout must be positive");
+        }
+        this.parallelism = parallelism;
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Interrogate every instance, blocking until all have finished
+     *
+     * @param instances Instance names
+     * @param connector Returns a connected interrogator for an instance name, throwing if it cannot connect
+     * @param task Work run against each connected interrogator
+     * @param results Receives each instance's result on the calling thread as soon as it finishes
+     * @param <T> Task result
+     */
+    public <T> void scan(List<String> instances, Function<String, InterrogatorService> connector,
+                         Function<InterrogatorService, T> task, Consumer<FleetResult<T>> results) throws InterruptedException {
+        ExecutorService workers = Executors.newCachedThreadPool(new DaemonThreadFactory("fleet-worker-"));
+        ScheduledExecutorService deadlines = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("fleet-deadline-"));
+        BlockingQueue<FleetResult<T>> finished = new LinkedBlockingQueue<FleetResult<T>>();
+        Semaphore slots = new Semaphore(parallelism);
+        List<Future<?>> running = new ArrayList<Future<?>>();
+        try {
+            int started = 0;
+            for (int delivered = 0; delivered < instances.size(); delivered++) {
+                while (started < instances.size() && slots.tryAcquire()) {
+                    running.add(start(instances.get(started++), connector, task, workers, deadlines, slots, finished));
+                }
+                results.accept(finished.take());
+            }
+        } finally {
+            for (Future<?> future : running) {
+                future.cancel(true);
+            }
+            workers.shutdownNow();
+            deadlines.shutdownNow();
+        }
+    }
+
+    private <T> Future<?> start(String instance, Function<String, InterrogatorService> connector,
+                                Function<InterrogatorService, T> task, ExecutorService workers,
+                                ScheduledExecutorService deadlines, Semaphore slots, BlockingQueue<FleetResult<T>> finished) {
+        long start = System.nanoTime();
+        AtomicBoolean settled = new AtomicBoolean();
+        //The slot is released before the result is published, so the caller can start the next instance
+        Consumer<FleetResult<T>> settle = result -> {
+            if (settled.compareAndSet(false, true)) {
+                slots.release();
+                finished.add(result);
+            }
+        };
+        AtomicReference<ScheduledFuture<?>> deadline = new AtomicReference<ScheduledFuture<?>>();
+        Future<?> future = workers.submit(() -> {
+            InterrogatorService service = null;
+            T value = null;
+            Throwable error = null;
+            boolean completed = false;
+            try {
+                service = connector.apply(instance);
+                value = task.apply(service);
+                completed = true;
+            } catch (RuntimeException ex) {
+                error = ex;
+            } finally {
+                settle.accept(new FleetResult<T>(instance, completed ? FleetResult.Status.OK : FleetResult.Status.FAILED,
+                        value, error, System.nanoTime() - start));
+                ScheduledFuture<?> pending = deadline.get();
+                if (pending != null) {
+                    pending.cancel(false);
+                }
+                if (service != null) {
+                    service.Disconnect();
+                }
+            }
+        });
+        deadline.set(deadlines.schedule(() -> {
+            settle.accept(new FleetResult<T>(instance, FleetResult.Status.TIMED_OUT, null, null, System.nanoTime() - start));
+            future.cancel(true);
+        }, timeoutNanos, TimeUnit.NANOSECONDS));
+        return future;
+    }
+
+    /**
+     * Daemon threads, so abandoned workers never keep the JVM alive
+     */
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger sequence = new AtomicInteger();
+        private final String prefix;
+
+        DaemonThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
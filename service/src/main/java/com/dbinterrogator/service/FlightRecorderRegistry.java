@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+/**
+ * Registry emitting an {@link InterrogatorEvent} per measurement, visible in
+ * any Flight Recorder recording that enables com.dbinterrogator.Operation.
+ * Events are begun by {@link #start} and ended when the timer stops, so
+ * their start time and duration place them on the recording's timeline and
+ * the event's threshold setting applies.
+ *
+ * The jdk.jfr module is optional; check {@link #isAvailable()} first, as it
+ * is only resolved when the JVM is started with a recording or
+ * --add-modules jdk.jfr.
+ */
+public class FlightRecorderRegistry implements MetricsRegistry {
+
+    public FlightRecorderRegistry() {
+        if (!isAvailable()) {
+            throw new IllegalStateException("jdk.jfr is not available");
+        }
+    }
+
+    /**
+     * @return whether the jdk.jfr module is present and readable
+     */
+    public static boolean isAvailable() {
+        Module self = FlightRecorderRegistry.class.getModule();
+        if (!self.isNamed()) {
+            return ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+        }
+        return ModuleLayer.boot().findModule("jdk.jfr").map(self::canRead).orElse(false);
+    }
+
+    @Override
+    public Timer start(Phase phase, String name) {
+        InterrogatorEvent event = new InterrogatorEvent();
+        if (!event.isEnabled()) {
+            return (nanos, rows, bytes, failed) -> { };
+        }
+        event.begin();
+        return (nanos, rows, bytes, failed) -> {
+            event.end();
+            if (event.shouldCommit()) {
+                fill(event, phase, name, nanos, rows, bytes, failed);
+                event.commit();
+            }
+        };
+    }
+
+    /**
+     * Emit a measurement taken without {@link #start}.  The event has no
+     * duration of its own; its time is only in the elapsed field.
+     */
+    @Override
+    public void record(Phase phase, String name, long nanos, long rows, long bytes, boolean failed) {
+        InterrogatorEvent event = new InterrogatorEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+        fill(event, phase, name, nanos, rows, bytes, failed);
+        event.commit();
+    }
+
+    private static void fill(InterrogatorEvent event, Phase phase, String name, long nanos, long rows, long bytes, boolean failed) {
+        event.phase = phase.name();
+        event.name = name;
+        event.elapsed = nanos;
+        event.rows = rows;
+        event.bytes = bytes;
+        event.failed = failed;
+    }
+}
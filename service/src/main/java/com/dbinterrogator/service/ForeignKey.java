@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable description of a foreign key constraint
+ */
+public final class ForeignKey {
+
+    private final String name;
+    private final TableReference table;
+    private final List<String> columns;
+    private final TableReference referencedTable;
+    private final List<String> referencedColumns;
+    private final String updateRule;
+    private final String deleteRule;
+
+    public ForeignKey(String name, TableReference table, List<String> columns, TableReference referencedTable,
+                      List<String> referencedColumns, String updateRule, String deleteRule) {
+        this.name = name;
+        this.table = table;
+        this.columns = Collections.unmodifiableList(new ArrayList<String>(columns));
+        this.referencedTable = referencedTable;
+        this.referencedColumns = Collections.unmodifiableList(new ArrayList<String>(referencedColumns));
+        this.updateRule = updateRule;
+        this.deleteRule = deleteRule;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return table holding the constraint
+     */
+    public TableReference getTable() {
+        return table;
+    }
+
+    /**
+     * @return constrained columns in key order
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public TableReference getReferencedTable() {
+        return referencedTable;
+    }
+
+    /**
+     * @return referenced columns, matching getColumns position for position
+     */
+    public List<String> getReferencedColumns() {
+        return referencedColumns;
+    }
+
+    /**
+     * @return e.g. CASCADE, RESTRICT or NO ACTION
+     */
+    public String getUpdateRule() {
+        return updateRule;
+    }
+
+    /**
+     * @return e.g. CASCADE, SET NULL or NO ACTION
+     */
+    public String getDeleteRule() {
+        return deleteRule;
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + table + columns + " -> " + referencedTable + referencedColumns;
+    }
+}
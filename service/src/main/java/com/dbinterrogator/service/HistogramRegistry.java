@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory registry keeping a latency histogram with row, byte and failure
+ * totals for every phase and name, which can be printed as a summary.
+ */
+public class HistogramRegistry implements MetricsRegistry {
+
+    /**
+     * Totals of one phase and name
+     */
+    public static final class Metric {
+        private final Phase phase;
+        private final String name;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        private Metric(Phase phase, String name) {
+            this.phase = phase;
+            this.name = name;
+        }
+
+        public Phase getPhase() {
+            return phase;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return latency in nanoseconds
+         */
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+
+        public long getBytes() {
+            return bytes.sum();
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+    }
+
+    private final Map<String, Metric> metrics = new ConcurrentHashMap<String, Metric>();
+
+    @Override
+    public void record(Phase phase, String name, long nanos, long rows, long bytes, boolean failed) {
+        Metric metric = metrics.computeIfAbsent(phase + " " + name, key -> new Metric(phase, name));
+        metric.latency.record(nanos);
+        metric.rows.add(rows);
+        metric.bytes.add(bytes);
+        if (failed) {
+            metric.failures.increment();
+        }
+    }
+
+    /**
+     * @param phase Phase
+     * @param name Method or query name
+     *
+     * @return Metric, null if nothing was recorded
+     */
+    public Metric getMetric(Phase phase, String name) {
+        return metrics.get(phase + " " + name);
+    }
+
+    /**
+     * @return every metric, ordered by phase and then by total time, longest first
+     */
+    public List<Metric> getMetrics() {
+        List<Metric> sorted = new ArrayList<Metric>(metrics.values());
+        Collections.sort(sorted, (a, b) -> {
+            int compare = a.phase.compareTo(b.phase);
+            return compare != 0 ? compare : Long.compare(b.latency.getTotal(), a.latency.getTotal());
+        });
+        return sorted;
+    }
+
+    /**
+     * @return table of every metric with latencies in milliseconds
+     */
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder(String.format("%-8s %-28s %8s %6s %10s %12s %9s %9s %9s %9s %10s%n",
+                "PHASE", "NAME", "COUNT", "FAILED", "ROWS", "BYTES", "MEAN", "P50", "P99", "MAX", "TOTAL"));
+        for (Metric metric : getMetrics()) {
+            LatencyHistogram latency = metric.latency;
+            summary.append(String.format("%-8s %-28s %8d %6d %10d %12d %9.3f %9.3f %9.3f %9.3f %10.1f%n",
+                    metric.phase, metric.name, latency.getCount(), metric.getFailures(), metric.getRows(), metric.getBytes(),
+                    millis(latency.getMean()), millis(latency.getPercentile(50)), millis(latency.getPercentile(99)),
+                    millis(latency.getMax()), millis(latency.getTotal())));
+        }
+        return summary.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Metrics decorator for any {@link InterrogatorService}.
+ *
+ * Every method call is recorded as a CALL measurement named after the
+ * method, with the number of rows, tables or values it returned.  The
+ * registry is also handed to the delegate, which records the CONNECT,
+ * PREPARE, EXECUTE and FETCH phases of each query it runs.  A stream is
+ * measured from the call until it is closed.
+ */
+public class InstrumentedInterrogator implements InterrogatorService {
+
+    private final InterrogatorService delegate;
+    private volatile MetricsRegistry registry;
+
+    public InstrumentedInterrogator(InterrogatorService delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        setMetricsRegistry(registry);
+    }
+
+    @Override
+    public void setMetricsRegistry(MetricsRegistry registry) {
+        this.registry = registry == null ? MetricsRegistry.NONE : registry;
+        delegate.setMetricsRegistry(this.registry);
+    }
+
+    @Override
+    public void Connect(String hostname, String username, String password) {
+        timed("Connect", () -> delegate.Connect(hostname, username, password));
+    }
+
+    @Override
+    public void Connect(String hostname, String username, String password, Properties options) {
+        timed("Connect", () -> delegate.Connect(hostname, username, password, options));
+    }
+
+    @Override
+    public void Disconnect() {
+        timed("Disconnect", delegate::Disconnect);
+    }
+
+    @Override
+    public ArrayList<String> getUsers() {
+        return timed("getUsers", delegate::getUsers);
+    }
+
+    @Override
+    public ArrayList<String> getSchemata() {
+        return timed("getSchemata", delegate::getSchemata);
+    }
+
+    @Override
+    public ArrayList<String> getDatabases(String schema) {
+        return timed("getDatabases", () -> delegate.getDatabases(schema));
+    }
+
+    @Override
+    public ArrayList<String> getTables(String database) {
+        return timed("getTables", () -> delegate.getTables(database));
+    }
+
+    @Override
+    public String getCreateTable(String database, String table) {
+        return timed("getCreateTable", () -> delegate.getCreateTable(database, table));
+    }
+
+    @Override
+    public ArrayList<String> getIdentityColumns(String schema, String table) {
+        return timed("getIdentityColumns", () -> delegate.getIdentityColumns(schema, table));
+    }
+
+    @Override
+    public Map<String, ArrayList<String>> getTables(Collection<String> databases) {
+        return timed("getTables[]", () -> delegate.getTables(databases));
+    }
+
+    @Override
+    public Map<String, ArrayList<String>> getIdentityColumns(String schema, Collection<String> tables) {
+        return timed("getIdentityColumns[]", () -> delegate.getIdentityColumns(schema, tables));
+    }
+
+    @Override
+    public void getCreateTables(String database, Collection<String> tables, BiConsumer<String, String> consumer) {
+        AtomicLong rows = new AtomicLong();
+        MetricsRegistry.Timer timer = registry.start(MetricsRegistry.Phase.CALL, "getCreateTables");
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            delegate.getCreateTables(database, tables, (table, ddl) -> {
+                rows.incrementAndGet();
+                consumer.accept(table, ddl);
+            });
+            failed = false;
+        } finally {
+            timer.stop(System.nanoTime() - start, rows.get(), 0, failed);
+        }
+    }
+
+    @Override
+    public void setFetchSize(int fetchSize) {
+        delegate.setFetchSize(fetchSize);
+    }
+
+    @Override
+    public Stream<String> streamSchemata() {
+        return timedStream("streamSchemata", delegate::streamSchemata);
+    }
+
+    @Override
+    public Stream<String> streamTables(String database) {
+        return timedStream("streamTables", () -> delegate.streamTables(database));
+    }
+
+    @Override
+    public Stream<String> streamIdentityColumns(String schema, String table) {
+        return timedStream("streamIdentityColumns", () -> delegate.streamIdentityColumns(schema, table));
+    }
+
+    @Override
+    public CatalogSnapshot getCatalogSnapshot() {
+        return timed("getCatalogSnapshot", () -> delegate.getCatalogSnapshot());
+    }
+
+    @Override
+    public CatalogSnapshot getCatalogSnapshot(String schema) {
+        return timed("getCatalogSnapshot", () -> delegate.getCatalogSnapshot(schema));
+    }
+
+    @Override
+    public String getSchemaFingerprint(String schema) {
+        return timed("getSchemaFingerprint", () -> delegate.getSchemaFingerprint(schema));
+    }
+
+    @Override
+    public TableMarkers getTableMarkers(String schema, Instant changedSince) {
+        return timed("getTableMarkers", () -> delegate.getTableMarkers(schema, changedSince));
+    }
+
+    @Override
+    public List<ForeignKey> getForeignKeys(String schema) {
+        return timed("getForeignKeys", () -> delegate.getForeignKeys(schema));
+    }
+
+    @Override
+    public String getMaxValue(String column, String schema, String table) {
+        return timed("getMaxValue", () -> delegate.getMaxValue(column, schema, table));
+    }
+
+    @Override
+    public String getMinValue(String column, String schema, String table) {
+        return timed("getMinValue", () -> delegate.getMinValue(column, schema, table));
+    }
+
+    @Override
+    public Map<ColumnReference, String> getMaxValues(List<ColumnReference> columns) {
+        return timed("getMaxValues", () -> delegate.getMaxValues(columns));
+    }
+
+    @Override
+    public Map<ColumnReference, String> getMinValues(List<ColumnReference> columns) {
+        return timed("getMinValues", () -> delegate.getMinValues(columns));
+    }
+
+    @Override
+    public List<TableCapacity> getTableCapacity() {
+        return timed("getTableCapacity", delegate::getTableCapacity);
+    }
+
+    @Override
+    public DumpResult dumpTables(String database, Collection<String> tables, Path directory, DumpOptions options) {
+        return timed("dumpTables", () -> delegate.dumpTables(database, tables, directory, options));
+    }
+
+    @Override
+    public Map<KeyRange, TableChecksum> getChecksums(List<KeyRange> ranges) {
+        return timed("getChecksums", () -> delegate.getChecksums(ranges));
+    }
+
+    private void timed(String method, Runnable call) {
+        timed(method, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private <T> T timed(String method, Supplier<T> call) {
+        MetricsRegistry.Timer timer = registry.start(MetricsRegistry.Phase.CALL, method);
+        long start = System.nanoTime();
+        T result = null;
+        boolean failed = true;
+        try {
+            result = call.get();
+            failed = false;
+            return result;
+        } finally {
+            timer.stop(System.nanoTime() - start, rowsOf(result), 0, failed);
+        }
+    }
+
+    private Stream<String> timedStream(String method, Supplier<Stream<String>> call) {
+        MetricsRegistry.Timer timer = registry.start(MetricsRegistry.Phase.CALL, method);
+        long start = System.nanoTime();
+        Stream<String> stream;
+        try {
+            stream = call.get();
+        } catch (RuntimeException ex) {
+            timer.stop(System.nanoTime() - start, 0, 0, true);
+            throw ex;
+        }
+        AtomicLong rows = new AtomicLong();
+        //A filter rather than peek, as count() skips peek on a stream of known size
+        return stream.filter(row -> rows.incrementAndGet() > 0)
+                .onClose(() -> timer.stop(System.nanoTime() - start, rows.get(), 0, false));
+    }
+
+    /**
+     * Rows, tables or values in a result
+     */
+    private static long rowsOf(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        if (result instanceof CatalogSnapshot) {
+            return ((CatalogSnapshot) result).getTableCount();
+        }
+        if (result instanceof DumpResult) {
+            return ((DumpResult) result).getRows();
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Providers of {@link InterrogatorService}, discovered once.
+ *
+ * Discovery only loads each provider's class, so nothing is instantiated
+ * until an interrogator is asked for.  Providers are found by class name or
+ * by short database type: the {@link DatabaseType} of the class, or failing
+ * that its simple name less any Interrogator suffix, in lower case.
+ */
+public final class InterrogatorRegistry {
+
+    private InterrogatorRegistry() {
+    }
+
+    /**
+     * New interrogator for a database type
+     *
+     * @param databaseType Short type, e.g. mysql, or provider class name
+     *
+     * @return Interrogator, or null when no provider matches
+     */
+    public static InterrogatorService newInstance(String databaseType) {
+        ServiceLoader.Provider<InterrogatorService> provider = Providers.BY_NAME.get(databaseType);
+        if (provider == null) {
+            provider = Providers.BY_NAME.get(databaseType.toLowerCase());
+        }
+        return provider == null ? null : provider.get();
+    }
+
+    /**
+     * @return Short types of every provider found
+     */
+    public static Set<String> getDatabaseTypes() {
+        Set<String> types = new TreeSet<String>();
+        for (ServiceLoader.Provider<InterrogatorService> provider : Providers.BY_NAME.values()) {
+            types.add(shortName(provider.type()));
+        }
+        return types;
+    }
+
+    static String shortName(Class<?> type) {
+        DatabaseType annotation = type.getAnnotation(DatabaseType.class);
+        if (annotation != null) {
+            return annotation.value().toLowerCase();
+        }
+        String name = type.getSimpleName();
+        if (name.endsWith("Interrogator") && name.length() > "Interrogator".length()) {
+            name = name.substring(0, name.length() - "Interrogator".length());
+        }
+        return name.toLowerCase();
+    }
+
+    /**
+     * Lookup table built on first use
+     */
+    private static final class Providers {
+        static final Map<String, ServiceLoader.Provider<InterrogatorService>> BY_NAME = discover();
+
+        private static Map<String, ServiceLoader.Provider<InterrogatorService>> discover() {
+            Map<String, ServiceLoader.Provider<InterrogatorService>> providers = new HashMap<String, ServiceLoader.Provider<InterrogatorService>>();
+            ServiceLoader.load(InterrogatorService.class).stream().forEach(provider -> {
+                //The first provider found keeps a contested short name
+                providers.putIfAbsent(provider.type().getName(), provider);
+                providers.putIfAbsent(shortName(provider.type()), provider);
+            });
+            return Collections.unmodifiableMap(providers);
+        }
+    }
+}
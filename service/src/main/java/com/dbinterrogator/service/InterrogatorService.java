@@ -22,13 +22,23 @@
 
 package com.dbinterrogator.service;
 
-import java.util.ServiceLoader;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
 
 public interface InterrogatorService {
 
     //Connection Related
     public void Connect(String hostname, String username, String password);
+    public void Connect(String hostname, String username, String password, Properties options);
     public void Disconnect();
 
     //Security Related
@@ -41,17 +51,71 @@ public interface InterrogatorService {
     public String             getCreateTable(String database, String table);
     public ArrayList<String>  getIdentityColumns(String schema, String table);
 
-    //Data related
-    public String getMaxValue(String column, String schema, String table);
+    //Concurrent, work fans out across pooled connections and results keep the order of the input
+    public Map<String, ArrayList<String>> getTables(Collection<String> databases);
+    public Map<String, ArrayList<String>> getIdentityColumns(String schema, Collection<String> tables);
+    public void               getCreateTables(String database, Collection<String> tables, BiConsumer<String, String> consumer);
 
-    public static InterrogatorService newInstance(String databaseType){
-        ServiceLoader<InterrogatorService> service=ServiceLoader.load(InterrogatorService.class);
-        for(InterrogatorService interrogator:service){
-            if (interrogator.getClass().getName() == databaseType) {
-                return interrogator;
+    //Streaming, rows are fetched as the stream is consumed and the stream must be closed
+    public void               setFetchSize(int fetchSize);
+    public Stream<String>     streamSchemata();
+    public Stream<String>     streamTables(String database);
+    public Stream<String>     streamIdentityColumns(String schema, String table);
+
+    //Catalog Related
+    public CatalogSnapshot    getCatalogSnapshot();
+    public CatalogSnapshot    getCatalogSnapshot(String schema);
+    public String             getSchemaFingerprint(String schema);
+
+    //Watch Related, markers of only the tables changed since a point in time so polling follows the rate of change
+    public TableMarkers       getTableMarkers(String schema, Instant changedSince);
+
+    public default CatalogWatcher watch(String schema) {
+        return new CatalogWatcher(this, schema);
+    }
+
+    //Dependency Related, null schema for foreign keys across every schema
+    public List<ForeignKey>   getForeignKeys(String schema);
+
+    public default DependencyGraph getDependencyGraph(String schema) {
+        List<String> schemata = schema == null ? getSchemata() : Collections.singletonList(schema);
+        List<ForeignKey> foreignKeys = getForeignKeys(schema);
+        if (schemata == null || foreignKeys == null) {
+            return null;
+        }
+        List<TableReference> tables = new ArrayList<TableReference>();
+        for (Map.Entry<String, ArrayList<String>> entry : getTables(schemata).entrySet()) {
+            if (entry.getValue() == null) {
+                return null;
+            }
+            for (String table : entry.getValue()) {
+                tables.add(new TableReference(entry.getKey(), table));
             }
         }
-        return null;
+        return DependencyGraph.of(tables, foreignKeys);
+    }
+
+    //Data related
+    public String getMaxValue(String column, String schema, String table);
+    public String getMinValue(String column, String schema, String table);
+    public Map<ColumnReference, String> getMaxValues(List<ColumnReference> columns);
+    public Map<ColumnReference, String> getMinValues(List<ColumnReference> columns);
+    public List<TableCapacity> getTableCapacity();
+    public DumpResult dumpTables(String database, Collection<String> tables, Path directory, DumpOptions options);
 
+    //Metrics, per query phase measurements from the implementation
+    public void setMetricsRegistry(MetricsRegistry registry);
+
+    //Checksum Related, computed server side so only the checksums cross the network
+    public Map<KeyRange, TableChecksum> getChecksums(List<KeyRange> ranges);
+
+    //Asynchronous view, calls run on the executor instead of the caller's thread
+    public default AsyncInterrogatorService async(ExecutorService executor) {
+        return new AsyncInterrogator(this, executor);
+    }
+
+    //Short database type, e.g. mysql, or provider class name, see InterrogatorRegistry
+    public static InterrogatorService newInstance(String databaseType){
+        return InterrogatorRegistry.newInstance(databaseType);
     }
 }
\ No newline at end of file
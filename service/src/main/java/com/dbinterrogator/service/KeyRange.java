@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Inclusive range of an integer primary key, or a whole table when the
+ * table has no single integer key to range over
+ */
+public final class KeyRange implements Comparable<KeyRange> {
+
+    //Most ranges aligned returns by default
+    public static final int MAX_RANGES = 10000;
+
+    private final String schema;
+    private final String table;
+    private final String column;
+    private final long lower;
+    private final long upper;
+
+    public KeyRange(String schema, String table, String column, long lower, long upper) {
+        if (upper < lower) {
+            throw new IllegalArgumentException("upper " + upper + " < lower " + lower);
+        }
+        this.schema = Objects.requireNonNull(schema, "schema");
+        this.table = Objects.requireNonNull(table, "table");
+        this.column = Objects.requireNonNull(column, "column");
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    private KeyRange(String schema, String table) {
+        this.schema = Objects.requireNonNull(schema, "schema");
+        this.table = Objects.requireNonNull(table, "table");
+        this.column = null;
+        this.lower = 0;
+        this.upper = 0;
+    }
+
+    public static KeyRange wholeTable(String schema, String table) {
+        return new KeyRange(schema, table);
+    }
+
+    /**
+     * Cover [min, max] with ranges of chunkSize aligned to multiples of it,
+     * so the same key always lands in the same range between runs, using at
+     * most MAX_RANGES ranges
+     *
+     * @param schema Schema Name
+     * @param table Table Name
+     * @param column Key Column Name
+     * @param min Lowest key value
+     * @param max Highest key value
+     * @param chunkSize Key values per range
+     *
+     * @return Ranges in key order
+     */
+    public static List<KeyRange> aligned(String schema, String table, String column, long min, long max, long chunkSize) {
+        return aligned(schema, table, column, min, max, chunkSize, MAX_RANGES);
+    }
+
+    /**
+     * Cover [min, max] with ranges of chunkSize aligned to multiples of it.
+     * When that would take more than maxRanges ranges, e.g. for a single
+     * outlying key or sparse generated ids, the ranges widen to a power of two
+     * multiple of chunkSize instead, so their number stays bounded and the
+     * boundaries stay stable while the span does.
+     *
+     * @param schema Schema Name
+     * @param table Table Name
+     * @param column Key Column Name
+     * @param min Lowest key value
+     * @param max Highest key value
+     * @param chunkSize Key values per range
+     * @param maxRanges Most ranges returned
+     *
+     * @return Ranges in key order
+     */
+    public static List<KeyRange> aligned(String schema, String table, String column, long min, long max, long chunkSize, int maxRanges) {
+        long width = width(min, max, chunkSize, maxRanges);
+        if (width == 0) {
+            return Collections.singletonList(new KeyRange(schema, table, column, min, max));
+        }
+        long first = Math.floorDiv(min, width);
+        int count = (int) count(min, max, width);
+        List<KeyRange> ranges = new ArrayList<KeyRange>(count);
+        for (int i = 0; i < count; i++) {
+            long index = first + i;
+            long lower;
+            long upper;
+            try {
+                lower = Math.multiplyExact(index, width);
+                upper = lower + (width - 1) < lower ? Long.MAX_VALUE : lower + (width - 1);
+            } catch (ArithmeticException ex) {
+                //Only the first range can start below Long.MIN_VALUE
+                lower = Long.MIN_VALUE;
+                upper = (index + 1) * width - 1;
+            }
+            ranges.add(new KeyRange(schema, table, column, lower, upper));
+        }
+        return ranges;
+    }
+
+    /**
+     * Width of the ranges aligned covers [min, max] with
+     *
+     * @param min Lowest key value
+     * @param max Highest key value
+     * @param chunkSize Key values per range
+     * @param maxRanges Most ranges returned
+     *
+     * @return chunkSize or a power of two multiple of it, 0 when even the
+     * widest ranges are too many and [min, max] is covered by one unaligned range
+     */
+    public static long width(long min, long max, long chunkSize, int maxRanges) {
+        if (chunkSize < 1 || maxRanges < 1) {
+            throw new IllegalArgumentException("chunkSize and maxRanges must be positive");
+        }
+        long width = chunkSize;
+        while (count(min, max, width) > maxRanges) {
+            if (width > Long.MAX_VALUE / 2) {
+                return 0;
+            }
+            width *= 2;
+        }
+        return width;
+    }
+
+    /**
+     * @return aligned ranges of width needed to cover [min, max], saturating at Long.MAX_VALUE
+     */
+    private static long count(long min, long max, long width) {
+        try {
+            return Math.addExact(Math.subtractExact(Math.floorDiv(max, width), Math.floorDiv(min, width)), 1);
+        } catch (ArithmeticException ex) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    public String getSchema() {
+        return schema;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * @return key column, null for a whole table
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    public long getLower() {
+        return lower;
+    }
+
+    public long getUpper() {
+        return upper;
+    }
+
+    public boolean isWholeTable() {
+        return column == null;
+    }
+
+    /**
+     * @return number of key values covered, saturating at Long.MAX_VALUE
+     */
+    public long getSpan() {
+        long span = upper - lower + 1;
+        return span <= 0 ? Long.MAX_VALUE : span;
+    }
+
+    /**
+     * Split into up to parts contiguous ranges of near equal span
+     *
+     * @param parts Number of ranges wanted
+     *
+     * @return Ranges in key order, this range alone if it cannot be split
+     */
+    public List<KeyRange> split(int parts) {
+        if (isWholeTable() || parts < 2 || getSpan() < 2) {
+            return Collections.singletonList(this);
+        }
+        long step = (getSpan() - 1) / parts + 1;
+        List<KeyRange> ranges = new ArrayList<KeyRange>(parts);
+        long start = lower;
+        while (true) {
+            if (upper - start < step) {
+                ranges.add(new KeyRange(schema, table, column, start, upper));
+                break;
+            }
+            ranges.add(new KeyRange(schema, table, column, start, start + step - 1));
+            start += step;
+        }
+        return ranges;
+    }
+
+    @Override
+    public int compareTo(KeyRange other) {
+        int compare = schema.compareTo(other.schema);
+        if (compare == 0) {
+            compare = table.compareTo(other.table);
+        }
+        if (compare == 0) {
+            compare = Long.compare(lower, other.lower);
+        }
+        return compare;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof KeyRange)) {
+            return false;
+        }
+        KeyRange range = (KeyRange) other;
+        return schema.equals(range.schema) && table.equals(range.table) && Objects.equals(column, range.column)
+                && lower == range.lower && upper == range.upper;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(schema, table, column, lower, upper);
+    }
+
+    @Override
+    public String toString() {
+        return schema + "." + table + (column == null ? "" : " " + column + " [" + lower + ", " + upper + "]");
+    }
+}
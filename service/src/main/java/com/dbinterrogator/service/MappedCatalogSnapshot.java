@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Catalog snapshot read straight from a memory-mapped file written by
+ * {@link CatalogSnapshotWriter}.
+ *
+ * Opening a snapshot only maps the file and validates its header.  Schema
+ * and table lookups binary search the fixed-width records in place and
+ * materialise only the objects asked for, so a snapshot of a very large
+ * server costs almost nothing to open and little heap to query.
+ */
+public final class MappedCatalogSnapshot implements CatalogSource {
+
+    static final int MAGIC = 0x44424943;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 96;
+    static final int SCHEMA_RECORD = 20;
+    static final int TABLE_RECORD = 60;
+    static final int COLUMN_RECORD = 28;
+    static final int KEY_RECORD = 20;
+    static final int KEY_COLUMN_RECORD = 8;
+
+    private final ByteBuffer buffer;
+    private final Instant capturedAt;
+    private final int stringCount;
+    private final int schemaCount;
+    private final int tableCount;
+    private final int stringOffsets;
+    private final int stringData;
+    private final int schemaRecords;
+    private final int tableRecords;
+    private final int columnRecords;
+    private final int keyRecords;
+    private final int keyColumnRecords;
+    private final String[] decoded;
+
+    private MappedCatalogSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a catalog snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported catalog snapshot version: " + buffer.getInt(4));
+        }
+        long captured = buffer.getLong(8);
+        this.capturedAt = captured == Long.MIN_VALUE ? null : Instant.ofEpochMilli(captured);
+        this.stringCount = buffer.getInt(16);
+        this.schemaCount = buffer.getInt(20);
+        this.tableCount = buffer.getInt(24);
+        this.stringOffsets = (int) buffer.getLong(40);
+        this.stringData = (int) buffer.getLong(48);
+        this.schemaRecords = (int) buffer.getLong(56);
+        this.tableRecords = (int) buffer.getLong(64);
+        this.columnRecords = (int) buffer.getLong(72);
+        this.keyRecords = (int) buffer.getLong(80);
+        this.keyColumnRecords = (int) buffer.getLong(88);
+        this.decoded = new String[stringCount];
+    }
+
+    /**
+     * Map a snapshot file into memory
+     *
+     * @param path Snapshot file
+     *
+     * @return MappedCatalogSnapshot
+     */
+    public static MappedCatalogSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Catalog snapshot too large to map: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedCatalogSnapshot(buffer);
+        }
+    }
+
+    @Override
+    public Instant getCapturedAt() {
+        return capturedAt;
+    }
+
+    public int getSchemaCount() {
+        return schemaCount;
+    }
+
+    public int getTableCount() {
+        return tableCount;
+    }
+
+    @Override
+    public List<String> getSchemaNames() {
+        List<String> names = new ArrayList<String>(schemaCount);
+        for (int i = 0; i < schemaCount; i++) {
+            names.add(string(buffer.getInt(schemaRecords + i * SCHEMA_RECORD)));
+        }
+        return names;
+    }
+
+    /**
+     * @param schema Schema Name
+     *
+     * @return table names in sorted order, or null if the schema is not part of the snapshot
+     */
+    public List<String> getTableNames(String schema) {
+        int schemaIndex = findSchema(schema);
+        if (schemaIndex < 0) {
+            return null;
+        }
+        int record = schemaRecords + schemaIndex * SCHEMA_RECORD;
+        int first = buffer.getInt(record + 12);
+        int count = buffer.getInt(record + 16);
+        List<String> names = new ArrayList<String>(count);
+        for (int i = first; i < first + count; i++) {
+            names.add(string(buffer.getInt(tableRecords + i * TABLE_RECORD)));
+        }
+        return names;
+    }
+
+    /**
+     * Materialise a single schema and its tables
+     */
+    @Override
+    public CatalogSchema getSchema(String schema) {
+        int schemaIndex = findSchema(schema);
+        if (schemaIndex < 0) {
+            return null;
+        }
+        int record = schemaRecords + schemaIndex * SCHEMA_RECORD;
+        int first = buffer.getInt(record + 12);
+        int count = buffer.getInt(record + 16);
+        List<CatalogTable> tables = new ArrayList<CatalogTable>(count);
+        for (int i = first; i < first + count; i++) {
+            tables.add(table(schema, i));
+        }
+        return new CatalogSchema(schema, string(buffer.getInt(record + 4)), string(buffer.getInt(record + 8)), tables);
+    }
+
+    /**
+     * Materialise a single table
+     */
+    @Override
+    public CatalogTable getTable(String schema, String table) {
+        int schemaIndex = findSchema(schema);
+        if (schemaIndex < 0) {
+            return null;
+        }
+        int record = schemaRecords + schemaIndex * SCHEMA_RECORD;
+        int low = buffer.getInt(record + 12);
+        int high = low + buffer.getInt(record + 16) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int compare = string(buffer.getInt(tableRecords + middle * TABLE_RECORD)).compareTo(table);
+            if (compare < 0) {
+                low = middle + 1;
+            } else if (compare > 0) {
+                high = middle - 1;
+            } else {
+                return table(schema, middle);
+            }
+        }
+        return null;
+    }
+
+    public CatalogColumn getColumn(String schema, String table, String column) {
+        CatalogTable catalogTable = getTable(schema, table);
+        return catalogTable == null ? null : catalogTable.getColumn(column);
+    }
+
+    /**
+     * Materialise the whole snapshot on the heap
+     *
+     * @return CatalogSnapshot
+     */
+    public CatalogSnapshot toCatalogSnapshot() {
+        List<CatalogSchema> schemata = new ArrayList<CatalogSchema>(schemaCount);
+        for (String schema : getSchemaNames()) {
+            schemata.add(getSchema(schema));
+        }
+        return new CatalogSnapshot(capturedAt, schemata);
+    }
+
+    private int findSchema(String schema) {
+        int low = 0;
+        int high = schemaCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int compare = string(buffer.getInt(schemaRecords + middle * SCHEMA_RECORD)).compareTo(schema);
+            if (compare < 0) {
+                low = middle + 1;
+            } else if (compare > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private CatalogTable table(String schema, int index) {
+        int record = tableRecords + index * TABLE_RECORD;
+        int firstColumn = buffer.getInt(record + 44);
+        int columnCount = buffer.getInt(record + 48);
+        int firstKey = buffer.getInt(record + 52);
+        int keyCount = buffer.getInt(record + 56);
+
+        List<CatalogColumn> columns = new ArrayList<CatalogColumn>(columnCount);
+        for (int i = firstColumn; i < firstColumn + columnCount; i++) {
+            int column = columnRecords + i * COLUMN_RECORD;
+            columns.add(new CatalogColumn(
+                    string(buffer.getInt(column)),
+                    buffer.getInt(column + 4),
+                    string(buffer.getInt(column + 8)),
+                    string(buffer.getInt(column + 12)),
+                    buffer.getInt(column + 16) != 0,
+                    string(buffer.getInt(column + 20)),
+                    string(buffer.getInt(column + 24))));
+        }
+
+        List<CatalogKey> keys = new ArrayList<CatalogKey>(keyCount);
+        for (int i = firstKey; i < firstKey + keyCount; i++) {
+            int key = keyRecords + i * KEY_RECORD;
+            String referencedTable = string(buffer.getInt(key + 8));
+            int firstKeyColumn = buffer.getInt(key + 12);
+            int keyColumnCount = buffer.getInt(key + 16);
+            List<String> keyColumns = new ArrayList<String>(keyColumnCount);
+            List<String> referencedColumns = referencedTable == null ? null : new ArrayList<String>(keyColumnCount);
+            for (int j = firstKeyColumn; j < firstKeyColumn + keyColumnCount; j++) {
+                int keyColumn = keyColumnRecords + j * KEY_COLUMN_RECORD;
+                keyColumns.add(string(buffer.getInt(keyColumn)));
+                if (referencedColumns != null) {
+                    referencedColumns.add(string(buffer.getInt(keyColumn + 4)));
+                }
+            }
+            keys.add(new CatalogKey(string(buffer.getInt(key)), keyColumns, string(buffer.getInt(key + 4)), referencedTable, referencedColumns));
+        }
+
+        return new CatalogTable(
+                schema,
+                string(buffer.getInt(record)),
+                string(buffer.getInt(record + 4)),
+                string(buffer.getInt(record + 8)),
+                nullable(buffer.getLong(record + 12)),
+                nullable(buffer.getLong(record + 20)),
+                instant(buffer.getLong(record + 28)),
+                instant(buffer.getLong(record + 36)),
+                columns,
+                keys);
+    }
+
+    /**
+     * Decode a dictionary string, caching it for later lookups
+     */
+    private String string(int id) {
+        if (id < 0) {
+            return null;
+        }
+        String string = decoded[id];
+        if (string == null) {
+            int start = buffer.getInt(stringOffsets + id * 4);
+            int end = buffer.getInt(stringOffsets + (id + 1) * 4);
+            byte[] bytes = new byte[end - start];
+            ByteBuffer slice = buffer.duplicate();
+            slice.position(stringData + start);
+            slice.get(bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+            decoded[id] = string;
+        }
+        return string;
+    }
+
+    private static Long nullable(long value) {
+        return value == Long.MIN_VALUE ? null : value;
+    }
+
+    private static Instant instant(long value) {
+        return value == Long.MIN_VALUE ? null : Instant.ofEpochMilli(value);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Destination for latency measurements.  Implementations must be thread
+ * safe, as measurements arrive from every pooled connection at once.
+ */
+public interface MetricsRegistry {
+
+    /**
+     * What a measurement covers
+     */
+    public enum Phase {
+        /** A whole InterrogatorService method call */
+        CALL,
+        /** Opening a connection */
+        CONNECT,
+        /** Preparing a statement on the server */
+        PREPARE,
+        /** Executing a query up to its first rows */
+        EXECUTE,
+        /** Reading rows of an executed query, excluding time spent by the reader */
+        FETCH
+    }
+
+    /**
+     * A measurement in progress
+     */
+    public interface Timer {
+
+        /**
+         * Complete the measurement
+         *
+         * @param nanos Elapsed time in nanoseconds, which may be less than the
+         *              time since it started, as for {@link Phase#FETCH}
+         * @param rows Rows returned, 0 if not applicable
+         * @param bytes Approximate bytes of row data fetched, 0 if not applicable
+         * @param failed Whether the operation ended with an error
+         */
+        public void stop(long nanos, long rows, long bytes, boolean failed);
+    }
+
+    /** Registry that discards every measurement */
+    public static final MetricsRegistry NONE = (phase, name, nanos, rows, bytes, failed) -> { };
+
+    /**
+     * Record a completed measurement
+     *
+     * @param phase Phase
+     * @param name Method or query name
+     * @param nanos Elapsed time in nanoseconds
+     * @param rows Rows returned, 0 if not applicable
+     * @param bytes Approximate bytes of row data fetched, 0 if not applicable
+     * @param failed Whether the operation ended with an error
+     */
+    public void record(Phase phase, String name, long nanos, long rows, long bytes, boolean failed);
+
+    /**
+     * Begin a measurement, for registries that need to see when it started.
+     * By default the measurement is recorded once the timer stops.
+     *
+     * @param phase Phase
+     * @param name Method or query name
+     *
+     * @return Timer to stop when the operation ends
+     */
+    public default Timer start(Phase phase, String name) {
+        return (nanos, rows, bytes, failed) -> record(phase, name, nanos, rows, bytes, failed);
+    }
+
+    /**
+     * Send every measurement to several registries
+     *
+     * @param registries Registries
+     *
+     * @return MetricsRegistry
+     */
+    public static MetricsRegistry of(MetricsRegistry... registries) {
+        List<MetricsRegistry> targets = Arrays.asList(registries.clone());
+        return new MetricsRegistry() {
+            @Override
+            public void record(Phase phase, String name, long nanos, long rows, long bytes, boolean failed) {
+                for (MetricsRegistry target : targets) {
+                    target.record(phase, name, nanos, rows, bytes, failed);
+                }
+            }
+
+            @Override
+            public Timer start(Phase phase, String name) {
+                Timer[] timers = new Timer[targets.size()];
+                for (int i = 0; i < timers.length; i++) {
+                    timers[i] = targets.get(i).start(phase, name);
+                }
+                return (nanos, rows, bytes, failed) -> {
+                    for (Timer timer : timers) {
+                        timer.stop(nanos, rows, bytes, failed);
+                    }
+                };
+            }
+        };
+    }
+}
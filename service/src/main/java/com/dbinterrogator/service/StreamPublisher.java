@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Publishes a blocking stream without parking a thread on it.
+ *
+ * Rows are pulled on the executor only while the subscriber has demand.
+ * Once demand runs out the task ends, leaving the stream open, and the
+ * next request schedules it again.  Signals to a subscriber are never
+ * concurrent, as at most one task per subscription is ever scheduled.
+ */
+class StreamPublisher<T> implements Flow.Publisher<T> {
+
+    private final Supplier<Stream<T>> source;
+    private final Executor executor;
+
+    StreamPublisher(Supplier<Stream<T>> source, Executor executor) {
+        this.source = source;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Subscription subscription = new Subscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private final class Subscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        //Signals since the drain task last looked, the task is scheduled when this leaves zero
+        private final AtomicInteger signals = new AtomicInteger();
+        private volatile boolean cancelled = false;
+        private volatile long invalidRequest = 0;
+        //Only touched by the drain task
+        private Stream<T> stream;
+        private Iterator<T> rows;
+        private boolean done = false;
+
+        private Subscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = n;
+            } else {
+                demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (signals.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int seen = signals.get();
+            while (true) {
+                drain();
+                int remaining = signals.addAndGet(-seen);
+                if (remaining == 0) {
+                    return;
+                }
+                seen = remaining;
+            }
+        }
+
+        private void drain() {
+            if (done) {
+                return;
+            }
+            if (cancelled) {
+                finish();
+                return;
+            }
+            if (invalidRequest != 0) {
+                finish();
+                subscriber.onError(new IllegalArgumentException("Request must be positive: " + invalidRequest));
+                return;
+            }
+            try {
+                if (rows == null) {
+                    stream = source.get();
+                    rows = stream.iterator();
+                }
+                while (demand.get() > 0) {
+                    if (cancelled) {
+                        finish();
+                        return;
+                    }
+                    if (!rows.hasNext()) {
+                        finish();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    T row = rows.next();
+                    //Unbounded demand is never counted down
+                    demand.getAndUpdate(current -> current == Long.MAX_VALUE ? current : current - 1);
+                    subscriber.onNext(row);
+                }
+            } catch (RuntimeException e) {
+                finish();
+                subscriber.onError(e);
+            }
+        }
+
+        private void finish() {
+            done = true;
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+}
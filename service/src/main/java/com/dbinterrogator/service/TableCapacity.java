@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Comparator;
+
+/**
+ * How much of its data type's range an identity column has consumed
+ */
+public final class TableCapacity implements Comparable<TableCapacity> {
+
+    /**
+     * Where the current value was read from
+     */
+    public enum Source {
+        /** Next value reported by the table metadata */
+        METADATA,
+        /** Highest stored value found by probing the column */
+        PROBE,
+        /** Neither the metadata nor a probe yielded a value, so the column may be at any point of its range */
+        UNKNOWN
+    }
+
+    private static final Comparator<Double> BY_RISK = Comparator.nullsFirst(Comparator.<Double>reverseOrder());
+
+    private final String schema;
+    private final String table;
+    private final String column;
+    private final String columnType;
+    private final BigInteger currentValue;
+    private final BigInteger maxValue;
+    private final Source source;
+    private final Double percentUsed;
+
+    /**
+     * @param currentValue Highest value allocated, null with Source.UNKNOWN when it could not be read
+     */
+    public TableCapacity(String schema, String table, String column, String columnType,
+                         BigInteger currentValue, BigInteger maxValue, Source source) {
+        this.schema = schema;
+        this.table = table;
+        this.column = column;
+        this.columnType = columnType;
+        this.currentValue = currentValue;
+        this.maxValue = maxValue;
+        this.source = source;
+        if (currentValue == null) {
+            this.percentUsed = null;
+        } else if (maxValue.signum() > 0) {
+            this.percentUsed = new BigDecimal(currentValue).multiply(BigDecimal.valueOf(100))
+                    .divide(new BigDecimal(maxValue), 4, RoundingMode.HALF_UP).doubleValue();
+        } else {
+            this.percentUsed = 0.0;
+        }
+    }
+
+    public String getSchema() {
+        return schema;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public String getColumnType() {
+        return columnType;
+    }
+
+    /**
+     * @return highest value currently allocated, null when unknown
+     */
+    public BigInteger getCurrentValue() {
+        return currentValue;
+    }
+
+    /**
+     * @return highest value the column type can hold
+     */
+    public BigInteger getMaxValue() {
+        return maxValue;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    /**
+     * @return percentage of the column range already used, null when unknown
+     */
+    public Double getPercentUsed() {
+        return percentUsed;
+    }
+
+    /**
+     * Orders by risk, unknown first as they could be anywhere near their
+     * limit, then most consumed first
+     */
+    @Override
+    public int compareTo(TableCapacity other) {
+        int compare = BY_RISK.compare(percentUsed, other.percentUsed);
+        if (compare == 0) {
+            compare = (schema + "." + table).compareTo(other.schema + "." + other.table);
+        }
+        return compare;
+    }
+
+    @Override
+    public String toString() {
+        return schema + "." + table + "." + column + " " + columnType + " " + (currentValue == null ? "?" : currentValue) + "/" + maxValue
+                + (percentUsed == null ? " (unknown)" : " (" + percentUsed + "%)");
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.util.Objects;
+
+/**
+ * Row count and order independent content hash of a key range
+ */
+public final class TableChecksum {
+
+    private final long rows;
+    private final String checksum;
+
+    public TableChecksum(long rows, String checksum) {
+        this.rows = rows;
+        this.checksum = Objects.requireNonNull(checksum, "checksum");
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof TableChecksum)) {
+            return false;
+        }
+        TableChecksum tableChecksum = (TableChecksum) other;
+        return rows == tableChecksum.rows && checksum.equals(tableChecksum.checksum);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(rows, checksum);
+    }
+
+    @Override
+    public String toString() {
+        return rows + " rows " + checksum;
+    }
+}
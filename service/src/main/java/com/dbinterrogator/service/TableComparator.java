@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Compare table contents on two servers without copying rows.  Each table
+ * is split into primary key ranges whose checksums are computed server side
+ * on both servers at once; only ranges that differ are split again, so the
+ * work and traffic grow with the number of differences rather than the size
+ * of the tables.
+ */
+public class TableComparator {
+
+    //Defaults
+    public static final long DEFAULT_CHUNK_SIZE = 100000;
+    public static final int DEFAULT_SPLIT_FACTOR = 16;
+    public static final long DEFAULT_LEAF_SIZE = 1000;
+
+    //Target calls block on JDBC, so by default each runs on a thread of its own rather than in the common pool
+    private static final Executor THREAD_PER_CALL = runnable -> {
+        Thread thread = new Thread(runnable, "table-comparator-target");
+        thread.setDaemon(true);
+        thread.start();
+    };
+
+    private final InterrogatorService source;
+    private final InterrogatorService target;
+    private final Executor executor;
+    private long chunkSize = DEFAULT_CHUNK_SIZE;
+    private int splitFactor = DEFAULT_SPLIT_FACTOR;
+    private long leafSize = DEFAULT_LEAF_SIZE;
+    private long rangesCompared;
+
+    public TableComparator(InterrogatorService source, InterrogatorService target) {
+        this(source, target, THREAD_PER_CALL);
+    }
+
+    /**
+     * @param source Source interrogator, called on the comparing thread
+     * @param target Target interrogator, called on executor alongside the source
+     * @param executor Executor the blocking target calls run on
+     */
+    public TableComparator(InterrogatorService source, InterrogatorService target, Executor executor) {
+        this.source = source;
+        this.target = target;
+        this.executor = executor;
+    }
+
+    /**
+     * @param chunkSize Key values per range on the first pass
+     */
+    public void setChunkSize(long chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @param splitFactor Ranges a differing range is split into
+     */
+    public void setSplitFactor(int splitFactor) {
+        if (splitFactor < 2) {
+            throw new IllegalArgumentException("splitFactor must be at least 2");
+        }
+        this.splitFactor = splitFactor;
+    }
+
+    /**
+     * @param leafSize Span at or below which a differing range is reported rather than split
+     */
+    public void setLeafSize(long leafSize) {
+        if (leafSize < 1) {
+            throw new IllegalArgumentException("leafSize must be positive");
+        }
+        this.leafSize = leafSize;
+    }
+
+    /**
+     * @return ranges checksummed on each server by the last compare
+     */
+    public long getRangesCompared() {
+        return rangesCompared;
+    }
+
+    /**
+     * Compare tables that exist on both servers
+     *
+     * @param schema Schema Name
+     * @param tables Table Names
+     *
+     * @return Smallest differing ranges, ordered by table and key
+     */
+    public List<ChecksumDifference> compare(String schema, Collection<String> tables) {
+        rangesCompared = 0;
+        List<ChecksumDifference> differences = new ArrayList<ChecksumDifference>();
+        List<KeyRange> ranges = plan(schema, tables);
+        while (!ranges.isEmpty()) {
+            List<KeyRange> level = ranges;
+            CompletableFuture<Map<KeyRange, TableChecksum>> targetChecksums = CompletableFuture.supplyAsync(() -> target.getChecksums(level), executor);
+            Map<KeyRange, TableChecksum> sourceChecksums = source.getChecksums(level);
+            Map<KeyRange, TableChecksum> targetResults = targetChecksums.join();
+            rangesCompared += level.size();
+
+            ranges = new ArrayList<KeyRange>();
+            for (KeyRange range : level) {
+                TableChecksum before = sourceChecksums.get(range);
+                TableChecksum after = targetResults.get(range);
+                if (before != null && before.equals(after)) {
+                    continue;
+                }
+                if (before != null && after != null && !range.isWholeTable() && range.getSpan() > leafSize) {
+                    ranges.addAll(range.split(splitFactor));
+                } else {
+                    differences.add(new ChecksumDifference(range, before, after));
+                }
+            }
+        }
+        Collections.sort(differences, Comparator.comparing(ChecksumDifference::getRange));
+        return differences;
+    }
+
+    /**
+     * First pass ranges, covering the key values present on either server
+     */
+    private List<KeyRange> plan(String schema, Collection<String> tables) {
+        Map<String, ArrayList<String>> identityColumns = source.getIdentityColumns(schema, tables);
+        List<ColumnReference> keys = new ArrayList<ColumnReference>();
+        for (Map.Entry<String, ArrayList<String>> columns : identityColumns.entrySet()) {
+            if (columns.getValue().size() == 1) {
+                keys.add(new ColumnReference(schema, columns.getKey(), columns.getValue().get(0)));
+            }
+        }
+        CompletableFuture<Map<ColumnReference, String>> targetMin = CompletableFuture.supplyAsync(() -> target.getMinValues(keys), executor);
+        CompletableFuture<Map<ColumnReference, String>> targetMax = CompletableFuture.supplyAsync(() -> target.getMaxValues(keys), executor);
+        Map<ColumnReference, String> sourceMin = source.getMinValues(keys);
+        Map<ColumnReference, String> sourceMax = source.getMaxValues(keys);
+
+        List<KeyRange> ranges = new ArrayList<KeyRange>();
+        for (String table : tables) {
+            ArrayList<String> columns = identityColumns.get(table);
+            if (columns == null || columns.size() != 1) {
+                ranges.add(KeyRange.wholeTable(schema, table));
+                continue;
+            }
+            ColumnReference key = new ColumnReference(schema, table, columns.get(0));
+            if (!sourceMin.containsKey(key) || !sourceMax.containsKey(key)
+                    || !targetMin.join().containsKey(key) || !targetMax.join().containsKey(key)) {
+                //A failed probe is not an empty table, ranging over one server's keys alone could miss rows
+                System.err.println(key + ": key bounds could not be read, comparing the whole table");
+                ranges.add(KeyRange.wholeTable(schema, table));
+                continue;
+            }
+            Long min = bound(sourceMin.get(key), targetMin.join().get(key), true);
+            Long max = bound(sourceMax.get(key), targetMax.join().get(key), false);
+            if (min == null || max == null) {
+                //Not an integer key, or empty on both servers
+                ranges.add(KeyRange.wholeTable(schema, table));
+            } else {
+                ranges.addAll(KeyRange.aligned(schema, table, key.getColumn(), min, max, chunkSize));
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Widest of two bounds, null if neither is an integer.  A side that is
+     * empty, probed successfully but holding no value, yields no bound, but a
+     * side holding a value that is not an integer rules out ranging
+     * altogether.
+     */
+    private static Long bound(String first, String second, boolean lowest) {
+        Long a = parse(first);
+        Long b = parse(second);
+        if (a == null && !isEmpty(first) || b == null && !isEmpty(second)) {
+            return null;
+        }
+        if (a == null || b == null) {
+            return a == null ? b : a;
+        }
+        return lowest ? Math.min(a, b) : Math.max(a, b);
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    private static Long parse(String value) {
+        if (isEmpty(value)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+}
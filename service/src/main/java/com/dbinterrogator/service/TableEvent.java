@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+/**
+ * A table whose change markers moved between two polls of a
+ * {@link CatalogWatcher}
+ */
+public final class TableEvent {
+
+    /**
+     * What moved, the first matching in declaration order when several did
+     */
+    public enum Type {
+        CREATED,
+        DROPPED,
+        REBUILT,
+        AUTO_INCREMENT,
+        WRITTEN
+    }
+
+    private final Type type;
+    private final TableMarker previous;
+    private final TableMarker current;
+
+    public TableEvent(Type type, TableMarker previous, TableMarker current) {
+        this.type = type;
+        this.previous = previous;
+        this.current = current;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getSchema() {
+        return current == null ? previous.getSchema() : current.getSchema();
+    }
+
+    public String getTable() {
+        return current == null ? previous.getTable() : current.getTable();
+    }
+
+    /**
+     * @return markers before the change, or null for a created table
+     */
+    public TableMarker getPrevious() {
+        return previous;
+    }
+
+    /**
+     * @return markers after the change, or null for a dropped table
+     */
+    public TableMarker getCurrent() {
+        return current;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(type).append(' ').append(getSchema()).append('.').append(getTable());
+        if (type == Type.AUTO_INCREMENT) {
+            sb.append(' ').append(previous.getAutoIncrement()).append(" -> ").append(current.getAutoIncrement());
+        }
+        return sb.toString();
+    }
+}
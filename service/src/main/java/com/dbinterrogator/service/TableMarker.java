@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Change markers of a table as last reported by the server
+ */
+public final class TableMarker {
+
+    private final String schema;
+    private final String table;
+    private final Instant createTime;
+    private final Instant updateTime;
+    private final Long autoIncrement;
+
+    public TableMarker(String schema, String table, Instant createTime, Instant updateTime, Long autoIncrement) {
+        this.schema = schema;
+        this.table = table;
+        this.createTime = createTime;
+        this.updateTime = updateTime;
+        this.autoIncrement = autoIncrement;
+    }
+
+    public String getSchema() {
+        return schema;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * @return when the table was created or last rebuilt, or null if unknown
+     */
+    public Instant getCreateTime() {
+        return createTime;
+    }
+
+    /**
+     * @return when the table was last written to, or null if unknown
+     */
+    public Instant getUpdateTime() {
+        return updateTime;
+    }
+
+    /**
+     * @return next auto increment value, or null if the table has none
+     */
+    public Long getAutoIncrement() {
+        return autoIncrement;
+    }
+
+    /**
+     * @return latest of the create and update times, or null if both are unknown
+     */
+    public Instant getLastChanged() {
+        if (createTime == null || updateTime != null && updateTime.isAfter(createTime)) {
+            return updateTime;
+        }
+        return createTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TableMarker)) {
+            return false;
+        }
+        TableMarker other = (TableMarker) o;
+        return schema.equals(other.schema) && table.equals(other.table) && Objects.equals(createTime, other.createTime)
+                && Objects.equals(updateTime, other.updateTime) && Objects.equals(autoIncrement, other.autoIncrement);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(schema, table, createTime, updateTime, autoIncrement);
+    }
+
+    @Override
+    public String toString() {
+        return schema + "." + table + " created " + createTime + " updated " + updateTime + " auto_increment " + autoIncrement;
+    }
+}
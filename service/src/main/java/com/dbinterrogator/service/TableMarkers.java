@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Markers of the tables changed since a point in time, with the number of
+ * tables that exist now so that drops can be noticed without listing them
+ */
+public final class TableMarkers {
+
+    private final long tableCount;
+    private final List<TableMarker> markers;
+
+    public TableMarkers(long tableCount, List<TableMarker> markers) {
+        this.tableCount = tableCount;
+        this.markers = Collections.unmodifiableList(new ArrayList<TableMarker>(markers));
+    }
+
+    /**
+     * @return base tables in scope, changed or not
+     */
+    public long getTableCount() {
+        return tableCount;
+    }
+
+    public List<TableMarker> getMarkers() {
+        return markers;
+    }
+}
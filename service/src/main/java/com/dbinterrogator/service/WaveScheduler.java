@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.dbinterrogator.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Run per-table work across a pool without breaking foreign key order.
+ *
+ * Rather than waiting for a whole wave to finish, each table starts as soon
+ * as every table it depends on has finished, so one slow table only holds up
+ * its own dependents.  Tables in a cycle start together once everything
+ * outside the cycle they depend on is done.  When a table's work fails,
+ * tables depending on it are skipped rather than run against missing data.
+ */
+public class WaveScheduler {
+
+    /**
+     * Direction of the work
+     */
+    public enum Order {
+        //e.g. loading or restoring, referenced tables first
+        DEPENDENCIES_FIRST,
+        //e.g. deleting or dropping, referencing tables first
+        DEPENDENTS_FIRST
+    }
+
+    private final DependencyGraph graph;
+    private final int parallelism;
+
+    /**
+     * @param graph Tables and their dependencies
+     * @param parallelism Tables worked on at once
+     */
+    public WaveScheduler(DependencyGraph graph, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.graph = graph;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Run a task for every table in the graph, blocking until all are done
+     *
+     * @param order Direction of the work
+     * @param task Work for one table
+     *
+     * @return Tables whose task failed with the exception thrown, and tables
+     *         skipped because one they depend on failed, in table order
+     */
+    public Map<TableReference, Throwable> run(Order order, Consumer<TableReference> task) throws InterruptedException {
+        List<Group> groups = new ArrayList<Group>();
+        Map<TableReference, Group> groupOf = new HashMap<TableReference, Group>();
+        for (List<TableReference> tables : graph.getGroups()) {
+            Group group = new Group(tables);
+            groups.add(group);
+            for (TableReference table : tables) {
+                groupOf.put(table, group);
+            }
+        }
+        //A group waits on the groups it depends on, or on its dependents when working backwards
+        for (Group group : groups) {
+            for (TableReference table : group.tables) {
+                Set<TableReference> before = order == Order.DEPENDENCIES_FIRST ? graph.getDependencies(table) : graph.getDependents(table);
+                for (TableReference other : before) {
+                    Group waitFor = groupOf.get(other);
+                    if (waitFor != group && waitFor.next.add(group)) {
+                        group.waiting.incrementAndGet();
+                    }
+                }
+            }
+        }
+
+        Map<TableReference, Throwable> failures = new ConcurrentHashMap<TableReference, Throwable>();
+        CountDownLatch done = new CountDownLatch(graph.getTables().size());
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "wave-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Scheduling scheduling = new Scheduling(executor, task, failures, done);
+        try {
+            //Picked before any start, a group whose last dependency finishes meanwhile is started by that finish
+            List<Group> ready = new ArrayList<Group>();
+            for (Group group : groups) {
+                if (group.waiting.get() == 0) {
+                    ready.add(group);
+                }
+            }
+            for (Group group : ready) {
+                scheduling.start(group);
+            }
+            done.await();
+        } finally {
+            executor.shutdownNow();
+        }
+        return new TreeMap<TableReference, Throwable>(failures);
+    }
+
+    private static final class Group {
+        private final List<TableReference> tables;
+        private final Set<Group> next = new LinkedHashSet<Group>();
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final AtomicInteger running;
+        private final AtomicBoolean failed = new AtomicBoolean();
+        private volatile TableReference failedDependency = null;
+
+        private Group(List<TableReference> tables) {
+            this.tables = tables;
+            this.running = new AtomicInteger(tables.size());
+        }
+    }
+
+    private static final class Scheduling {
+        private final ExecutorService executor;
+        private final Consumer<TableReference> task;
+        private final Map<TableReference, Throwable> failures;
+        private final CountDownLatch done;
+
+        private Scheduling(ExecutorService executor, Consumer<TableReference> task, Map<TableReference, Throwable> failures, CountDownLatch done) {
+            this.executor = executor;
+            this.task = task;
+            this.failures = failures;
+            this.done = done;
+        }
+
+        private void start(Group group) {
+            for (TableReference table : group.tables) {
+                if (group.failedDependency != null) {
+                    failures.put(table, new IllegalStateException("Skipped, " + group.failedDependency + " failed"));
+                    finished(group, table, false);
+                } else {
+                    executor.execute(() -> {
+                        boolean succeeded = false;
+                        try {
+                            task.accept(table);
+                            succeeded = true;
+                        } catch (Throwable t) {
+                            failures.put(table, t);
+                        } finally {
+                            finished(group, table, succeeded);
+                        }
+                    });
+                }
+            }
+        }
+
+        private void finished(Group group, TableReference table, boolean succeeded) {
+            if (!succeeded) {
+                group.failed.set(true);
+            }
+            done.countDown();
+            if (group.running.decrementAndGet() > 0) {
+                return;
+            }
+            for (Group next : group.next) {
+                if (group.failed.get()) {
+                    next.failedDependency = group.failedDependency != null ? group.failedDependency : firstFailure(group);
+                }
+                if (next.waiting.decrementAndGet() == 0) {
+                    start(next);
+                }
+            }
+        }
+
+        private TableReference firstFailure(Group group) {
+            for (TableReference table : group.tables) {
+                if (failures.containsKey(table)) {
+                    return table;
+                }
+            }
+            return group.tables.get(0);
+        }
+    }
+}
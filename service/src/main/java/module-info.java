@@ -1,4 +1,5 @@
 module com.dbinterrogator.service {
+    requires static jdk.jfr;
     exports com.dbinterrogator.service;
     uses com.dbinterrogator.service.InterrogatorService;
 }
\ No newline at end of file
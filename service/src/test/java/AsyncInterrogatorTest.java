@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dbinterrogator.service.AsyncInterrogator;
+import com.dbinterrogator.service.AsyncInterrogatorService;
+import com.dbinterrogator.service.InterrogatorService;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+class AsyncInterrogatorTest {
+
+    /**
+     * Interrogator answering getTables with the database name, and streaming
+     * the given number of tables
+     */
+    private static InterrogatorService server(int tables, AtomicBoolean closed, Set<String> threads) {
+        return StubInterrogator.of((method, args) -> {
+            threads.add(Thread.currentThread().getName());
+            switch (method.getName()) {
+                case "getTables":
+                    return new ArrayList<String>(Collections.singletonList((String) args[0]));
+                case "getSchemata":
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+                    return new ArrayList<String>();
+                case "streamTables":
+                    return IntStream.range(0, tables).mapToObj(i -> "t" + i).onClose(() -> closed.set(true));
+                default:
+                    return null;
+            }
+        });
+    }
+
+    @Test
+    void sharedThreadsTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<ArrayList<String>>> calls = new ArrayList<CompletableFuture<ArrayList<String>>>();
+        //Many servers sharing one executor
+        for (int i = 0; i < 5000; i++) {
+            calls.add(new AsyncInterrogator(server(0, new AtomicBoolean(), threads), executor).getTables("db" + i));
+        }
+        for (int i = 0; i < calls.size(); i++) {
+            assertEquals(Collections.singletonList("db" + i), calls.get(i).get(10, TimeUnit.SECONDS));
+        }
+        assertTrue(threads.size() <= 4, threads.toString());
+        executor.shutdown();
+    }
+
+    @Test
+    void timeoutTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        AsyncInterrogatorService interrogator = new AsyncInterrogator(server(0, new AtomicBoolean(), ConcurrentHashMap.newKeySet()), executor);
+        CompletableFuture<ArrayList<String>> slow = interrogator.withTimeout(100, TimeUnit.MILLISECONDS).getSchemata();
+        ExecutionException error = assertThrows(ExecutionException.class, () -> slow.get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof TimeoutException);
+        //The single thread was freed by the interrupt rather than after ten seconds
+        assertEquals(Collections.singletonList("db"), interrogator.getTables("db").get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    void cancelTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        CountDownLatch blocked = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CompletableFuture<ArrayList<String>> queued = new AsyncInterrogator(server(0, new AtomicBoolean(), threads), executor).getTables("db");
+        assertTrue(queued.cancel(true));
+        blocked.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(threads.isEmpty());
+    }
+
+    @Test
+    void streamDemandTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        AtomicBoolean closed = new AtomicBoolean();
+        Flow.Publisher<String> tables = new AsyncInterrogator(server(5, closed, ConcurrentHashMap.newKeySet()), executor).streamTables("db");
+        List<String> received = Collections.synchronizedList(new ArrayList<String>());
+        CompletableFuture<Void> complete = new CompletableFuture<Void>();
+        Flow.Subscription[] subscription = new Flow.Subscription[1];
+        tables.subscribe(new Flow.Subscriber<String>() {
+            public void onSubscribe(Flow.Subscription s) {
+                subscription[0] = s;
+                s.request(2);
+            }
+            public void onNext(String table) {
+                received.add(table);
+            }
+            public void onError(Throwable t) {
+                complete.completeExceptionally(t);
+            }
+            public void onComplete() {
+                complete.complete(null);
+            }
+        });
+        Thread.sleep(200);
+        assertEquals(Arrays.asList("t0", "t1"), received);
+        assertFalse(closed.get());
+        subscription[0].request(Long.MAX_VALUE);
+        complete.get(5, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList("t0", "t1", "t2", "t3", "t4"), received);
+        assertTrue(closed.get());
+        executor.shutdown();
+    }
+
+    @Test
+    void streamCancelTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        AtomicBoolean closed = new AtomicBoolean();
+        CountDownLatch first = new CountDownLatch(1);
+        new AsyncInterrogator(server(1000, closed, ConcurrentHashMap.newKeySet()), executor).streamTables("db").subscribe(new Flow.Subscriber<String>() {
+            private Flow.Subscription subscription;
+            public void onSubscribe(Flow.Subscription s) {
+                subscription = s;
+                s.request(Long.MAX_VALUE);
+            }
+            public void onNext(String table) {
+                subscription.cancel();
+                first.countDown();
+            }
+            public void onError(Throwable t) {
+            }
+            public void onComplete() {
+            }
+        });
+        assertTrue(first.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(closed.get());
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.dbinterrogator.service.CachingInterrogator;
+import com.dbinterrogator.service.InterrogatorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+class CachingInterrogatorTest {
+
+    private final Map<String, Integer> calls = new HashMap<String, Integer>();
+    private String fingerprint = "1";
+
+    private final InterrogatorService stub = StubInterrogator.of((method, args) -> {
+        calls.merge(method.getName(), 1, Integer::sum);
+        if (method.getName().equals("getSchemaFingerprint")) {
+            return fingerprint;
+        }
+        if (method.getName().equals("getTables") && args[0] instanceof Collection) {
+            Map<String, ArrayList<String>> tables = new LinkedHashMap<String, ArrayList<String>>();
+            for (Object schema : (Collection<?>) args[0]) {
+                tables.put((String) schema, new ArrayList<String>(Arrays.asList("actor", "film")));
+            }
+            return tables;
+        }
+        if (method.getName().equals("getTables")) {
+            return new ArrayList<String>(Arrays.asList("actor", "film"));
+        }
+        return null;
+    });
+
+    @BeforeEach
+    void reset() {
+        calls.clear();
+        fingerprint = "1";
+    }
+
+    @Test
+    void hitTest() {
+        CachingInterrogator cache = new CachingInterrogator(stub);
+        cache.getTables("sakila");
+        cache.getTables("sakila");
+        assertEquals(1, (int) calls.get("getTables"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void revalidateTest() {
+        CachingInterrogator cache = new CachingInterrogator(stub, 10, 0, TimeUnit.NANOSECONDS);
+        cache.setTimeToLive("getTables", 1, TimeUnit.NANOSECONDS);
+        cache.setFingerprintInterval(0, TimeUnit.NANOSECONDS);
+        cache.getTables("sakila");
+        cache.getTables("sakila");
+        assertEquals(1, (int) calls.get("getTables"));
+        assertEquals(1, cache.getRevalidations());
+
+        fingerprint = "2";
+        cache.getTables("sakila");
+        assertEquals(2, (int) calls.get("getTables"));
+    }
+
+    @Test
+    void bulkExpiryTest() {
+        CachingInterrogator cache = new CachingInterrogator(stub, 10, 0, TimeUnit.NANOSECONDS);
+        cache.setTimeToLive("getTables", 1, TimeUnit.NANOSECONDS);
+        cache.setFingerprintInterval(0, TimeUnit.NANOSECONDS);
+        cache.getTables(Arrays.asList("sakila"));
+        cache.getTables(Arrays.asList("sakila"));
+        assertEquals(2, (int) calls.get("getTables"));
+        assertNull(calls.get("getSchemaFingerprint"));
+    }
+
+    @Test
+    void evictionTest() {
+        CachingInterrogator cache = new CachingInterrogator(stub, 2, 1, TimeUnit.MINUTES);
+        cache.getTables("a");
+        cache.getTables("b");
+        cache.getTables("a");
+        cache.getTables("c");
+        assertEquals(1, cache.getEvictions());
+        cache.getTables("a");
+        assertEquals(3, (int) calls.get("getTables"));
+        cache.getTables("b");
+        assertEquals(4, (int) calls.get("getTables"));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dbinterrogator.service.CatalogChange;
+import com.dbinterrogator.service.CatalogColumn;
+import com.dbinterrogator.service.CatalogDiff;
+import com.dbinterrogator.service.CatalogKey;
+import com.dbinterrogator.service.CatalogSchema;
+import com.dbinterrogator.service.CatalogSnapshot;
+import com.dbinterrogator.service.CatalogTable;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+class CatalogDiffTest {
+
+    private static CatalogTable table(String name, Long rows, CatalogColumn... columns) {
+        return new CatalogTable("sakila", name, "BASE TABLE", "InnoDB", rows, null, null, null, Arrays.asList(columns),
+                Collections.singletonList(new CatalogKey("PRIMARY", Collections.singletonList(columns[0].getName()), null, null, null)));
+    }
+
+    private static CatalogColumn column(String name, int position, String type) {
+        return new CatalogColumn(name, position, type.replaceAll("\\(.*", ""), type, false, position == 1 ? "PRI" : "", "");
+    }
+
+    private static CatalogSnapshot catalog(CatalogSchema... schemata) {
+        return new CatalogSnapshot(Instant.now(), Arrays.asList(schemata));
+    }
+
+    @Test
+    void unchangedTest() {
+        CatalogSnapshot before = catalog(new CatalogSchema("sakila", "utf8", "utf8_general_ci",
+                Collections.singletonList(table("actor", 10L, column("actor_id", 1, "int(11)")))));
+        CatalogSnapshot after = catalog(new CatalogSchema("sakila", "utf8", "utf8_general_ci",
+                Collections.singletonList(table("actor", 99L, column("actor_id", 1, "int(11)")))));
+        assertTrue(CatalogDiff.compare(before, after).isEmpty());
+    }
+
+    @Test
+    void changesTest() {
+        CatalogSnapshot before = catalog(
+                new CatalogSchema("old", "utf8", "utf8_general_ci", Collections.<CatalogTable>emptyList()),
+                new CatalogSchema("sakila", "utf8", "utf8_general_ci", Arrays.asList(
+                        table("actor", null, column("actor_id", 1, "int(11)"), column("name", 2, "varchar(45)")),
+                        table("store", null, column("store_id", 1, "int(11)")))));
+        CatalogSnapshot after = catalog(
+                new CatalogSchema("new", "utf8", "utf8_general_ci", Collections.<CatalogTable>emptyList()),
+                new CatalogSchema("sakila", "utf8", "utf8_general_ci", Arrays.asList(
+                        table("actor", null, column("actor_id", 1, "bigint(20)"), column("email", 2, "varchar(50)")),
+                        table("film", null, column("film_id", 1, "int(11)")))));
+
+        List<CatalogChange> changes = CatalogDiff.compare(before, after).getChanges();
+        assertEquals(Arrays.asList(
+                "ADDED SCHEMA new",
+                "DROPPED SCHEMA old",
+                "ALTERED COLUMN sakila.actor.actor_id",
+                "ADDED COLUMN sakila.actor.email",
+                "DROPPED COLUMN sakila.actor.name",
+                "ADDED TABLE sakila.film",
+                "DROPPED TABLE sakila.store"), summarise(changes));
+    }
+
+    private static List<String> summarise(List<CatalogChange> changes) {
+        String[] summary = new String[changes.size()];
+        for (int i = 0; i < summary.length; i++) {
+            CatalogChange change = changes.get(i);
+            summary[i] = change.toString().replaceAll(":.*", "");
+        }
+        return Arrays.asList(summary);
+    }
+}
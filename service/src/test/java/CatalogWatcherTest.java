@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dbinterrogator.service.CatalogWatcher;
+import com.dbinterrogator.service.InterrogatorService;
+import com.dbinterrogator.service.TableEvent;
+import com.dbinterrogator.service.TableMarker;
+import com.dbinterrogator.service.TableMarkers;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+class CatalogWatcherTest {
+
+    private static final Instant START = Instant.parse("2018-06-01T00:00:00Z");
+
+    /**
+     * Interrogator serving markers from memory, filtered on the change time
+     * the way information_schema would be
+     */
+    private static InterrogatorService server(Map<String, TableMarker> tables, AtomicLong rowsServed) {
+        return StubInterrogator.of((method, args) -> {
+            if (!method.getName().equals("getTableMarkers")) {
+                return null;
+            }
+            Instant since = (Instant) args[1];
+            List<TableMarker> changed = new ArrayList<TableMarker>();
+            for (TableMarker marker : tables.values()) {
+                if (since == null || !marker.getLastChanged().isBefore(since)) {
+                    changed.add(marker);
+                }
+            }
+            rowsServed.addAndGet(changed.size());
+            return new TableMarkers(tables.size(), changed);
+        });
+    }
+
+    private static TableMarker marker(String table, long created, long updated, Long autoIncrement) {
+        return new TableMarker("db", table, START.plusSeconds(created), START.plusSeconds(updated), autoIncrement);
+    }
+
+    @Test
+    void pollTest() {
+        Map<String, TableMarker> tables = new TreeMap<String, TableMarker>();
+        for (int i = 0; i < 1000; i++) {
+            tables.put("t" + i, marker("t" + i, 0, i % 100, (long) i));
+        }
+        AtomicLong rowsServed = new AtomicLong();
+        CatalogWatcher watcher = new CatalogWatcher(server(tables, rowsServed), "db");
+        assertTrue(watcher.poll().isEmpty());
+        assertEquals(1000, rowsServed.get());
+
+        //Nothing changed, only the tables sharing the latest second are read again
+        rowsServed.set(0);
+        assertTrue(watcher.poll().isEmpty());
+        assertEquals(10, rowsServed.get());
+
+        tables.put("t5", marker("t5", 0, 200, 6L));
+        tables.put("t6", marker("t6", 0, 200, 6L));
+        tables.put("t7", marker("t7", 150, 150, 7L));
+        tables.put("new", marker("new", 200, 200, null));
+        tables.remove("t8");
+        rowsServed.set(0);
+        List<TableEvent> events = watcher.poll();
+        Set<String> reported = new HashSet<String>();
+        for (TableEvent event : events) {
+            reported.add(event.toString());
+        }
+        assertEquals(new HashSet<String>(Arrays.asList("AUTO_INCREMENT db.t5 5 -> 6", "WRITTEN db.t6", "REBUILT db.t7", "CREATED db.new", "DROPPED db.t8")), reported);
+        assertEquals(1, watcher.getFullReads());
+
+        //Quiet again, and the drop does not trigger another full read
+        rowsServed.set(0);
+        assertTrue(watcher.poll().isEmpty());
+        assertEquals(3, rowsServed.get());
+        assertEquals(1, watcher.getFullReads());
+    }
+}
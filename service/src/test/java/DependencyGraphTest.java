@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dbinterrogator.service.DependencyGraph;
+import com.dbinterrogator.service.ForeignKey;
+import com.dbinterrogator.service.TableReference;
+import com.dbinterrogator.service.WaveScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+class DependencyGraphTest {
+
+    private static final TableReference COUNTRY = new TableReference("sakila", "country");
+    private static final TableReference CITY = new TableReference("sakila", "city");
+    private static final TableReference ADDRESS = new TableReference("sakila", "address");
+    private static final TableReference STORE = new TableReference("sakila", "store");
+    private static final TableReference STAFF = new TableReference("sakila", "staff");
+    private static final TableReference CATEGORY = new TableReference("sakila", "category");
+    private static final TableReference LANGUAGE = new TableReference("sakila", "language");
+
+    private static ForeignKey key(TableReference table, TableReference referencedTable) {
+        return new ForeignKey("fk_" + table.getTable() + "_" + referencedTable.getTable(), table, Collections.singletonList("id"),
+                referencedTable, Collections.singletonList("id"), "CASCADE", "RESTRICT");
+    }
+
+    /**
+     * Sakila's address chain, with store and staff referencing each other and
+     * category referencing itself
+     */
+    private static DependencyGraph sakila() {
+        return DependencyGraph.of(Arrays.asList(STAFF, STORE, ADDRESS, CITY, COUNTRY, CATEGORY, LANGUAGE), Arrays.asList(
+                key(CITY, COUNTRY),
+                key(ADDRESS, CITY),
+                key(STORE, ADDRESS),
+                key(STAFF, ADDRESS),
+                key(STORE, STAFF),
+                key(STAFF, STORE),
+                key(CATEGORY, CATEGORY)));
+    }
+
+    @Test
+    void wavesTest() {
+        DependencyGraph graph = sakila();
+        assertEquals(Arrays.asList(
+                Arrays.asList(CATEGORY, COUNTRY, LANGUAGE),
+                Collections.singletonList(CITY),
+                Collections.singletonList(ADDRESS),
+                Arrays.asList(STAFF, STORE)), graph.getWaves());
+        assertEquals(3, graph.getWave(STORE));
+        assertEquals(-1, graph.getWave(new TableReference("sakila", "film")));
+        assertEquals(Collections.singleton(ADDRESS), graph.getDependents(CITY));
+    }
+
+    @Test
+    void cyclesTest() {
+        DependencyGraph graph = sakila();
+        assertTrue(graph.hasCycles());
+        assertEquals(Arrays.asList(Collections.singletonList(CATEGORY), Arrays.asList(STAFF, STORE)), sorted(graph.getCycles()));
+        assertFalse(graph.getDependencies(CATEGORY).contains(CATEGORY));
+        assertFalse(DependencyGraph.of(Arrays.asList(CITY, COUNTRY), Collections.singletonList(key(CITY, COUNTRY))).hasCycles());
+    }
+
+    @Test
+    void outsideKeysTest() {
+        TableReference elsewhere = new TableReference("world", "country");
+        DependencyGraph graph = DependencyGraph.of(Collections.singletonList(CITY), Collections.singletonList(key(CITY, elsewhere)));
+        assertEquals(Collections.singletonList(Collections.singletonList(CITY)), graph.getWaves());
+        assertTrue(graph.getDependencies(CITY).isEmpty());
+    }
+
+    @Test
+    void schedulerOrderTest() throws InterruptedException {
+        DependencyGraph graph = sakila();
+        for (WaveScheduler.Order order : WaveScheduler.Order.values()) {
+            Set<TableReference> finished = ConcurrentHashMap.newKeySet();
+            List<String> violations = Collections.synchronizedList(new ArrayList<String>());
+            Map<TableReference, Throwable> failures = new WaveScheduler(graph, 4).run(order, table -> {
+                Set<TableReference> before = order == WaveScheduler.Order.DEPENDENCIES_FIRST ? graph.getDependencies(table) : graph.getDependents(table);
+                for (TableReference other : before) {
+                    //Tables in the same cycle run together
+                    if (!finished.contains(other) && graph.getWave(other) != graph.getWave(table)) {
+                        violations.add(table + " before " + other);
+                    }
+                }
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                finished.add(table);
+            });
+            assertTrue(failures.isEmpty());
+            assertEquals(graph.getTables(), finished);
+            assertEquals(Collections.emptyList(), violations);
+        }
+    }
+
+    @Test
+    void schedulerFailureTest() throws InterruptedException {
+        Set<TableReference> ran = ConcurrentHashMap.newKeySet();
+        Map<TableReference, Throwable> failures = new WaveScheduler(sakila(), 2).run(WaveScheduler.Order.DEPENDENCIES_FIRST, table -> {
+            ran.add(table);
+            if (table.equals(CITY)) {
+                throw new IllegalArgumentException("load failed");
+            }
+        });
+        assertEquals(Arrays.asList(ADDRESS, CITY, STAFF, STORE), new ArrayList<TableReference>(failures.keySet()));
+        assertEquals("load failed", failures.get(CITY).getMessage());
+        assertTrue(failures.get(STORE).getMessage().contains(CITY.toString()));
+        assertEquals(4, ran.size());
+        assertFalse(ran.contains(ADDRESS));
+    }
+
+    private static List<List<TableReference>> sorted(List<List<TableReference>> groups) {
+        List<List<TableReference>> sorted = new ArrayList<List<TableReference>>(groups);
+        sorted.sort((a, b) -> a.get(0).compareTo(b.get(0)));
+        return sorted;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dbinterrogator.service.FleetResult;
+import com.dbinterrogator.service.FleetScanner;
+import com.dbinterrogator.service.InterrogatorService;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class FleetScannerTest {
+
+    /**
+     * Interrogator whose only behaviour is answering with its instance name
+     */
+    private static InterrogatorService server(String name) {
+        return StubInterrogator.of((method, args) -> method.getName().equals("toString") ? name : null);
+    }
+
+    /**
+     * Task sleeping for the number of milliseconds after the "-" in the instance name
+     */
+    private static String sleep(InterrogatorService interrogator) {
+        String name = interrogator.toString();
+        try {
+            Thread.sleep(Long.parseLong(name.substring(name.indexOf('-') + 1)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return name;
+    }
+
+    @Test
+    void streamOrderTest() throws InterruptedException {
+        List<String> finished = new ArrayList<String>();
+        long start = System.nanoTime();
+        new FleetScanner(4, 10, TimeUnit.SECONDS).scan(Arrays.asList("a-600", "b-400", "c-200", "d-0"),
+                FleetScannerTest::server, FleetScannerTest::sleep, result -> finished.add(result.getValue()));
+        assertEquals(Arrays.asList("d-0", "c-200", "b-400", "a-600"), finished);
+        //Total time tracks the slowest instance, not the sum
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1100);
+    }
+
+    @Test
+    void parallelismTest() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<String> instances = new ArrayList<String>();
+        for (int i = 0; i < 12; i++) {
+            instances.add("i" + i + "-50");
+        }
+        List<FleetResult<String>> results = new ArrayList<FleetResult<String>>();
+        new FleetScanner(3, 10, TimeUnit.SECONDS).scan(instances, FleetScannerTest::server, interrogator -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                return sleep(interrogator);
+            } finally {
+                running.decrementAndGet();
+            }
+        }, results::add);
+        assertEquals(12, results.size());
+        assertTrue(peak.get() <= 3, "peak " + peak.get());
+    }
+
+    @Test
+    void failureTest() throws InterruptedException {
+        List<FleetResult<String>> results = new ArrayList<FleetResult<String>>();
+        long start = System.nanoTime();
+        new FleetScanner(4, 300, TimeUnit.MILLISECONDS).scan(Arrays.asList("slow-5000", "down-0", "ok-0"),
+                name -> {
+                    if (name.startsWith("down")) {
+                        throw new IllegalStateException("Unable to connect to " + name);
+                    }
+                    return server(name);
+                }, FleetScannerTest::sleep, results::add);
+        //The slow instance is reported at its deadline rather than when it completes
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        assertEquals(3, results.size());
+        for (FleetResult<String> result : results) {
+            switch (result.getInstance()) {
+                case "slow-5000":
+                    assertEquals(FleetResult.Status.TIMED_OUT, result.getStatus());
+                    break;
+                case "down-0":
+                    assertEquals(FleetResult.Status.FAILED, result.getStatus());
+                    assertTrue(result.getError() instanceof IllegalStateException);
+                    break;
+                default:
+                    assertEquals(FleetResult.Status.OK, result.getStatus());
+                    assertEquals("ok-0", result.getValue());
+            }
+        }
+    }
+}
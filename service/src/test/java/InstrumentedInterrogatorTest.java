@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dbinterrogator.service.HistogramRegistry;
+import com.dbinterrogator.service.InstrumentedInterrogator;
+import com.dbinterrogator.service.InterrogatorService;
+import com.dbinterrogator.service.LatencyHistogram;
+import com.dbinterrogator.service.MetricsRegistry;
+import com.dbinterrogator.service.MetricsRegistry.Phase;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+class InstrumentedInterrogatorTest {
+
+    private MetricsRegistry delegateRegistry;
+
+    private final InterrogatorService stub = StubInterrogator.of((method, args) -> {
+        switch (method.getName()) {
+            case "setMetricsRegistry":
+                delegateRegistry = (MetricsRegistry) args[0];
+                return null;
+            case "getTables":
+                return new ArrayList<String>(Arrays.asList("actor", "film"));
+            case "streamSchemata":
+                return Stream.of("a", "b", "c");
+            case "getMaxValue":
+                throw new IllegalStateException("lost connection");
+            default:
+                return null;
+        }
+    });
+
+    @Test
+    void callTest() {
+        HistogramRegistry registry = new HistogramRegistry();
+        InterrogatorService interrogator = new InstrumentedInterrogator(stub, registry);
+        assertSame(registry, delegateRegistry);
+
+        interrogator.getTables("sakila");
+        interrogator.getTables("world");
+        HistogramRegistry.Metric metric = registry.getMetric(Phase.CALL, "getTables");
+        assertEquals(2, metric.getLatency().getCount());
+        assertEquals(4, metric.getRows());
+        assertEquals(0, metric.getFailures());
+    }
+
+    @Test
+    void failureTest() {
+        HistogramRegistry registry = new HistogramRegistry();
+        InterrogatorService interrogator = new InstrumentedInterrogator(stub, registry);
+        try {
+            interrogator.getMaxValue("id", "sakila", "actor");
+        } catch (IllegalStateException expected) {
+            //Recorded, then rethrown
+        }
+        assertEquals(1, registry.getMetric(Phase.CALL, "getMaxValue").getFailures());
+    }
+
+    @Test
+    void streamTest() {
+        HistogramRegistry registry = new HistogramRegistry();
+        InterrogatorService interrogator = new InstrumentedInterrogator(stub, registry);
+        try (Stream<String> schemata = interrogator.streamSchemata()) {
+            assertEquals(3, schemata.count());
+            assertNull(registry.getMetric(Phase.CALL, "streamSchemata"));
+        }
+        assertEquals(3, registry.getMetric(Phase.CALL, "streamSchemata").getRows());
+        assertTrue(registry.getSummary().contains("streamSchemata"));
+    }
+
+    @Test
+    void histogramTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100000; value++) {
+            histogram.record(value * 1000);
+        }
+        assertEquals(100000, histogram.getCount());
+        assertEquals(100000000, histogram.getMax());
+        assertEquals(50000500, histogram.getMean());
+        for (double percentile : new double[] { 1, 50, 90, 99, 99.9 }) {
+            double expected = percentile * 1000000;
+            assertEquals(expected, histogram.getPercentile(percentile), expected / 16);
+        }
+        assertEquals(100000000, histogram.getPercentile(100));
+        assertEquals(0, new LatencyHistogram().getPercentile(50));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dbinterrogator.service.CatalogColumn;
+import com.dbinterrogator.service.CatalogKey;
+import com.dbinterrogator.service.CatalogSchema;
+import com.dbinterrogator.service.CatalogSnapshot;
+import com.dbinterrogator.service.CatalogSnapshotWriter;
+import com.dbinterrogator.service.CatalogTable;
+import com.dbinterrogator.service.MappedCatalogSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+class MappedCatalogSnapshotTest {
+
+    @Test
+    void roundTripTest() throws Exception {
+        CatalogTable actor = new CatalogTable("sakila", "actor", "BASE TABLE", "InnoDB", 200L, 201L,
+                Instant.ofEpochSecond(1500000000), null,
+                Arrays.asList(
+                        new CatalogColumn("actor_id", 1, "smallint", "smallint(5) unsigned", false, "PRI", "auto_increment"),
+                        new CatalogColumn("first_name", 2, "varchar", "varchar(45)", false, "", "")),
+                Collections.singletonList(new CatalogKey("PRIMARY", Collections.singletonList("actor_id"), null, null, null)));
+        CatalogTable filmActor = new CatalogTable("sakila", "film_actor", "BASE TABLE", "InnoDB", null, null, null, null,
+                Collections.singletonList(new CatalogColumn("actor_id", 1, "smallint", "smallint(5) unsigned", false, "PRI", "")),
+                Collections.singletonList(new CatalogKey("fk_film_actor_actor", Collections.singletonList("actor_id"),
+                        "sakila", "actor", Collections.singletonList("actor_id"))));
+        CatalogSnapshot snapshot = new CatalogSnapshot(Instant.ofEpochMilli(1234567890123L), Arrays.asList(
+                new CatalogSchema("sakila", "utf8mb4", "utf8mb4_general_ci", Arrays.asList(filmActor, actor)),
+                new CatalogSchema("empty", "latin1", "latin1_swedish_ci", Collections.<CatalogTable>emptyList())));
+
+        Path file = Files.createTempFile("catalog", ".snapshot");
+        try {
+            CatalogSnapshotWriter.write(snapshot, file);
+            MappedCatalogSnapshot mapped = MappedCatalogSnapshot.open(file);
+
+            assertEquals(snapshot.getCapturedAt(), mapped.getCapturedAt());
+            assertEquals(Arrays.asList("empty", "sakila"), mapped.getSchemaNames());
+            assertEquals(Arrays.asList("actor", "film_actor"), mapped.getTableNames("sakila"));
+            assertEquals(2, mapped.getTableCount());
+            assertNull(mapped.getTable("sakila", "film"));
+            assertNull(mapped.getSchema("world"));
+
+            CatalogTable table = mapped.getTable("sakila", "actor");
+            assertEquals(Long.valueOf(201), table.getAutoIncrement());
+            assertEquals(actor.getCreateTime(), table.getCreateTime());
+            assertNull(table.getUpdateTime());
+            assertEquals(Collections.singletonList("actor_id"), table.getIdentityColumns());
+            assertTrue(mapped.getColumn("sakila", "actor", "actor_id").isUnsigned());
+
+            CatalogKey foreignKey = mapped.getTable("sakila", "film_actor").getKeys().get(0);
+            assertEquals("actor", foreignKey.getReferencedTable());
+            assertEquals(Collections.singletonList("actor_id"), foreignKey.getReferencedColumns());
+            assertNull(mapped.getTable("sakila", "film_actor").getTableRows());
+            assertEquals("utf8mb4_general_ci", mapped.getSchema("sakila").getCollation());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
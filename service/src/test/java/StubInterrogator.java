@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+import com.dbinterrogator.service.InterrogatorService;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * InterrogatorService stubs for unit tests, answering every call through one
+ * handler.  Default methods are answered by the handler too, so a test that
+ * needs one of them working wraps the stub itself, e.g. in AsyncInterrogator.
+ */
+final class StubInterrogator {
+
+    interface Answer {
+        /**
+         * @param method Method called
+         * @param args Arguments, empty rather than null for none
+         *
+         * @return Result, null for calls the test does not expect
+         */
+        Object answer(Method method, Object[] args) throws Throwable;
+    }
+
+    private StubInterrogator() {
+    }
+
+    static InterrogatorService of(Answer answer) {
+        return (InterrogatorService) Proxy.newProxyInstance(
+                InterrogatorService.class.getClassLoader(),
+                new Class<?>[] { InterrogatorService.class },
+                (proxy, method, args) -> answer.answer(method, args == null ? new Object[0] : args));
+    }
+}
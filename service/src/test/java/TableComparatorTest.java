@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2018 Wave2 Limited
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dbinterrogator.service.ChecksumDifference;
+import com.dbinterrogator.service.ColumnReference;
+import com.dbinterrogator.service.InterrogatorService;
+import com.dbinterrogator.service.KeyRange;
+import com.dbinterrogator.service.TableChecksum;
+import com.dbinterrogator.service.TableComparator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+class TableComparatorTest {
+
+    /**
+     * Interrogator serving a single table "t" keyed by "id" from memory
+     */
+    private static InterrogatorService server(NavigableMap<Long, String> rows) {
+        return StubInterrogator.of((method, args) -> {
+            switch (method.getName()) {
+                case "getIdentityColumns":
+                    return Collections.singletonMap("t", new ArrayList<String>(Arrays.asList("id")));
+                case "getMinValues":
+                case "getMaxValues": {
+                    Map<ColumnReference, String> values = new LinkedHashMap<ColumnReference, String>();
+                    for (Object column : (List<?>) args[0]) {
+                        Long key = rows.isEmpty() ? null : method.getName().equals("getMinValues") ? rows.firstKey() : rows.lastKey();
+                        values.put((ColumnReference) column, key == null ? "" : key.toString());
+                    }
+                    return values;
+                }
+                case "getChecksums": {
+                    Map<KeyRange, TableChecksum> checksums = new LinkedHashMap<KeyRange, TableChecksum>();
+                    for (Object item : (List<?>) args[0]) {
+                        KeyRange range = (KeyRange) item;
+                        Map<Long, String> slice = range.isWholeTable() ? rows : rows.subMap(range.getLower(), true, range.getUpper(), true);
+                        long hash = 0;
+                        for (Map.Entry<Long, String> row : slice.entrySet()) {
+                            hash ^= (row.getKey() + "#" + row.getValue()).hashCode() * 0x9E3779B97F4A7C15L;
+                        }
+                        checksums.put(range, new TableChecksum(slice.size(), Long.toHexString(hash)));
+                    }
+                    return checksums;
+                }
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static NavigableMap<Long, String> rows(long count) {
+        NavigableMap<Long, String> rows = new TreeMap<Long, String>();
+        for (long id = 1; id <= count; id++) {
+            rows.put(id, "row " + id);
+        }
+        return rows;
+    }
+
+    private static TableComparator comparator(NavigableMap<Long, String> source, NavigableMap<Long, String> target) {
+        TableComparator comparator = new TableComparator(server(source), server(target));
+        comparator.setChunkSize(10000);
+        comparator.setSplitFactor(10);
+        comparator.setLeafSize(100);
+        return comparator;
+    }
+
+    @Test
+    void identicalTest() {
+        TableComparator comparator = comparator(rows(100000), rows(100000));
+        assertTrue(comparator.compare("s", Arrays.asList("t")).isEmpty());
+        assertEquals(11, comparator.getRangesCompared());
+    }
+
+    @Test
+    void drillDownTest() {
+        NavigableMap<Long, String> target = rows(100000);
+        target.put(54321L, "changed");
+        TableComparator comparator = comparator(rows(100000), target);
+        List<ChecksumDifference> differences = comparator.compare("s", Arrays.asList("t"));
+        assertEquals(1, differences.size());
+        KeyRange range = differences.get(0).getRange();
+        assertTrue(range.getLower() <= 54321 && 54321 <= range.getUpper());
+        assertTrue(range.getSpan() <= 100);
+        assertEquals(11 + 10 + 10, comparator.getRangesCompared());
+    }
+
+    @Test
+    void extraRowsTest() {
+        NavigableMap<Long, String> target = rows(1000);
+        target.put(25000L, "only on target");
+        List<ChecksumDifference> differences = comparator(rows(1000), target).compare("s", Arrays.asList("t"));
+        assertEquals(1, differences.size());
+        assertEquals(0, differences.get(0).getSource().getRows());
+        assertEquals(1, differences.get(0).getTarget().getRows());
+    }
+
+    @Test
+    void failedBoundsTest() {
+        NavigableMap<Long, String> target = rows(1000);
+        target.put(25000L, "only on target");
+        InterrogatorService failing = server(target);
+        //The target's MIN/MAX batches fail, leaving its key out of the results
+        InterrogatorService noBounds = StubInterrogator.of((method, args) -> method.getName().endsWith("Values") ? Collections.emptyMap() : method.invoke(failing, args));
+        TableComparator comparator = new TableComparator(server(rows(1000)), noBounds);
+        List<ChecksumDifference> differences = comparator.compare("s", Arrays.asList("t"));
+        assertEquals(1, differences.size());
+        assertTrue(differences.get(0).getRange().isWholeTable());
+        assertEquals(1001, differences.get(0).getTarget().getRows());
+    }
+
+    @Test
+    void splitTest() {
+        KeyRange range = new KeyRange("s", "t", "id", 0, 99);
+        List<KeyRange> parts = range.split(16);
+        assertEquals(0, parts.get(0).getLower());
+        assertEquals(99, parts.get(parts.size() - 1).getUpper());
+        for (int i = 1; i < parts.size(); i++) {
+            assertEquals(parts.get(i - 1).getUpper() + 1, parts.get(i).getLower());
+        }
+        assertEquals(Collections.singletonList(new KeyRange("s", "t", "id", 5, 5)), new KeyRange("s", "t", "id", 5, 5).split(16));
+        assertEquals(2, new KeyRange("s", "t", "id", Long.MAX_VALUE - 1, Long.MAX_VALUE).split(16).size());
+    }
+
+    @Test
+    void alignedTest() {
+        List<KeyRange> ranges = KeyRange.aligned("s", "t", "id", -5, 25, 10);
+        assertEquals(4, ranges.size());
+        assertEquals(-10, ranges.get(0).getLower());
+        assertEquals(29, ranges.get(3).getUpper());
+        assertEquals(Long.MAX_VALUE, KeyRange.aligned("s", "t", "id", Long.MAX_VALUE, Long.MAX_VALUE, 10).get(0).getUpper());
+    }
+
+    @Test
+    void alignedBoundedTest() {
+        //One outlying key widens the ranges rather than multiplying them
+        List<KeyRange> outlier = KeyRange.aligned("s", "t", "id", 1, 1000000000000L, 1000, 100);
+        assertTrue(outlier.size() <= 100);
+        assertEquals(0, outlier.get(0).getLower());
+        assertEquals(0, (outlier.get(0).getUpper() + 1) % 1000);
+        assertTrue(outlier.get(outlier.size() - 1).getUpper() >= 1000000000000L);
+        assertEquals(outlier.get(0).getSpan(), KeyRange.width(1, 1000000000000L, 1000, 100));
+        assertEquals(1000, KeyRange.width(1, 99999, 1000, 100));
+        for (int i = 1; i < outlier.size(); i++) {
+            assertEquals(outlier.get(i - 1).getUpper() + 1, outlier.get(i).getLower());
+        }
+        //The whole long range with a chunk of one neither overflows nor runs away
+        List<KeyRange> whole = KeyRange.aligned("s", "t", "id", Long.MIN_VALUE, Long.MAX_VALUE, 1);
+        assertTrue(whole.size() <= KeyRange.MAX_RANGES);
+        assertEquals(Long.MIN_VALUE, whole.get(0).getLower());
+        assertEquals(Long.MAX_VALUE, whole.get(whole.size() - 1).getUpper());
+        assertEquals(1, KeyRange.aligned("s", "t", "id", Long.MAX_VALUE - 1, Long.MAX_VALUE, 1, 1).size());
+        assertEquals(2, KeyRange.aligned("s", "t", "id", Long.MAX_VALUE - 1, Long.MAX_VALUE, 1).size());
+    }
+}